@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.unittest.test;
+
+import android.os.Debug;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.appium.uiautomator2.model.By;
+import io.appium.uiautomator2.model.CompactUiSnapshot;
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.model.UiElementSnapshot;
+import io.appium.uiautomator2.unittest.test.internal.BaseTest;
+import io.appium.uiautomator2.unittest.test.internal.Response;
+import io.appium.uiautomator2.utils.AXWindowHelpers;
+import io.appium.uiautomator2.utils.Attribute;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.findElement;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares allocations made while taking object-based and compact hierarchy snapshots.
+ * Snapshots are taken in the instrumentation process directly, so only the memory
+ * allocated by the current thread is counted.
+ */
+public class CompactSnapshotBenchmarkTest extends BaseTest {
+    private static final int ITERATIONS = 5;
+
+    private interface SnapshotFactory {
+        UiElement<?, ?> take(AccessibilityNodeInfo[] roots);
+    }
+
+    private static final SnapshotFactory OBJECT_SNAPSHOT_FACTORY = new SnapshotFactory() {
+        @Override
+        public UiElement<?, ?> take(AccessibilityNodeInfo[] roots) {
+            return UiElementSnapshot.take(roots, Collections.<CharSequence>emptyList(), null);
+        }
+    };
+
+    private static final SnapshotFactory COMPACT_SNAPSHOT_FACTORY = new SnapshotFactory() {
+        @Override
+        public UiElement<?, ?> take(AccessibilityNodeInfo[] roots) {
+            return CompactUiSnapshot.take(roots, Collections.<CharSequence>emptyList(), null);
+        }
+    };
+
+    private void setupView() throws JSONException {
+        Response response = findElement(By.accessibilityId("Views"));
+        clickAndWaitForStaleness(response.getElementId());
+    }
+
+    @SuppressWarnings("deprecation")
+    private static UiElement<?, ?> measure(String name, SnapshotFactory factory,
+                                           AccessibilityNodeInfo[] roots) {
+        // Warm up the accessibility cache
+        UiElement<?, ?> result = factory.take(roots);
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; ++i) {
+                result = factory.take(roots);
+            }
+            long avgMs = (System.nanoTime() - start) / ITERATIONS / 1_000_000;
+            Logger.info(String.format("%s snapshot of %s elements: %s objects (%s bytes) " +
+                            "allocated, %sms spent on average", name, countElements(result),
+                    Debug.getThreadAllocCount() / ITERATIONS,
+                    Debug.getThreadAllocSize() / ITERATIONS, avgMs));
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return result;
+    }
+
+    private static int countElements(UiElement<?, ?> element) {
+        int result = 1;
+        for (UiElement<?, ?> child : element.getChildren()) {
+            result += countElements(child);
+        }
+        return result;
+    }
+
+    private static void assertSameElements(UiElement<?, ?> expected, UiElement<?, ?> actual) {
+        assertEquals(new ArrayList<>(expected.attributeKeys()),
+                new ArrayList<>(actual.attributeKeys()));
+        for (Attribute attribute : expected.attributeKeys()) {
+            Object expectedValue = expected.get(attribute);
+            Object actualValue = actual.get(attribute);
+            assertEquals(expectedValue, actualValue);
+        }
+        List<? extends UiElement<?, ?>> expectedChildren = expected.getChildren();
+        List<? extends UiElement<?, ?>> actualChildren = actual.getChildren();
+        assertEquals(expectedChildren.size(), actualChildren.size());
+        for (int i = 0; i < expectedChildren.size(); ++i) {
+            assertSameElements(expectedChildren.get(i), actualChildren.get(i));
+        }
+    }
+
+    @Test
+    public void shouldAllocateLessForCompactSnapshots() throws JSONException {
+        setupView();
+        AXWindowHelpers.refreshAccessibilityCache();
+        AccessibilityNodeInfo[] roots = AXWindowHelpers.getCachedWindowRoots();
+
+        UiElement<?, ?> objectSnapshot = measure("Object", OBJECT_SNAPSHOT_FACTORY, roots);
+        UiElement<?, ?> compactSnapshot = measure("Compact", COMPACT_SNAPSHOT_FACTORY, roots);
+        assertSameElements(objectSnapshot, compactSnapshot);
+    }
+}
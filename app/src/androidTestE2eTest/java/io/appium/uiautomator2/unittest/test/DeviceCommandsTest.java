@@ -43,6 +43,7 @@ import io.appium.uiautomator2.utils.Device;
 import static io.appium.uiautomator2.unittest.test.internal.TestUtils.getJsonObjectCountInJsonArray;
 import static io.appium.uiautomator2.unittest.test.internal.TestUtils.waitForElement;
 import static io.appium.uiautomator2.unittest.test.internal.TestUtils.waitForElementInvisibility;
+import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.batch;
 import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.findElement;
 import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.findElements;
 import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.getDeviceSize;
@@ -812,4 +813,45 @@ public class DeviceCommandsTest extends BaseTest {
         assertEquals(info.getString("platformVersion"), Build.VERSION.RELEASE);
         assertTrue(info.getJSONArray("networks").length() > 0);
     }
+
+    @Test
+    public void shouldExecuteBatchCommands() throws JSONException {
+        String sessionUri = "/wd/hub/session/:sessionId";
+        JSONArray commands = new JSONArray()
+                .put(new JSONObject()
+                        .put("method", "POST")
+                        .put("uri", sessionUri + "/element")
+                        .put("body", new JSONObject()
+                                .put("strategy", "accessibility id")
+                                .put("selector", "App")))
+                .put(new JSONObject()
+                        .put("method", "GET")
+                        .put("uri", sessionUri + "/appium/settings"))
+                .put(new JSONObject()
+                        .put("method", "POST")
+                        .put("uri", sessionUri + "/element")
+                        .put("body", new JSONObject()
+                                .put("strategy", "accessibility id")
+                                .put("selector", "nonexistent")))
+                .put(new JSONObject()
+                        .put("method", "GET")
+                        .put("uri", sessionUri + "/orientation"));
+
+        Response response = batch(commands, true);
+        assertTrue(response.isSuccessful());
+        JSONArray results = response.getValue();
+        assertEquals(3, results.length());
+        assertEquals(200, results.getJSONObject(0).getInt("status"));
+        assertNotNull(TestUtils.extractElementId(results.getJSONObject(0).getJSONObject("value")));
+        assertEquals(200, results.getJSONObject(1).getInt("status"));
+        assertEquals(404, results.getJSONObject(2).getInt("status"));
+        assertEquals("no such element",
+                results.getJSONObject(2).getJSONObject("value").getString("error"));
+
+        response = batch(commands, false);
+        assertTrue(response.isSuccessful());
+        results = response.getValue();
+        assertEquals(4, results.length());
+        assertEquals(200, results.getJSONObject(3).getInt("status"));
+    }
 }
@@ -19,6 +19,7 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.util.Base64;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
@@ -32,6 +33,7 @@ import static io.appium.uiautomator2.unittest.test.internal.TestUtils.waitForEle
 import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.findElement;
 import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.click;
 import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.getAttribute;
+import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.getAttributes;
 import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.getLocation;
 import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.getName;
 import static io.appium.uiautomator2.unittest.test.internal.commands.ElementCommands.getSize;
@@ -80,6 +82,31 @@ public class ElementCommandsTest extends BaseTest {
         assertEquals("android.widget.TextView", response.getValue());
     }
 
+    @Test
+    public void getAttributesTest() throws JSONException {
+        String appId = findElement(By.accessibilityId("App")).getElementId();
+        String contentId = findElement(By.accessibilityId("Content")).getElementId();
+        String[] attributes = {"resourceId", "contentDescription", "className", "bounds"};
+
+        Response response = getAttributes(new String[]{appId, contentId}, attributes);
+        assertTrue(response.isSuccessful());
+        JSONArray rows = response.getValue();
+        assertEquals(2, rows.length());
+        String[] ids = {appId, contentId};
+        for (int i = 0; i < ids.length; ++i) {
+            JSONArray row = rows.getJSONArray(i);
+            assertEquals(attributes.length, row.length());
+            for (int j = 0; j < attributes.length; ++j) {
+                assertEquals(getAttribute(ids[i], attributes[j]).getValue(), row.get(j));
+            }
+        }
+        assertEquals("App", rows.getJSONArray(0).getString(1));
+        assertEquals("Content", rows.getJSONArray(1).getString(1));
+
+        response = getAttributes(new String[]{appId}, new String[]{"nonexistent"});
+        assertFalse(response.isSuccessful());
+    }
+
     /**
      * Test for getElement Text
      */
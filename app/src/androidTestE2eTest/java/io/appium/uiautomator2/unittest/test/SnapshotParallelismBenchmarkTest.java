@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.unittest.test;
+
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Test;
+
+import io.appium.uiautomator2.model.By;
+import io.appium.uiautomator2.unittest.test.internal.BaseTest;
+import io.appium.uiautomator2.unittest.test.internal.Response;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.findElement;
+import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.source;
+import static io.appium.uiautomator2.unittest.test.internal.commands.DeviceCommands.updateSetting;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the duration of page source retrieval for a screen with multiple windows
+ * (the application, a dialog and system bars) with sequential and parallel snapshotting.
+ */
+public class SnapshotParallelismBenchmarkTest extends BaseTest {
+    private static final int ITERATIONS = 10;
+    private static final int PARALLELISM = 4;
+
+    @After
+    public void tearDown() throws JSONException {
+        updateSetting("snapshotParallelism", 1);
+        updateSetting("enableMultiWindows", false);
+    }
+
+    private void setupView() throws JSONException {
+        Response response = findElement(By.accessibilityId("App"));
+        clickAndWaitForStaleness(response.getElementId());
+        response = findElement(By.accessibilityId("Alert Dialogs"));
+        clickAndWaitForStaleness(response.getElementId());
+        response = findElement(By.accessibilityId("OK Cancel dialog with a long message"));
+        clickAndWaitForStaleness(response.getElementId());
+    }
+
+    private static int countElements(String source) {
+        int result = 0;
+        for (int i = source.indexOf("<"); i >= 0; i = source.indexOf("<", i + 1)) {
+            if (source.charAt(i + 1) != '/' && source.charAt(i + 1) != '?') {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    private String measureSource(int parallelism) throws JSONException {
+        updateSetting("snapshotParallelism", parallelism);
+        // Warm up
+        Response response = source();
+        assertTrue(response.isSuccessful());
+        String result = (String) response.getValue();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            assertTrue(source().isSuccessful());
+        }
+        long avgMs = (System.nanoTime() - start) / ITERATIONS / 1_000_000;
+        Logger.info(String.format("Page source with %s snapshot thread(s): %sms on average",
+                parallelism, avgMs));
+        return result;
+    }
+
+    @Test
+    public void shouldProduceSameSourceInParallel() throws JSONException {
+        setupView();
+        updateSetting("enableMultiWindows", true);
+
+        String sequentialSource = measureSource(1);
+        String parallelSource = measureSource(PARALLELISM);
+        // Texts like the status bar clock could change in between, so only the structure is compared
+        assertEquals(countElements(sequentialSource), countElements(parallelSource));
+    }
+}
@@ -186,6 +186,21 @@ public class DeviceCommands {
         return Client.get("/appium/settings");
     }
 
+    /**
+     * Executes multiple commands in a single request
+     *
+     * @param commands the list of commands. Each item contains method, uri and body
+     * @param stopOnError whether to skip remaining commands after the first failure
+     * @return Response from UiAutomator2 server
+     * @throws JSONException
+     */
+    public static Response batch(JSONArray commands, boolean stopOnError) throws JSONException {
+        JSONObject postBody = new JSONObject()
+                .put("commands", commands)
+                .put("stopOnError", stopOnError);
+        return Client.post("/appium/batch", postBody);
+    }
+
     /**
      * retrieve device information
      *
@@ -19,9 +19,12 @@ import android.graphics.Rect;
 
 import androidx.annotation.Nullable;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Arrays;
+
 import io.appium.uiautomator2.model.Point;
 import io.appium.uiautomator2.unittest.test.internal.Client;
 import io.appium.uiautomator2.unittest.test.internal.Response;
@@ -316,6 +319,22 @@ public class ElementCommands {
         return Client.get("/element/" + elementId + "/attribute/" + attribute);
     }
 
+    /**
+     * get multiple attributes of multiple elements
+     * POST /appium/elements/attributes
+     *
+     * @param elementIds
+     * @param attributes
+     * @return Response from UiAutomator2 server
+     * @throws JSONException
+     */
+    public static Response getAttributes(String[] elementIds, String[] attributes) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("elements", new JSONArray(Arrays.asList(elementIds)));
+        jsonObject.put("attributes", new JSONArray(Arrays.asList(attributes)));
+        return Client.post("/appium/elements/attributes", jsonObject);
+    }
+
     /**
      * get the content-desc from the element
      * GET /element/:elementId/name
@@ -18,35 +18,31 @@ package io.appium.uiautomator2.core;
 
 import android.graphics.Point;
 import android.os.SystemClock;
-import android.util.SparseArray;
-import android.util.Xml;
 import android.view.Display;
 import android.view.View;
 import android.view.accessibility.AccessibilityNodeInfo;
 
 import androidx.annotation.Nullable;
 
-import org.apache.commons.io.IOUtils;
-import org.jdom2.Document;
-import org.jdom2.filter.Filters;
-import org.jdom2.input.JDOMParseException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
-import org.xmlpull.v1.XmlSerializer;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import org.jaxen.JaxenException;
+import org.jaxen.XPath;
+
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 
 import io.appium.uiautomator2.common.exceptions.InvalidSelectorException;
 import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+import io.appium.uiautomator2.http.StreamingStringValue;
+import io.appium.uiautomator2.model.CompactUiSnapshot;
 import io.appium.uiautomator2.model.NotificationListener;
 import io.appium.uiautomator2.model.UiElementSnapshot;
 import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.model.settings.EnableCompactSnapshots;
 import io.appium.uiautomator2.model.settings.NormalizeTagNames;
 import io.appium.uiautomator2.model.settings.Settings;
 import io.appium.uiautomator2.utils.Attribute;
@@ -56,26 +52,17 @@ import io.appium.uiautomator2.utils.StringHelpers;
 
 import static io.appium.uiautomator2.utils.AXWindowHelpers.getCachedWindowRoots;
 import static io.appium.uiautomator2.utils.XMLHelpers.toNodeName;
-import static io.appium.uiautomator2.utils.XMLHelpers.toSafeString;
 import static net.gcardone.junidecode.Junidecode.unidecode;
 
 public class AccessibilityNodeInfoDumper {
-    private static final String UI_ELEMENT_INDEX = "uiElementIndex";
-    private static final String NON_XML_CHAR_REPLACEMENT = "?";
-    private static final String NAMESPACE = "";
+    static final String NON_XML_CHAR_REPLACEMENT = "?";
     private static final String DEFAULT_VIEW_CLASS_NAME = View.class.getName();
-    private static final String XML_ENCODING = "UTF-8";
-    private static final XPathFactory XPATH = XPathFactory.instance();
-    private static final SAXBuilder SAX_BUILDER = new SAXBuilder();
     private final Semaphore RESOURCES_GUARD = new Semaphore(1);
 
     @Nullable
     private final AccessibilityNodeInfo root;
-    private final SparseArray<UiElement<?, ?>> uiElementsMapping = new SparseArray<>();
     @Nullable
     private final Set<Attribute> includedAttributes;
-    private boolean shouldAddDisplayInfo;
-    private XmlSerializer serializer;
 
     public AccessibilityNodeInfoDumper(@Nullable AccessibilityNodeInfo root,
                                        @Nullable Set<Attribute> includedAttributes) {
@@ -83,16 +70,18 @@ public class AccessibilityNodeInfoDumper {
         this.includedAttributes = includedAttributes;
     }
 
-    private void addDisplayInfo() throws IOException {
+    private static Map<String, String> getDisplayInfo() {
         Display display = UiAutomatorBridge.getInstance().getDefaultDisplay();
         Point size = new Point();
         display.getSize(size);
-        serializer.attribute(NAMESPACE, "rotation", Integer.toString(display.getRotation()));
-        serializer.attribute(NAMESPACE, "width", Integer.toString(size.x));
-        serializer.attribute(NAMESPACE, "height", Integer.toString(size.y));
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("rotation", Integer.toString(display.getRotation()));
+        result.put("width", Integer.toString(size.x));
+        result.put("height", Integer.toString(size.y));
+        return result;
     }
 
-    private static String toXmlNodeName(@Nullable String className) {
+    static String toXmlNodeName(@Nullable String className) {
         if (StringHelpers.isBlank(className)) {
             return DEFAULT_VIEW_CLASS_NAME;
         }
@@ -118,56 +107,29 @@ public class AccessibilityNodeInfoDumper {
         return fixedName;
     }
 
-    private void serializeUiElement(UiElement<?, ?> uiElement, boolean isIndexed) throws IOException {
-        final String className = uiElement.getClassName();
-        final String nodeName = toXmlNodeName(className);
-        serializer.startTag(NAMESPACE, nodeName);
-
-        for (Attribute attr : uiElement.attributeKeys()) {
-            if (!attr.isExposableToXml()) {
-                continue;
-            }
-            Object value = uiElement.get(attr);
-            if (value == null) {
-                continue;
-            }
-            serializer.attribute(NAMESPACE, attr.getName(), toSafeString(String.valueOf(value), NON_XML_CHAR_REPLACEMENT));
-        }
-        if (shouldAddDisplayInfo) {
-            addDisplayInfo();
-            // Display info is only added once to the root node
-            shouldAddDisplayInfo = false;
-        }
-
-        final int uiElementIndex = uiElementsMapping.size();
-        uiElementsMapping.put(uiElementIndex, uiElement);
-        if (isIndexed) {
-            serializer.attribute(NAMESPACE, UI_ELEMENT_INDEX, Integer.toString(uiElementIndex));
-        }
-
-        for (UiElement<?, ?> child : uiElement.getChildren()) {
-            serializeUiElement(child, isIndexed);
-        }
-        serializer.endTag(NAMESPACE, nodeName);
+    private static boolean isCompactSnapshotEnabled() {
+        return ((EnableCompactSnapshots) Settings.ENABLE_COMPACT_SNAPSHOTS.getSetting()).getValue();
     }
 
-    private InputStream toStream(boolean isIndexed) throws IOException {
-        final long startTime = SystemClock.uptimeMillis();
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            serializer = Xml.newSerializer();
-            shouldAddDisplayInfo = root == null;
-            serializer.setOutput(outputStream, XML_ENCODING);
-            serializer.startDocument(XML_ENCODING, true);
-            serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
-            final UiElement<?, ?> uiRootElement = root == null
-                    ? UiElementSnapshot.take(getCachedWindowRoots(), NotificationListener.getInstance().getToastMessage(), includedAttributes)
+    private UiElement<?, ?> takeSnapshot() {
+        final long fetchesCountBefore = AxNodeFetcher.getFetchesCount();
+        final UiElement<?, ?> result;
+        if (root != null) {
+            result = isCompactSnapshotEnabled()
+                    ? CompactUiSnapshot.take(root, includedAttributes)
                     : UiElementSnapshot.take(root, includedAttributes);
-            serializeUiElement(uiRootElement, isIndexed);
-            serializer.endDocument();
-            Logger.debug(String.format("The source XML tree (%s bytes) has been fetched in %sms",
-                    outputStream.size(), SystemClock.uptimeMillis() - startTime));
-            return new ByteArrayInputStream(outputStream.toByteArray());
+        } else if (isCompactSnapshotEnabled() && !UiElementSnapshotCache.isEnabled()) {
+            result = CompactUiSnapshot.take(getCachedWindowRoots(),
+                    NotificationListener.getInstance().getToastMessage(), includedAttributes);
+        } else {
+            result = UiElementSnapshotCache.getInstance().take(includedAttributes);
         }
+        // Concurrent snapshots could affect this value, although it is fine for diagnostics
+        long fetchesCount = AxNodeFetcher.getFetchesCount() - fetchesCountBefore;
+        AxNodeFetcher.setLastSnapshotFetchesCount(fetchesCount);
+        Logger.debug(String.format("The snapshot has required %s accessibility node requests",
+                fetchesCount));
+        return result;
     }
 
     public String dumpToXml() {
@@ -176,37 +138,93 @@ public class AccessibilityNodeInfoDumper {
         } catch (InterruptedException e) {
             throw new UiAutomator2Exception(e);
         }
-        try (InputStream xmlStream = toStream(false)) {
-            return IOUtils.toString(xmlStream, XML_ENCODING);
+        final long startTime = SystemClock.uptimeMillis();
+        try (StringWriter writer = new StringWriter()) {
+            new UiElementXmlSerializer(takeSnapshot(), root == null ? getDisplayInfo() : null, writer)
+                    .writeAll();
+            Logger.debug(String.format("The source XML tree (%s chars) has been fetched in %sms",
+                    writer.getBuffer().length(), SystemClock.uptimeMillis() - startTime));
+            return writer.toString();
         } catch (IOException e) {
             throw new UiAutomator2Exception(e);
         } finally {
-            uiElementsMapping.clear();
             RESOURCES_GUARD.release();
         }
     }
 
+    /**
+     * Takes the snapshot of the hierarchy immediately, but serializes it to XML lazily,
+     * while the result is being written to the response stream.
+     *
+     * @return the page source, which is going to be written in portions
+     */
+    public StreamingStringValue dumpToStream() {
+        try {
+            RESOURCES_GUARD.acquire();
+        } catch (InterruptedException e) {
+            throw new UiAutomator2Exception(e);
+        }
+        final UiElement<?, ?> snapshot;
+        final Map<String, String> displayInfo;
+        try {
+            snapshot = takeSnapshot();
+            displayInfo = root == null ? getDisplayInfo() : null;
+        } finally {
+            RESOURCES_GUARD.release();
+        }
+        return new StreamingStringValue() {
+            private static final int ELEMENTS_PER_PORTION = 64;
+            private UiElementXmlSerializer xmlSerializer;
+
+            @Override
+            public void open(Writer writer) throws IOException {
+                xmlSerializer = new UiElementXmlSerializer(snapshot, displayInfo, writer);
+            }
+
+            @Override
+            public boolean writeNext() throws IOException {
+                boolean hasMore = true;
+                for (int i = 0; i < ELEMENTS_PER_PORTION && hasMore; ++i) {
+                    hasMore = xmlSerializer.writeNext();
+                }
+                xmlSerializer.flush();
+                return hasMore;
+            }
+        };
+    }
+
     public NodeInfoList findNodes(String xpathSelector, boolean multiple) {
+        final XPathQueryPlanner.Plan plan = XPathQueryPlanner.compile(xpathSelector);
+        if (plan != null) {
+            return findNodes(plan, xpathSelector, multiple);
+        }
+
+        final XPathExpressionCache expressionCache = XPathExpressionCache.getInstance();
+        final XPath expr;
         try {
-            XPATH.compile(xpathSelector, Filters.element());
-        } catch (IllegalArgumentException e) {
+            expr = expressionCache.get(xpathSelector);
+        } catch (JaxenException e) {
             throw new InvalidSelectorException(e);
         }
+        Logger.debug(String.format("Compiled XPath expressions cache hit rate: %.2f",
+                expressionCache.getHitRate()));
 
         try {
             RESOURCES_GUARD.acquire();
         } catch (InterruptedException e) {
             throw new UiAutomator2Exception(e);
         }
-        try (InputStream xmlStream = toStream(true)) {
-            final Document document = SAX_BUILDER.build(xmlStream);
-            final XPathExpression<org.jdom2.Attribute> expr = XPATH
-                    .compile(String.format("(%s)/@%s", xpathSelector, UI_ELEMENT_INDEX), Filters.attribute());
+        try {
+            final UiElementNavigator.DocumentNode document = new UiElementNavigator.DocumentNode(
+                    takeSnapshot(), root == null ? getDisplayInfo() : null);
             final NodeInfoList matchedNodes = new NodeInfoList();
             final long timeStarted = SystemClock.uptimeMillis();
-            for (org.jdom2.Attribute uiElementId : expr.evaluate(document)) {
-                UiElement<?, ?> uiElement = uiElementsMapping.get(uiElementId.getIntValue());
-                if (uiElement == null || uiElement.getNode() == null) {
+            for (Object item : expr.selectNodes(document)) {
+                if (!(item instanceof UiElementNavigator.ElementNode)) {
+                    continue;
+                }
+                UiElement<?, ?> uiElement = ((UiElementNavigator.ElementNode) item).getUiElement();
+                if (uiElement.getNode() == null) {
                     continue;
                 }
 
@@ -218,14 +236,39 @@ public class AccessibilityNodeInfoDumper {
             Logger.info(String.format("Took %sms to retrieve %s matches for '%s' XPath query",
                     SystemClock.uptimeMillis() - timeStarted, matchedNodes.size(), xpathSelector));
             return matchedNodes;
-        } catch (JDOMParseException e) {
-            throw new UiAutomator2Exception(String.format("%s. " +
-                            "Try changing the '%s' driver setting to 'true' in order to workaround the problem.",
-                    e.getMessage(), Settings.NORMALIZE_TAG_NAMES.toString()), e);
-        } catch (Exception e) {
+        } catch (JaxenException e) {
+            throw new UiAutomator2Exception(e);
+        } finally {
+            RESOURCES_GUARD.release();
+        }
+    }
+
+    private NodeInfoList findNodes(XPathQueryPlanner.Plan plan, String xpathSelector,
+                                   final boolean multiple) {
+        try {
+            RESOURCES_GUARD.acquire();
+        } catch (InterruptedException e) {
             throw new UiAutomator2Exception(e);
+        }
+        try {
+            final UiElement<?, ?> snapshot = takeSnapshot();
+            final NodeInfoList matchedNodes = new NodeInfoList();
+            final long timeStarted = SystemClock.uptimeMillis();
+            plan.evaluate(snapshot, new XPathQueryPlanner.MatchHandler() {
+                @Override
+                public boolean onMatch(UiElement<?, ?> uiElement) {
+                    if (uiElement.getNode() == null) {
+                        return true;
+                    }
+                    matchedNodes.add(uiElement.getNode());
+                    return multiple;
+                }
+            });
+            Logger.info(String.format("Took %sms to retrieve %s matches for '%s' XPath query " +
+                            "without the generic engine",
+                    SystemClock.uptimeMillis() - timeStarted, matchedNodes.size(), xpathSelector));
+            return matchedNodes;
         } finally {
-            uiElementsMapping.clear();
             RESOURCES_GUARD.release();
         }
     }
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.app.UiAutomation;
+import android.os.Build;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityWindowInfo;
+
+import androidx.annotation.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.getField;
+import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
+
+/**
+ * Retrieves accessibility nodes for hierarchy snapshots.
+ * Since API 33 the accessibility framework accepts a prefetching strategy along with
+ * node requests, so the nodes we are going to visit next are delivered in the same
+ * binder transaction and then served from the in-process accessibility cache.
+ * Snapshots are built in depth-first order, thus the corresponding descendants prefetching
+ * is requested. Older APIs always prefetch descendants on their own, so the
+ * default methods are used there.
+ * Each node request is counted, since every one of them might result in a binder call.
+ */
+public class AxNodeFetcher {
+    // Build.VERSION_CODES.TIRAMISU
+    private static final int PREFETCH_API_LEVEL = 33;
+
+    private static final AtomicLong fetchesCount = new AtomicLong();
+    private static volatile long lastSnapshotFetchesCount;
+
+    private AxNodeFetcher() {
+    }
+
+    /**
+     * Prefetching members are only resolved once on first access. The holder class
+     * makes it lock-free, since nodes are requested from several snapshot threads at once.
+     */
+    private static class Prefetching {
+        static final Method getChildMethod;
+        static final Method getWindowRootMethod;
+        static final Method getRootInActiveWindowMethod;
+        static final int childStrategy;
+        static final int rootStrategy;
+
+        static {
+            Method getChild = null;
+            Method getWindowRoot = null;
+            Method getRootInActiveWindow = null;
+            int childPrefetchingStrategy = 0;
+            int rootPrefetchingStrategy = 0;
+            if (Build.VERSION.SDK_INT >= PREFETCH_API_LEVEL) {
+                try {
+                    int prefetchSiblings = (int) getField(AccessibilityNodeInfo.class,
+                            "FLAG_PREFETCH_SIBLINGS", null);
+                    int prefetchDescendants = (int) getField(AccessibilityNodeInfo.class,
+                            "FLAG_PREFETCH_DESCENDANTS_DEPTH_FIRST", null);
+                    childPrefetchingStrategy = prefetchSiblings | prefetchDescendants;
+                    rootPrefetchingStrategy = prefetchDescendants;
+                    getWindowRoot = getMethod(AccessibilityWindowInfo.class, "getRoot",
+                            int.class);
+                    getRootInActiveWindow = getMethod(UiAutomation.class,
+                            "getRootInActiveWindow", int.class);
+                    getChild = getMethod(AccessibilityNodeInfo.class, "getChild",
+                            int.class, int.class);
+                } catch (Exception e) {
+                    Logger.info("Cannot initialize accessibility nodes prefetching. " +
+                            "Falling back to the default strategy", e);
+                    getChild = null;
+                }
+            }
+            getChildMethod = getChild;
+            getWindowRootMethod = getWindowRoot;
+            getRootInActiveWindowMethod = getRootInActiveWindow;
+            childStrategy = childPrefetchingStrategy;
+            rootStrategy = rootPrefetchingStrategy;
+        }
+
+        static boolean isSupported() {
+            return getChildMethod != null;
+        }
+    }
+
+    /**
+     * Retrieves the child of the given node. Siblings of the child and its descendants are
+     * prefetched if supported.
+     *
+     * @param node  the parent node
+     * @param index the index of the child
+     * @return the child node or null if it cannot be retrieved
+     */
+    @Nullable
+    public static AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+        fetchesCount.incrementAndGet();
+        if (Prefetching.isSupported()) {
+            // Siblings only need to be prefetched once
+            int strategy = index == 0 ? Prefetching.childStrategy : Prefetching.rootStrategy;
+            return (AccessibilityNodeInfo) invoke(Prefetching.getChildMethod, node, index, strategy);
+        }
+        return node.getChild(index);
+    }
+
+    /**
+     * Retrieves the root node of the given window. Its descendants are prefetched if supported.
+     *
+     * @param window the window to get the root from
+     * @return the root node or null if it cannot be retrieved
+     */
+    @Nullable
+    public static AccessibilityNodeInfo getRoot(AccessibilityWindowInfo window) {
+        fetchesCount.incrementAndGet();
+        if (Prefetching.isSupported()) {
+            return (AccessibilityNodeInfo) invoke(Prefetching.getWindowRootMethod, window,
+                    Prefetching.rootStrategy);
+        }
+        return window.getRoot();
+    }
+
+    /**
+     * Retrieves the root node of the active window. Its descendants are prefetched if supported.
+     *
+     * @return the root node or null if it cannot be retrieved
+     */
+    @Nullable
+    public static AccessibilityNodeInfo getRootInActiveWindow() {
+        fetchesCount.incrementAndGet();
+        if (Prefetching.isSupported()) {
+            AccessibilityNodeInfo root = (AccessibilityNodeInfo) invoke(
+                    Prefetching.getRootInActiveWindowMethod,
+                    UiAutomatorBridge.getInstance().getUiAutomation(), Prefetching.rootStrategy);
+            if (root != null) {
+                return root;
+            }
+            // The query controller retries the lookup if the root is not available yet
+        }
+        return UiAutomatorBridge.getInstance().getAccessibilityRootNode();
+    }
+
+    /**
+     * @return the total count of node requests, which might have resulted in binder calls
+     */
+    public static long getFetchesCount() {
+        return fetchesCount.get();
+    }
+
+    /**
+     * Remembers the count of node requests made by the recent snapshot.
+     *
+     * @param count the count of node requests
+     */
+    static void setLastSnapshotFetchesCount(long count) {
+        lastSnapshotFetchesCount = count;
+    }
+
+    /**
+     * @return the count of node requests made by the recent snapshot
+     */
+    public static long getLastSnapshotFetchesCount() {
+        return lastSnapshotFetchesCount;
+    }
+
+    public static Map<String, Long> getStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("totalFetches", getFetchesCount());
+        result.put("lastSnapshotFetches", lastSnapshotFetchesCount);
+        return result;
+    }
+}
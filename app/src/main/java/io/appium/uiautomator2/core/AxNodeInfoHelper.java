@@ -25,6 +25,7 @@ import android.os.Bundle;
 import android.util.Range;
 import android.view.accessibility.AccessibilityNodeInfo;
 import android.view.accessibility.AccessibilityNodeInfo.AccessibilityAction;
+import android.view.accessibility.AccessibilityWindowInfo;
 
 import androidx.annotation.Nullable;
 import androidx.test.uiautomator.Direction;
@@ -48,7 +49,7 @@ import static io.appium.uiautomator2.utils.StringHelpers.charSequenceToString;
  */
 public class AxNodeInfoHelper {
     // https://github.com/appium/appium/issues/12892
-    private final static int MAX_DEPTH = 70;
+    final static int MAX_DEPTH = 70;
 
     @Nullable
     public static Range<Integer> getSelectionRange(@Nullable AccessibilityNodeInfo nodeInfo) {
@@ -228,10 +229,12 @@ public class AxNodeInfoHelper {
         ret.intersect(displayRect);
 
         // Trim any portion of the bounds that are outside the window
-        Rect window = new Rect();
-        if (node.getWindow() != null) {
-            node.getWindow().getBoundsInScreen(window);
-            ret.intersect(window);
+        // Each window retrieval might require a binder call
+        AccessibilityWindowInfo window = node.getWindow();
+        if (window != null) {
+            Rect windowRect = new Rect();
+            window.getBoundsInScreen(windowRect);
+            ret.intersect(windowRect);
         }
 
         // Find the visible bounds of our first scrollable ancestor
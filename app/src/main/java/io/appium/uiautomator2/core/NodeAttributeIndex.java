@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.utils.Attribute;
+
+/**
+ * Maps exact values of resource-id, content-desc and class attributes
+ * to accessibility nodes, which have them. These are the attributes id, accessibility id
+ * and class name locators match. Nodes are kept in the order they have been added.
+ * The index is not thread-safe.
+ */
+public class NodeAttributeIndex {
+    private static final Attribute[] INDEXED_ATTRIBUTES = new Attribute[]{
+            Attribute.RESOURCE_ID, Attribute.CONTENT_DESC, Attribute.CLASS
+    };
+
+    private final Map<Attribute, Map<String, List<AccessibilityNodeInfo>>> nodesByValue =
+            new EnumMap<>(Attribute.class);
+
+    public NodeAttributeIndex() {
+        for (Attribute attribute : INDEXED_ATTRIBUTES) {
+            nodesByValue.put(attribute, new HashMap<String, List<AccessibilityNodeInfo>>());
+        }
+    }
+
+    public void add(AccessibilityNodeInfo node) {
+        put(Attribute.RESOURCE_ID, node.getViewIdResourceName(), node);
+        put(Attribute.CONTENT_DESC, node.getContentDescription(), node);
+        put(Attribute.CLASS, node.getClassName(), node);
+    }
+
+    private void put(Attribute attribute, @Nullable CharSequence value, AccessibilityNodeInfo node) {
+        if (value == null) {
+            return;
+        }
+        Map<String, List<AccessibilityNodeInfo>> index = nodesByValue.get(attribute);
+        String key = value.toString();
+        List<AccessibilityNodeInfo> nodes = index.get(key);
+        if (nodes == null) {
+            nodes = new ArrayList<>(1);
+            index.put(key, nodes);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * @param attribute one of resource-id, content-desc or class
+     * @param value     the exact attribute value
+     * @return the list of matching nodes, which might be empty
+     * @throws IllegalArgumentException if the given attribute is not indexed
+     */
+    public List<AccessibilityNodeInfo> get(Attribute attribute, String value) {
+        Map<String, List<AccessibilityNodeInfo>> index = nodesByValue.get(attribute);
+        if (index == null) {
+            throw new IllegalArgumentException(String.format("The '%s' attribute is not indexed", attribute));
+        }
+        List<AccessibilityNodeInfo> nodes = index.get(value);
+        return nodes == null
+                ? Collections.<AccessibilityNodeInfo>emptyList()
+                : Collections.unmodifiableList(nodes);
+    }
+
+    public void clear() {
+        for (Map<String, List<AccessibilityNodeInfo>> index : nodesByValue.values()) {
+            index.clear();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+
+/**
+ * Runs independent parts of accessibility hierarchy snapshotting concurrently.
+ * Retrieving accessibility nodes is bound by the latency of IPC calls rather than
+ * by CPU, so several subtrees could be fetched at the same time.
+ * Tasks are only handed over to the pool if there is a free worker for them, otherwise they
+ * are executed by the calling thread. This makes nested calls safe from deadlocks.
+ */
+public class SnapshotExecutor {
+    public static final int DEFAULT_PARALLELISM = 1;
+    private static SnapshotExecutor INSTANCE;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+    private ExecutorService executor;
+    private Semaphore freeWorkers = new Semaphore(0);
+
+    private SnapshotExecutor() {
+    }
+
+    public static synchronized SnapshotExecutor getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new SnapshotExecutor();
+        }
+        return INSTANCE;
+    }
+
+    public synchronized int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isParallel() {
+        return getParallelism() > 1;
+    }
+
+    /**
+     * Changes the maximum count of threads, which fetch accessibility nodes at the same time.
+     *
+     * @param parallelism the count of threads including the calling one.
+     *                    One means all the nodes are fetched sequentially.
+     */
+    public synchronized void setParallelism(int parallelism) {
+        if (parallelism == this.parallelism) {
+            return;
+        }
+        if (executor != null) {
+            // Already running tasks are allowed to finish
+            executor.shutdown();
+            executor = null;
+        }
+        this.parallelism = parallelism;
+        if (parallelism > 1) {
+            final AtomicInteger threadsCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism - 1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,
+                            String.format("snapshot-worker-%s", threadsCount.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        freeWorkers = new Semaphore(Math.max(parallelism - 1, 0));
+    }
+
+    /**
+     * Executes the given tasks and returns their results in the same order.
+     *
+     * @param tasks the list of tasks to execute
+     * @return the list of results
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        final ExecutorService executor;
+        final Semaphore freeWorkers;
+        synchronized (this) {
+            executor = this.executor;
+            freeWorkers = this.freeWorkers;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        List<T> results = new ArrayList<>(tasks.size());
+        boolean isCompleted = false;
+        try {
+            for (int i = 0; i < tasks.size(); ++i) {
+                final Callable<T> task = tasks.get(i);
+                // The last task is always executed by the calling thread, since it would wait anyway
+                Future<T> future = null;
+                if (executor != null && i < tasks.size() - 1 && freeWorkers.tryAcquire()) {
+                    future = submit(executor, freeWorkers, task);
+                }
+                futures.add(future);
+                results.add(future == null ? task.call() : null);
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                Future<T> future = futures.get(i);
+                if (future != null) {
+                    results.set(i, future.get());
+                }
+            }
+            isCompleted = true;
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UiAutomator2Exception(cause);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UiAutomator2Exception(e);
+        } finally {
+            if (!isCompleted) {
+                // The result is not going to be used, so sibling tasks must not occupy workers
+                for (Future<T> future : futures) {
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static <T> Future<T> submit(ExecutorService executor, final Semaphore freeWorkers,
+                                        final Callable<T> task) {
+        // The worker is released once the task is either completed or cancelled
+        FutureTask<T> future = new FutureTask<T>(task) {
+            @Override
+            protected void done() {
+                freeWorkers.release();
+            }
+        };
+        try {
+            executor.execute(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            // The parallelism has been changed in the meantime
+            freeWorkers.release();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.appium.uiautomator2.model.AppiumUIA2Driver;
+import io.appium.uiautomator2.model.Session;
+import io.appium.uiautomator2.model.settings.NormalizeTagNames;
+import io.appium.uiautomator2.model.settings.Settings;
+
+/**
+ * Keeps the strings, which repeat over and over in hierarchy snapshots, like class names,
+ * package names and resource identifiers. Each distinct value is only stored once
+ * and the normalized XML node name of each class name is only calculated once.
+ * Each session has its own pool, so it is released together with the session.
+ */
+public class SnapshotStringPool {
+    // Protects from the unbounded growth if an application generates unique identifiers
+    private static final int MAX_SIZE = 10000;
+    private static final SnapshotStringPool SESSIONLESS_POOL = new SnapshotStringPool();
+    private static final String NULL_CLASS_NAME = "";
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> nodeNames = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> normalizedNodeNames = new ConcurrentHashMap<>();
+
+    /**
+     * @return the pool of the current session or the shared one if there is no active session
+     */
+    public static SnapshotStringPool getInstance() {
+        Session session = AppiumUIA2Driver.getInstance().getSession();
+        return session == null ? SESSIONLESS_POOL : session.getSnapshotStringPool();
+    }
+
+    /**
+     * Returns the canonical representation of the given string.
+     *
+     * @param value the string to intern
+     * @return the pooled string, which is equal to the given one
+     */
+    @Nullable
+    public String intern(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        String result = strings.get(value);
+        if (result != null) {
+            return result;
+        }
+        if (strings.size() >= MAX_SIZE) {
+            return value;
+        }
+        result = strings.putIfAbsent(value, value);
+        return result == null ? value : result;
+    }
+
+    /**
+     * Returns the XML node name for the given class name.
+     * The name is only normalized once for each distinct class name.
+     *
+     * @param className the class name of an element
+     * @return the corresponding XML node name
+     */
+    public String toXmlNodeName(@Nullable String className) {
+        ConcurrentMap<String, String> cache =
+                ((NormalizeTagNames) Settings.NORMALIZE_TAG_NAMES.getSetting()).getValue()
+                        ? normalizedNodeNames
+                        : nodeNames;
+        String key = className == null ? NULL_CLASS_NAME : className;
+        String result = cache.get(key);
+        if (result == null) {
+            result = AccessibilityNodeInfoDumper.toXmlNodeName(className);
+            if (cache.size() < MAX_SIZE) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    public void clear() {
+        strings.clear();
+        nodeNames.clear();
+        normalizedNodeNames.clear();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import androidx.annotation.Nullable;
+
+import org.jaxen.DefaultNavigator;
+import org.jaxen.JaxenConstants;
+import org.jaxen.JaxenException;
+import org.jaxen.XPath;
+import org.jaxen.util.SingleObjectIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static io.appium.uiautomator2.core.AccessibilityNodeInfoDumper.NON_XML_CHAR_REPLACEMENT;
+import static io.appium.uiautomator2.utils.XMLHelpers.toSafeString;
+
+/**
+ * Jaxen navigator, which walks {@link UiElement} trees directly, so XPath queries
+ * could be evaluated without serializing the hierarchy to XML and parsing it back.
+ * The exposed document model mirrors the one produced by {@link AccessibilityNodeInfoDumper}:
+ * the same node names, the same attributes in the same order and the same values.
+ * Indentation-only text nodes of the serialized document are not emulated, since they
+ * carry no information about the hierarchy.
+ */
+public class UiElementNavigator extends DefaultNavigator {
+    private static final UiElementNavigator INSTANCE = new UiElementNavigator();
+
+    private UiElementNavigator() {
+    }
+
+    public static UiElementNavigator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The document node. Its only child is the element wrapping the root of the hierarchy
+     */
+    public static class DocumentNode {
+        private final ElementNode rootElement;
+        private final SnapshotStringPool stringPool = SnapshotStringPool.getInstance();
+
+        /**
+         * @param root           the root of the hierarchy to expose
+         * @param rootAttributes additional attributes to be appended to the root element
+         */
+        public DocumentNode(UiElement<?, ?> root, @Nullable Map<String, String> rootAttributes) {
+            this.rootElement = new ElementNode(this, this, root);
+            if (rootAttributes != null) {
+                rootElement.extraAttributes = rootAttributes;
+            }
+        }
+
+        public ElementNode getRootElement() {
+            return rootElement;
+        }
+
+        private String toNodeName(@Nullable String className) {
+            return stringPool.toXmlNodeName(className);
+        }
+    }
+
+    public static class ElementNode {
+        private final DocumentNode document;
+        private final Object parent;
+        private final UiElement<?, ?> uiElement;
+        private final String name;
+        private final List<ElementNode> children;
+        private Map<String, String> extraAttributes = Collections.emptyMap();
+        private List<AttributeNode> attributes;
+
+        private ElementNode(DocumentNode document, Object parent, UiElement<?, ?> uiElement) {
+            this.document = document;
+            this.parent = parent;
+            this.uiElement = uiElement;
+            this.name = document.toNodeName(uiElement.getClassName());
+            List<? extends UiElement<?, ?>> uiChildren = uiElement.getChildren();
+            if (uiChildren.isEmpty()) {
+                this.children = Collections.emptyList();
+            } else {
+                List<ElementNode> children = new ArrayList<>(uiChildren.size());
+                for (UiElement<?, ?> uiChild : uiChildren) {
+                    children.add(new ElementNode(document, this, uiChild));
+                }
+                this.children = children;
+            }
+        }
+
+        public UiElement<?, ?> getUiElement() {
+            return uiElement;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private List<AttributeNode> getAttributes() {
+            // Attribute nodes must keep their identity between axis traversals,
+            // so they are only created once
+            if (attributes == null) {
+                List<AttributeNode> result = new ArrayList<>();
+                for (Attribute attr : uiElement.attributeKeys()) {
+                    if (!attr.isExposableToXml()) {
+                        continue;
+                    }
+                    Object value = uiElement.get(attr);
+                    if (value == null) {
+                        continue;
+                    }
+                    result.add(new AttributeNode(this, attr.getName(),
+                            toSafeString(String.valueOf(value), NON_XML_CHAR_REPLACEMENT)));
+                }
+                for (Map.Entry<String, String> extraAttribute : extraAttributes.entrySet()) {
+                    result.add(new AttributeNode(this, extraAttribute.getKey(),
+                            toSafeString(extraAttribute.getValue(), NON_XML_CHAR_REPLACEMENT)));
+                }
+                attributes = result;
+            }
+            return attributes;
+        }
+    }
+
+    public static class AttributeNode {
+        private final ElementNode parent;
+        private final String name;
+        private final String value;
+
+        private AttributeNode(ElementNode parent, String name, String value) {
+            this.parent = parent;
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    @Override
+    public Iterator<?> getChildAxisIterator(Object contextNode) {
+        if (contextNode instanceof ElementNode) {
+            return ((ElementNode) contextNode).children.iterator();
+        }
+        if (contextNode instanceof DocumentNode) {
+            return new SingleObjectIterator(((DocumentNode) contextNode).rootElement);
+        }
+        return JaxenConstants.EMPTY_ITERATOR;
+    }
+
+    @Override
+    public Iterator<?> getParentAxisIterator(Object contextNode) {
+        Object parent = getParentNode(contextNode);
+        return parent == null ? JaxenConstants.EMPTY_ITERATOR : new SingleObjectIterator(parent);
+    }
+
+    @Override
+    public Iterator<?> getAttributeAxisIterator(Object contextNode) {
+        return contextNode instanceof ElementNode
+                ? ((ElementNode) contextNode).getAttributes().iterator()
+                : JaxenConstants.EMPTY_ITERATOR;
+    }
+
+    @Override
+    public Iterator<?> getNamespaceAxisIterator(Object contextNode) {
+        return JaxenConstants.EMPTY_ITERATOR;
+    }
+
+    @Override
+    @Nullable
+    public Object getParentNode(Object contextNode) {
+        if (contextNode instanceof ElementNode) {
+            return ((ElementNode) contextNode).parent;
+        }
+        if (contextNode instanceof AttributeNode) {
+            return ((AttributeNode) contextNode).parent;
+        }
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public Object getDocumentNode(Object contextNode) {
+        if (contextNode instanceof DocumentNode) {
+            return contextNode;
+        }
+        if (contextNode instanceof ElementNode) {
+            return ((ElementNode) contextNode).document;
+        }
+        if (contextNode instanceof AttributeNode) {
+            return ((AttributeNode) contextNode).parent.document;
+        }
+        return null;
+    }
+
+    @Override
+    public String getElementNamespaceUri(Object element) {
+        return "";
+    }
+
+    @Override
+    public String getElementName(Object element) {
+        return ((ElementNode) element).name;
+    }
+
+    @Override
+    public String getElementQName(Object element) {
+        return ((ElementNode) element).name;
+    }
+
+    @Override
+    public String getAttributeNamespaceUri(Object attr) {
+        return "";
+    }
+
+    @Override
+    public String getAttributeName(Object attr) {
+        return ((AttributeNode) attr).name;
+    }
+
+    @Override
+    public String getAttributeQName(Object attr) {
+        return ((AttributeNode) attr).name;
+    }
+
+    @Override
+    public boolean isDocument(Object object) {
+        return object instanceof DocumentNode;
+    }
+
+    @Override
+    public boolean isElement(Object object) {
+        return object instanceof ElementNode;
+    }
+
+    @Override
+    public boolean isAttribute(Object object) {
+        return object instanceof AttributeNode;
+    }
+
+    @Override
+    public boolean isNamespace(Object object) {
+        return false;
+    }
+
+    @Override
+    public boolean isComment(Object object) {
+        return false;
+    }
+
+    @Override
+    public boolean isText(Object object) {
+        return false;
+    }
+
+    @Override
+    public boolean isProcessingInstruction(Object object) {
+        return false;
+    }
+
+    @Override
+    public String getCommentStringValue(Object comment) {
+        return "";
+    }
+
+    @Override
+    public String getElementStringValue(Object element) {
+        // Elements of the hierarchy never have text content
+        return "";
+    }
+
+    @Override
+    public String getAttributeStringValue(Object attr) {
+        return ((AttributeNode) attr).value;
+    }
+
+    @Override
+    public String getNamespaceStringValue(Object ns) {
+        return "";
+    }
+
+    @Override
+    public String getTextStringValue(Object text) {
+        return "";
+    }
+
+    @Override
+    @Nullable
+    public String getNamespacePrefix(Object ns) {
+        return null;
+    }
+
+    @Override
+    public XPath parseXPath(String xpath) throws JaxenException {
+        return new UiElementXPath(xpath);
+    }
+}
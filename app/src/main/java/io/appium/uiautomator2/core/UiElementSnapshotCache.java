@@ -0,0 +1,466 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.appium.uiautomator2.model.AppiumUIA2Driver;
+import io.appium.uiautomator2.model.NotificationListener;
+import io.appium.uiautomator2.model.UiElementSnapshot;
+import io.appium.uiautomator2.model.settings.EnableSnapshotCache;
+import io.appium.uiautomator2.model.settings.Settings;
+import io.appium.uiautomator2.model.settings.SimpleBoundsCalculation;
+import io.appium.uiautomator2.utils.Attribute;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.model.settings.Settings.ALLOW_INVISIBLE_ELEMENTS;
+import static io.appium.uiautomator2.utils.AXWindowHelpers.getCachedWindowRoots;
+
+/**
+ * Keeps the snapshot of the whole accessibility hierarchy between page source and
+ * XPath lookup calls. Accessibility events, which are received by {@link NotificationListener},
+ * are used to figure out which subtrees of the cached snapshot are not actual anymore.
+ * Only these subtrees are retrieved again on the next query. Window state changes invalidate
+ * the whole snapshot. Visible nodes of the cached snapshot are also indexed by their
+ * resource-id, content-desc and class, so simple lookups do not need to walk the
+ * live hierarchy.
+ */
+public class UiElementSnapshotCache {
+    // Too many changes at once usually mean the screen is being rebuilt anyway
+    private static final int MAX_PENDING_EVENTS = 256;
+    private static final int MAX_ANCESTORS_LOOKUP_DEPTH = 70;
+    private static UiElementSnapshotCache INSTANCE;
+
+    private final AtomicLong hitsCount = new AtomicLong();
+    private final AtomicLong missesCount = new AtomicLong();
+    private final AtomicLong rebuildsCount = new AtomicLong();
+    private final AtomicLong indexHitsCount = new AtomicLong();
+    private final AtomicLong indexFallbacksCount = new AtomicLong();
+
+    private final List<AccessibilityEvent> pendingEvents = new ArrayList<>();
+    private boolean isInvalidated = true;
+
+    private UiElementSnapshot cachedRoot;
+    @Nullable
+    private Set<Attribute> cachedAttributes;
+    private String cachedConfiguration;
+    private final Set<AccessibilityNodeInfo> cachedNodes = new HashSet<>();
+    private final Set<AccessibilityNodeInfo> focusedNodes = new HashSet<>();
+    private final NodeAttributeIndex attributeIndex = new NodeAttributeIndex();
+    // Whether visible subtrees of the cached snapshot have been cut off at the maximum depth
+    private boolean isIndexTruncated;
+
+    private UiElementSnapshotCache() {
+    }
+
+    public static synchronized UiElementSnapshotCache getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new UiElementSnapshotCache();
+        }
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return ((EnableSnapshotCache) Settings.ENABLE_SNAPSHOT_CACHE.getSetting()).getValue();
+    }
+
+    /**
+     * Records the given event, so the affected part of the cached snapshot
+     * gets refreshed on the next query. The event is expected to be received
+     * from the accessibility events stream, so it is copied before being stored.
+     *
+     * @param event accessibility event
+     */
+    public void onAccessibilityEvent(AccessibilityEvent event) {
+        switch (event.getEventType()) {
+            case AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED:
+            case AccessibilityEvent.TYPE_WINDOWS_CHANGED:
+                invalidate();
+                return;
+            case AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED:
+            case AccessibilityEvent.TYPE_VIEW_SCROLLED:
+            case AccessibilityEvent.TYPE_VIEW_TEXT_CHANGED:
+            case AccessibilityEvent.TYPE_VIEW_TEXT_SELECTION_CHANGED:
+            case AccessibilityEvent.TYPE_VIEW_SELECTED:
+            case AccessibilityEvent.TYPE_VIEW_FOCUSED:
+            case AccessibilityEvent.TYPE_VIEW_CLICKED:
+            case AccessibilityEvent.TYPE_VIEW_LONG_CLICKED:
+                break;
+            default:
+                return;
+        }
+
+        synchronized (pendingEvents) {
+            if (isInvalidated) {
+                return;
+            }
+            if (pendingEvents.size() >= MAX_PENDING_EVENTS) {
+                invalidate();
+                return;
+            }
+            // Resolving event sources requires IPC, so it is postponed until the next query
+            pendingEvents.add(AccessibilityEvent.obtain(event));
+        }
+    }
+
+    /**
+     * Marks the cached snapshot as outdated, so it is taken from scratch on the next query
+     */
+    public void invalidate() {
+        synchronized (pendingEvents) {
+            isInvalidated = true;
+            recyclePendingEvents();
+        }
+    }
+
+    private void recyclePendingEvents() {
+        for (AccessibilityEvent event : pendingEvents) {
+            event.recycle();
+        }
+        pendingEvents.clear();
+    }
+
+    /**
+     * Returns the snapshot of all the window roots, which are currently
+     * available for interaction, including toast messages.
+     *
+     * @param includedAttributes the set of attributes to be included into the snapshot
+     *                           or null to include all the supported attributes.
+     *                           The returned snapshot might contain more attributes
+     *                           if they have been cached before.
+     * @return the snapshot of the accessibility hierarchy
+     */
+    public synchronized UiElementSnapshot take(@Nullable Set<Attribute> includedAttributes) {
+        List<CharSequence> toastMessages = NotificationListener.getInstance().getToastMessage();
+        if (!isEnabled() || !NotificationListener.getInstance().isListening()) {
+            // There is no way to figure out whether the cached snapshot is still actual
+            invalidate();
+            cachedRoot = null;
+            return UiElementSnapshot.take(getCachedWindowRoots(), toastMessages, includedAttributes);
+        }
+
+        boolean isActual = cachedRoot != null
+                && containsAll(cachedAttributes, includedAttributes)
+                && refreshCachedRoot();
+        if (isActual) {
+            hitsCount.incrementAndGet();
+        } else {
+            missesCount.incrementAndGet();
+            String configuration = getConfiguration();
+            Set<Attribute> attributes = configuration.equals(cachedConfiguration)
+                    ? union(cachedAttributes, includedAttributes)
+                    : includedAttributes;
+            synchronized (pendingEvents) {
+                recyclePendingEvents();
+                isInvalidated = false;
+            }
+            cachedRoot = UiElementSnapshot.take(getCachedWindowRoots(),
+                    Collections.<CharSequence>emptyList(), attributes);
+            cachedAttributes = attributes;
+            cachedConfiguration = configuration;
+            updateIndex();
+        }
+        Logger.debug(String.format("Snapshot cache stats: %s", getStats()));
+        return cachedRoot.withToastMessages(toastMessages);
+    }
+
+    /**
+     * Looks up nodes of the cached snapshot by the exact value of the given attribute.
+     * Subtrees, which have been changed since the snapshot was taken, are retrieved
+     * again beforehand. Only nodes, which are visible to the user along with all their
+     * ancestors, are indexed. This is the same set of nodes uiautomator selectors match.
+     *
+     * @param attribute one of resource-id, content-desc or class
+     * @param value     the exact attribute value
+     * @return matching nodes in the document order or null if there is no actual snapshot
+     * or the snapshot does not contain all the visible nodes because of its maximum depth,
+     * so the live hierarchy must be searched instead
+     */
+    @Nullable
+    public synchronized List<AccessibilityNodeInfo> findNodes(Attribute attribute, String value) {
+        if (!isEnabled() || !NotificationListener.getInstance().isListening()
+                || !refreshCachedRoot() || isIndexTruncated) {
+            indexFallbacksCount.incrementAndGet();
+            return null;
+        }
+        indexHitsCount.incrementAndGet();
+        return attributeIndex.get(attribute, value);
+    }
+
+    /**
+     * @return the count of snapshots, which have been served from the cache
+     * without retrieving the whole hierarchy again
+     */
+    public long getHitsCount() {
+        return hitsCount.get();
+    }
+
+    public long getMissesCount() {
+        return missesCount.get();
+    }
+
+    /**
+     * @return the count of subtrees, which have been retrieved again
+     * because of accessibility events
+     */
+    public long getRebuildsCount() {
+        return rebuildsCount.get();
+    }
+
+    /**
+     * @return the count of lookups, which have been answered by the snapshot index
+     */
+    public long getIndexHitsCount() {
+        return indexHitsCount.get();
+    }
+
+    /**
+     * @return the count of lookups, which had to search the live hierarchy
+     * because the index was not usable
+     */
+    public long getIndexFallbacksCount() {
+        return indexFallbacksCount.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("hits", getHitsCount());
+        result.put("misses", getMissesCount());
+        result.put("rebuilds", getRebuildsCount());
+        result.put("indexHits", getIndexHitsCount());
+        result.put("indexFallbacks", getIndexFallbacksCount());
+        return result;
+    }
+
+    /**
+     * Settings, which change the content of the snapshot
+     */
+    private static String getConfiguration() {
+        return String.format("%s,%s,%s",
+                Settings.ENABLE_MULTI_WINDOWS.getSetting().getValue(),
+                ((SimpleBoundsCalculation) Settings.SIMPLE_BOUNDS_CALCULATION.getSetting()).getValue(),
+                areInvisibleElementsAllowed());
+    }
+
+    private static boolean areInvisibleElementsAllowed() {
+        return AppiumUIA2Driver.getInstance().getSessionOrThrow()
+                .getCapability(ALLOW_INVISIBLE_ELEMENTS.toString(), false);
+    }
+
+    private static boolean containsAll(@Nullable Set<Attribute> cached, @Nullable Set<Attribute> requested) {
+        if (cached == null || cached.isEmpty()) {
+            return true;
+        }
+        return requested != null && !requested.isEmpty() && cached.containsAll(requested);
+    }
+
+    @Nullable
+    private static Set<Attribute> union(@Nullable Set<Attribute> cached, @Nullable Set<Attribute> requested) {
+        if (cached == null || cached.isEmpty() || requested == null || requested.isEmpty()) {
+            return null;
+        }
+        Set<Attribute> result = new HashSet<>(cached);
+        result.addAll(requested);
+        return result;
+    }
+
+    /**
+     * Retrieves subtrees of the cached snapshot, which have been changed by pending events
+     *
+     * @return false if the whole snapshot must be retrieved again
+     */
+    private boolean refreshCachedRoot() {
+        Set<AccessibilityNodeInfo> dirtyNodes = new HashSet<>();
+        if (cachedRoot == null
+                || !getConfiguration().equals(cachedConfiguration)
+                || !collectDirtyNodes(dirtyNodes)) {
+            return false;
+        }
+        if (dirtyNodes.isEmpty()) {
+            return true;
+        }
+        UiElementSnapshot refreshedRoot = refresh(cachedRoot, dirtyNodes);
+        if (refreshedRoot == null) {
+            return false;
+        }
+        cachedRoot = refreshedRoot;
+        updateIndex();
+        return true;
+    }
+
+    /**
+     * Resolves pending events to the nodes of the cached snapshot, which must be retrieved again
+     *
+     * @return false if the whole snapshot must be retrieved again
+     */
+    private boolean collectDirtyNodes(Set<AccessibilityNodeInfo> dirtyNodes) {
+        List<AccessibilityEvent> events;
+        synchronized (pendingEvents) {
+            if (isInvalidated) {
+                return false;
+            }
+            events = new ArrayList<>(pendingEvents);
+            pendingEvents.clear();
+        }
+        try {
+            for (AccessibilityEvent event : events) {
+                AccessibilityNodeInfo source = event.getSource();
+                AccessibilityNodeInfo dirtyNode = source == null
+                        ? findWindowRoot(event.getWindowId())
+                        : findCachedAncestor(source);
+                if (dirtyNode == null) {
+                    return false;
+                }
+                dirtyNodes.add(dirtyNode);
+                switch (event.getEventType()) {
+                    case AccessibilityEvent.TYPE_VIEW_FOCUSED:
+                        // The previously focused node does not send any events
+                        dirtyNodes.addAll(focusedNodes);
+                        break;
+                    case AccessibilityEvent.TYPE_VIEW_SELECTED:
+                    case AccessibilityEvent.TYPE_VIEW_CLICKED:
+                    case AccessibilityEvent.TYPE_VIEW_LONG_CLICKED:
+                        // Siblings might also change their state, like radio buttons do
+                        if (source != null) {
+                            AccessibilityNodeInfo parent = source.getParent();
+                            if (parent != null && cachedNodes.contains(parent)) {
+                                dirtyNodes.add(parent);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return true;
+        } finally {
+            for (AccessibilityEvent event : events) {
+                event.recycle();
+            }
+        }
+    }
+
+    @Nullable
+    private AccessibilityNodeInfo findCachedAncestor(AccessibilityNodeInfo node) {
+        AccessibilityNodeInfo current = node;
+        for (int depth = 0; current != null && depth < MAX_ANCESTORS_LOOKUP_DEPTH; ++depth) {
+            if (cachedNodes.contains(current)) {
+                return current;
+            }
+            current = current.getParent();
+        }
+        return findWindowRoot(node.getWindowId());
+    }
+
+    @Nullable
+    private AccessibilityNodeInfo findWindowRoot(int windowId) {
+        for (UiElementSnapshot windowRoot : cachedRoot.getChildren()) {
+            AccessibilityNodeInfo node = windowRoot.getNode();
+            if (node != null && node.getWindowId() == windowId) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves dirty subtrees of the given snapshot again. Clean subtrees are reused as is.
+     *
+     * @return the refreshed snapshot or null if the parent snapshot must be retrieved again
+     */
+    @Nullable
+    private UiElementSnapshot refresh(UiElementSnapshot element, Set<AccessibilityNodeInfo> dirtyNodes) {
+        AccessibilityNodeInfo node = element.getNode();
+        if (node != null && dirtyNodes.contains(node)) {
+            return rebuild(element);
+        }
+
+        List<UiElementSnapshot> children = element.getChildren();
+        List<UiElementSnapshot> refreshedChildren = null;
+        for (int i = 0; i < children.size(); ++i) {
+            UiElementSnapshot child = children.get(i);
+            UiElementSnapshot refreshedChild = refresh(child, dirtyNodes);
+            if (refreshedChild == null) {
+                return node == null ? null : rebuild(element);
+            }
+            if (refreshedChild != child) {
+                if (refreshedChildren == null) {
+                    refreshedChildren = new ArrayList<>(children);
+                }
+                refreshedChildren.set(i, refreshedChild);
+            }
+        }
+        return refreshedChildren == null ? element : element.withChildren(refreshedChildren);
+    }
+
+    @Nullable
+    private UiElementSnapshot rebuild(UiElementSnapshot element) {
+        // The cached node instance might be referenced elsewhere, so it must not be changed
+        AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain(element.getNode());
+        if (!node.refresh() || !(node.isVisibleToUser() || areInvisibleElementsAllowed())) {
+            // The node has disappeared, so its siblings have most likely changed as well
+            return null;
+        }
+        rebuildsCount.incrementAndGet();
+        return element.rebuild(node);
+    }
+
+    private void updateIndex() {
+        cachedNodes.clear();
+        focusedNodes.clear();
+        attributeIndex.clear();
+        isIndexTruncated = false;
+        addToIndex(cachedRoot, true);
+    }
+
+    /**
+     * @param isVisible whether all the ancestors of the element are visible to the user.
+     *                  Invisible subtrees are only present in the snapshot if invisible elements
+     *                  are allowed, although uiautomator selectors never match them
+     */
+    private void addToIndex(UiElementSnapshot element, boolean isVisible) {
+        AccessibilityNodeInfo node = element.getNode();
+        if (node != null) {
+            cachedNodes.add(node);
+            if (node.isFocused()) {
+                focusedNodes.add(node);
+            }
+            isVisible = isVisible && node.isVisibleToUser();
+            if (isVisible) {
+                attributeIndex.add(node);
+            }
+        }
+        if (isVisible && element.hasSkippedChildren()) {
+            isIndexTruncated = true;
+        }
+        for (UiElementSnapshot child : element.getChildren()) {
+            addToIndex(child, isVisible);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.util.Xml;
+
+import androidx.annotation.Nullable;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static io.appium.uiautomator2.core.AccessibilityNodeInfoDumper.NON_XML_CHAR_REPLACEMENT;
+import static io.appium.uiautomator2.utils.XMLHelpers.toSafeString;
+
+/**
+ * Serializes {@link UiElement} hierarchies to XML element by element, so
+ * the resulting document could be produced in portions of arbitrary size.
+ */
+class UiElementXmlSerializer {
+    private static final String NAMESPACE = "";
+    private static final String XML_ENCODING = "UTF-8";
+
+    private final XmlSerializer serializer;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final SnapshotStringPool stringPool = SnapshotStringPool.getInstance();
+    private Map<String, String> rootAttributes;
+    private boolean isFinished;
+
+    private static class Frame {
+        final String nodeName;
+        final Iterator<? extends UiElement<?, ?>> children;
+
+        Frame(String nodeName, Iterator<? extends UiElement<?, ?>> children) {
+            this.nodeName = nodeName;
+            this.children = children;
+        }
+    }
+
+    /**
+     * @param root           the root of the hierarchy to serialize
+     * @param rootAttributes additional attributes to be appended to the root element
+     * @param writer         the destination writer
+     */
+    UiElementXmlSerializer(UiElement<?, ?> root, @Nullable Map<String, String> rootAttributes,
+                           Writer writer) throws IOException {
+        this.rootAttributes = rootAttributes == null
+                ? Collections.<String, String>emptyMap()
+                : rootAttributes;
+        serializer = Xml.newSerializer();
+        serializer.setOutput(writer);
+        serializer.startDocument(XML_ENCODING, true);
+        serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
+        startElement(root);
+    }
+
+    private void startElement(UiElement<?, ?> uiElement) throws IOException {
+        final String nodeName = stringPool.toXmlNodeName(uiElement.getClassName());
+        serializer.startTag(NAMESPACE, nodeName);
+        for (Attribute attr : uiElement.attributeKeys()) {
+            if (!attr.isExposableToXml()) {
+                continue;
+            }
+            Object value = uiElement.get(attr);
+            if (value == null) {
+                continue;
+            }
+            serializer.attribute(NAMESPACE, attr.getName(),
+                    toSafeString(String.valueOf(value), NON_XML_CHAR_REPLACEMENT));
+        }
+        // Root attributes are only added once
+        for (Map.Entry<String, String> entry : rootAttributes.entrySet()) {
+            serializer.attribute(NAMESPACE, entry.getKey(),
+                    toSafeString(entry.getValue(), NON_XML_CHAR_REPLACEMENT));
+        }
+        rootAttributes = Collections.emptyMap();
+        stack.push(new Frame(nodeName, uiElement.getChildren().iterator()));
+    }
+
+    /**
+     * Writes the next start or end tag of the document.
+     *
+     * @return false if the document has been completely written
+     * @throws IOException if there was an error while writing the document
+     */
+    boolean writeNext() throws IOException {
+        if (isFinished) {
+            return false;
+        }
+        Frame current = stack.peek();
+        if (current == null) {
+            serializer.endDocument();
+            isFinished = true;
+            return false;
+        }
+        if (current.children.hasNext()) {
+            startElement(current.children.next());
+        } else {
+            serializer.endTag(NAMESPACE, current.nodeName);
+            stack.pop();
+        }
+        return true;
+    }
+
+    /**
+     * Writes all the remaining tags of the document
+     *
+     * @throws IOException if there was an error while writing the document
+     */
+    void writeAll() throws IOException {
+        //noinspection StatementWithEmptyBody
+        while (writeNext()) {
+        }
+    }
+
+    /**
+     * Flushes internal buffers of the serializer to the destination writer
+     *
+     * @throws IOException if there was an error while flushing
+     */
+    void flush() throws IOException {
+        serializer.flush();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.annotation.SuppressLint;
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityWindowInfo;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.test.uiautomator.UiDevice;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.appium.uiautomator2.model.settings.Settings;
+import io.appium.uiautomator2.model.settings.SimpleBoundsCalculation;
+
+import static io.appium.uiautomator2.core.AxNodeInfoHelper.MAX_DEPTH;
+import static io.appium.uiautomator2.utils.Device.getUiDevice;
+
+/**
+ * Calculates visible bounds of accessibility nodes while their hierarchy is traversed
+ * from top to bottom. The result is the same as
+ * {@link AxNodeInfoHelper#getBounds(AccessibilityNodeInfo)} returns, although parents of
+ * traversed nodes are never retrieved. Instead, bounds of scrollable ancestors are passed
+ * down to their descendants and bounds of each window are only retrieved once.
+ * Scopes are immutable, so sibling subtrees could be traversed concurrently.
+ */
+public class VisibleBoundsScope {
+    // Marks windows, which could not be retrieved
+    private static final Rect NO_WINDOW = new Rect();
+
+    private final Rect displayRect;
+    private final ConcurrentMap<Integer, Rect> windowRects;
+    // The distance between nodes of this scope and the traversal root
+    private final int level;
+    @Nullable
+    private final ScrollableAncestor nearestScrollableAncestor;
+
+    private static class ScrollableAncestor {
+        // Ancestor bounds clipped to the display and to the window
+        final Rect bounds;
+        final int level;
+        @Nullable
+        final ScrollableAncestor next;
+
+        ScrollableAncestor(Rect bounds, int level, @Nullable ScrollableAncestor next) {
+            this.bounds = bounds;
+            this.level = level;
+            this.next = next;
+        }
+
+        /**
+         * @param nodeLevel the level of the node, which requested the calculation.
+         *                  Ancestors, which are not closer than MAX_DEPTH to it, are ignored
+         */
+        @SuppressLint("CheckResult")
+        Rect getVisibleBounds(int nodeLevel) {
+            Rect ret = new Rect(bounds);
+            if (next != null && nodeLevel - next.level < MAX_DEPTH) {
+                ret.intersect(next.getVisibleBounds(nodeLevel));
+            }
+            return ret;
+        }
+    }
+
+    @VisibleForTesting
+    VisibleBoundsScope(Rect displayRect) {
+        this(displayRect, new ConcurrentHashMap<Integer, Rect>(), 0, null);
+    }
+
+    private VisibleBoundsScope(Rect displayRect, ConcurrentMap<Integer, Rect> windowRects, int level,
+                               @Nullable ScrollableAncestor nearestScrollableAncestor) {
+        this.displayRect = displayRect;
+        this.windowRects = windowRects;
+        this.level = level;
+        this.nearestScrollableAncestor = nearestScrollableAncestor;
+    }
+
+    /**
+     * Creates the scope of the given traversal root. Scrollable ancestors of the root
+     * are only retrieved once here.
+     *
+     * @param root the node to start the traversal from
+     * @return the scope the root belongs to or null if the simple bounds calculation is enabled,
+     * since there is nothing to pass down to descendants in such case
+     */
+    @Nullable
+    public static VisibleBoundsScope of(AccessibilityNodeInfo root) {
+        if (((SimpleBoundsCalculation) Settings.SIMPLE_BOUNDS_CALCULATION.getSetting()).getValue()) {
+            return null;
+        }
+
+        UiDevice uiDevice = getUiDevice();
+        Rect displayRect = new Rect(0, 0, uiDevice.getDisplayWidth(), uiDevice.getDisplayHeight());
+        return new VisibleBoundsScope(displayRect).withAncestorsOf(root);
+    }
+
+    private VisibleBoundsScope withAncestorsOf(AccessibilityNodeInfo root) {
+        List<AccessibilityNodeInfo> scrollableAncestors = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+        int distance = 0;
+        Set<AccessibilityNodeInfo> ancestors = new HashSet<>();
+        AccessibilityNodeInfo ancestor = root.getParent();
+        // An erroneous situation is possible where node parent equals to the node itself
+        while (++distance < MAX_DEPTH && ancestor != null && !ancestors.contains(ancestor)) {
+            if (ancestor.isScrollable()) {
+                scrollableAncestors.add(ancestor);
+                distances.add(distance);
+            }
+            ancestors.add(ancestor);
+            ancestor = ancestor.getParent();
+        }
+
+        ScrollableAncestor nearest = null;
+        for (int i = scrollableAncestors.size() - 1; i >= 0; --i) {
+            nearest = new ScrollableAncestor(getClippedBounds(scrollableAncestors.get(i)),
+                    level - distances.get(i), nearest);
+        }
+        return new VisibleBoundsScope(displayRect, windowRects, level, nearest);
+    }
+
+    /**
+     * Returns the scope of children of the given node
+     *
+     * @param node the node, which belongs to the current scope
+     * @return the scope one level deeper
+     */
+    public VisibleBoundsScope forChildrenOf(AccessibilityNodeInfo node) {
+        ScrollableAncestor nearest = node.isScrollable()
+                ? new ScrollableAncestor(getClippedBounds(node), level, nearestScrollableAncestor)
+                : nearestScrollableAncestor;
+        return new VisibleBoundsScope(displayRect, windowRects, level + 1, nearest);
+    }
+
+    /**
+     * Returns the node's bounds clipped to the size of the display, to its window
+     * and to visible bounds of its first scrollable ancestor
+     *
+     * @param node the node, which belongs to the current scope
+     * @return a Rect containing visible bounds
+     */
+    @SuppressLint("CheckResult")
+    public Rect getBounds(AccessibilityNodeInfo node) {
+        Rect ret = getClippedBounds(node);
+        if (nearestScrollableAncestor != null && level - nearestScrollableAncestor.level < MAX_DEPTH) {
+            ret.intersect(nearestScrollableAncestor.getVisibleBounds(level));
+        }
+        return ret;
+    }
+
+    @SuppressLint("CheckResult")
+    private Rect getClippedBounds(AccessibilityNodeInfo node) {
+        Rect ret = new Rect();
+        node.getBoundsInScreen(ret);
+        ret.intersect(displayRect);
+        Rect windowRect = getWindowBounds(node);
+        if (windowRect != null) {
+            ret.intersect(windowRect);
+        }
+        return ret;
+    }
+
+    @Nullable
+    private Rect getWindowBounds(AccessibilityNodeInfo node) {
+        Integer windowId = node.getWindowId();
+        Rect windowRect = windowRects.get(windowId);
+        if (windowRect == null) {
+            // Each window retrieval might require a binder call
+            AccessibilityWindowInfo window = node.getWindow();
+            if (window == null) {
+                windowRect = NO_WINDOW;
+            } else {
+                windowRect = new Rect();
+                window.getBoundsInScreen(windowRect);
+            }
+            windowRects.putIfAbsent(windowId, windowRect);
+        }
+        return windowRect == NO_WINDOW ? null : windowRect;
+    }
+}
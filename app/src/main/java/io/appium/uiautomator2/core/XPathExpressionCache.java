@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.jaxen.JaxenException;
+import org.jaxen.XPath;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of compiled XPath expressions. Compiled expressions
+ * are immutable, so they could be safely shared between lookups.
+ */
+public class XPathExpressionCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+    private static XPathExpressionCache INSTANCE;
+
+    private final Map<String, XPath> expressions = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitsCount = new AtomicLong();
+    private final AtomicLong missesCount = new AtomicLong();
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    XPathExpressionCache() {
+    }
+
+    public static synchronized XPathExpressionCache getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new XPathExpressionCache();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled representation of the given XPath expression.
+     * The expression is only compiled if it has not been cached yet.
+     *
+     * @param expression XPath expression
+     * @return compiled expression
+     * @throws JaxenException if the expression cannot be compiled
+     */
+    public XPath get(String expression) throws JaxenException {
+        synchronized (expressions) {
+            XPath result = expressions.get(expression);
+            if (result != null) {
+                hitsCount.incrementAndGet();
+                return result;
+            }
+        }
+
+        missesCount.incrementAndGet();
+        XPath result = new UiElementXPath(expression);
+        synchronized (expressions) {
+            if (maxSize > 0) {
+                expressions.put(expression, result);
+                trim();
+            }
+        }
+        return result;
+    }
+
+    public int getMaxSize() {
+        synchronized (expressions) {
+            return maxSize;
+        }
+    }
+
+    /**
+     * Changes the maximum count of cached expressions.
+     * Least recently used expressions are evicted if there are more of them.
+     *
+     * @param maxSize the new size. Zero disables caching.
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized (expressions) {
+            this.maxSize = maxSize;
+            trim();
+        }
+    }
+
+    public int size() {
+        synchronized (expressions) {
+            return expressions.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (expressions) {
+            expressions.clear();
+        }
+    }
+
+    private void trim() {
+        Iterator<String> iterator = expressions.keySet().iterator();
+        while (expressions.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public long getHitsCount() {
+        return hitsCount.get();
+    }
+
+    public long getMissesCount() {
+        return missesCount.get();
+    }
+
+    /**
+     * @return the ratio of lookups, which have been served from the cache, in range 0..1
+     */
+    public double getHitRate() {
+        long hits = getHitsCount();
+        long total = hits + getMissesCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static io.appium.uiautomator2.core.AccessibilityNodeInfoDumper.NON_XML_CHAR_REPLACEMENT;
+import static io.appium.uiautomator2.utils.XMLHelpers.toSafeString;
+
+/**
+ * Recognizes the simplest and the most widespread XPath queries and evaluates them by a single
+ * walk over {@link UiElement} trees, so neither Jaxen nor the document model of
+ * {@link UiElementNavigator} is involved. The results are exactly the same as the ones
+ * returned by the generic engine. The supported subset is:
+ * <pre>
+ * //node-name or //*
+ * followed by any count of predicates:
+ *   [@attr='value']
+ *   [contains(@attr, 'value')]
+ *   [starts-with(@attr, 'value')]
+ *   [n]
+ * </pre>
+ * where values could be enclosed in either single or double quotes and positional predicates
+ * are counted among the siblings of the matched node, like XPath does it.
+ * All other expressions must be evaluated by the generic engine.
+ */
+public class XPathQueryPlanner {
+    private static final String ANY_NODE_NAME = "*";
+    private static final Map<String, Attribute> XML_ATTRIBUTES = new HashMap<>();
+
+    static {
+        for (Attribute attribute : Attribute.values()) {
+            if (attribute.isExposableToXml()) {
+                XML_ATTRIBUTES.put(attribute.getName(), attribute);
+            }
+        }
+    }
+
+    private XPathQueryPlanner() {
+    }
+
+    public interface MatchHandler {
+        /**
+         * Is called for each matched element in document order
+         *
+         * @param uiElement the matched element
+         * @return false if no more matches are needed
+         */
+        boolean onMatch(UiElement<?, ?> uiElement);
+    }
+
+    /**
+     * Compiles the given expression into a plan, which could be evaluated directly
+     *
+     * @param expression XPath expression
+     * @return the compiled plan or null if the expression is not supported by the planner
+     */
+    @Nullable
+    public static Plan compile(String expression) {
+        return new Parser(expression.trim()).parse();
+    }
+
+    public static class Plan {
+        private final String nodeName;
+        private final List<Predicate> predicates;
+        private final SnapshotStringPool stringPool = SnapshotStringPool.getInstance();
+
+        private Plan(String nodeName, List<Predicate> predicates) {
+            this.nodeName = nodeName;
+            this.predicates = predicates;
+        }
+
+        /**
+         * Evaluates the plan over the document, whose root element is the given one
+         *
+         * @param root    the root of the hierarchy
+         * @param handler the receiver of matched elements
+         */
+        public void evaluate(UiElement<?, ?> root, MatchHandler handler) {
+            // The root element is the only child of the document node
+            List<UiElement<?, ?>> siblings = Collections.<UiElement<?, ?>>singletonList(root);
+            visit(siblings, handler);
+        }
+
+        public List<UiElement<?, ?>> evaluate(UiElement<?, ?> root) {
+            final List<UiElement<?, ?>> result = new ArrayList<>();
+            evaluate(root, new MatchHandler() {
+                @Override
+                public boolean onMatch(UiElement<?, ?> uiElement) {
+                    result.add(uiElement);
+                    return true;
+                }
+            });
+            return result;
+        }
+
+        /**
+         * @return false if the evaluation must be stopped
+         */
+        private boolean visit(List<? extends UiElement<?, ?>> siblings, MatchHandler handler) {
+            if (siblings.isEmpty()) {
+                return true;
+            }
+            boolean[] matches = select(siblings);
+            for (int i = 0; i < siblings.size(); ++i) {
+                UiElement<?, ?> sibling = siblings.get(i);
+                if (matches[i] && !handler.onMatch(sibling)) {
+                    return false;
+                }
+                if (!visit(sibling.getChildren(), handler)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean[] select(List<? extends UiElement<?, ?>> siblings) {
+            boolean[] result = new boolean[siblings.size()];
+            int[] candidates = new int[siblings.size()];
+            int candidatesCount = 0;
+            for (int i = 0; i < siblings.size(); ++i) {
+                if (ANY_NODE_NAME.equals(nodeName)
+                        || nodeName.equals(stringPool.toXmlNodeName(siblings.get(i).getClassName()))) {
+                    candidates[candidatesCount++] = i;
+                }
+            }
+            for (Predicate predicate : predicates) {
+                candidatesCount = predicate.filter(siblings, candidates, candidatesCount);
+            }
+            for (int i = 0; i < candidatesCount; ++i) {
+                result[candidates[i]] = true;
+            }
+            return result;
+        }
+    }
+
+    private static abstract class Predicate {
+        /**
+         * Keeps the matching candidates in place preserving their order
+         *
+         * @return the count of remaining candidates
+         */
+        abstract int filter(List<? extends UiElement<?, ?>> siblings, int[] candidates, int count);
+    }
+
+    private static class PositionPredicate extends Predicate {
+        private final int position;
+
+        PositionPredicate(int position) {
+            this.position = position;
+        }
+
+        @Override
+        int filter(List<? extends UiElement<?, ?>> siblings, int[] candidates, int count) {
+            if (position < 1 || position > count) {
+                return 0;
+            }
+            candidates[0] = candidates[position - 1];
+            return 1;
+        }
+    }
+
+    private enum Operator {
+        EQUALS, CONTAINS, STARTS_WITH
+    }
+
+    private static class AttributePredicate extends Predicate {
+        private final Attribute attribute;
+        private final Operator operator;
+        private final String value;
+
+        AttributePredicate(Attribute attribute, Operator operator, String value) {
+            this.attribute = attribute;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        private boolean matches(UiElement<?, ?> uiElement) {
+            Object attributeValue = uiElement.get(attribute);
+            if (attributeValue == null) {
+                // Functions treat missing attributes as empty strings
+                return operator != Operator.EQUALS && value.isEmpty();
+            }
+            String actual = toSafeString(String.valueOf(attributeValue), NON_XML_CHAR_REPLACEMENT);
+            switch (operator) {
+                case CONTAINS:
+                    return actual.contains(value);
+                case STARTS_WITH:
+                    return actual.startsWith(value);
+                default:
+                    return actual.equals(value);
+            }
+        }
+
+        @Override
+        int filter(List<? extends UiElement<?, ?>> siblings, int[] candidates, int count) {
+            int result = 0;
+            for (int i = 0; i < count; ++i) {
+                if (matches(siblings.get(candidates[i]))) {
+                    candidates[result++] = candidates[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Parser {
+        private static final int MAX_POSITION_LENGTH = 9;
+
+        private final String expression;
+        private int pos;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        @Nullable
+        Plan parse() {
+            if (!expression.startsWith("//")) {
+                return null;
+            }
+            pos = 2;
+            String nodeName = ANY_NODE_NAME;
+            if (!skip("*")) {
+                nodeName = readName(false);
+                if (nodeName == null) {
+                    return null;
+                }
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            while (pos < expression.length()) {
+                Predicate predicate = readPredicate();
+                if (predicate == null) {
+                    return null;
+                }
+                predicates.add(predicate);
+            }
+            return new Plan(nodeName, predicates);
+        }
+
+        @Nullable
+        private Predicate readPredicate() {
+            if (!skip("[")) {
+                return null;
+            }
+            skipSpaces();
+            Predicate result;
+            if (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                result = readPosition();
+            } else if (skip("@")) {
+                result = readComparison();
+            } else if (skip("contains")) {
+                result = readFunction(Operator.CONTAINS);
+            } else if (skip("starts-with")) {
+                result = readFunction(Operator.STARTS_WITH);
+            } else {
+                return null;
+            }
+            skipSpaces();
+            return result != null && skip("]") ? result : null;
+        }
+
+        @Nullable
+        private Predicate readPosition() {
+            int start = pos;
+            while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                ++pos;
+            }
+            if (pos - start > MAX_POSITION_LENGTH) {
+                return null;
+            }
+            return new PositionPredicate(Integer.parseInt(expression.substring(start, pos)));
+        }
+
+        @Nullable
+        private Predicate readComparison() {
+            Attribute attribute = readAttribute();
+            skipSpaces();
+            if (attribute == null || !skip("=")) {
+                return null;
+            }
+            skipSpaces();
+            String value = readLiteral();
+            return value == null ? null : new AttributePredicate(attribute, Operator.EQUALS, value);
+        }
+
+        @Nullable
+        private Predicate readFunction(Operator operator) {
+            skipSpaces();
+            if (!skip("(")) {
+                return null;
+            }
+            skipSpaces();
+            if (!skip("@")) {
+                return null;
+            }
+            Attribute attribute = readAttribute();
+            skipSpaces();
+            if (attribute == null || !skip(",")) {
+                return null;
+            }
+            skipSpaces();
+            String value = readLiteral();
+            skipSpaces();
+            if (value == null || !skip(")")) {
+                return null;
+            }
+            return new AttributePredicate(attribute, operator, value);
+        }
+
+        @Nullable
+        private Attribute readAttribute() {
+            String name = readName(true);
+            return name == null ? null : XML_ATTRIBUTES.get(name);
+        }
+
+        @Nullable
+        private String readName(boolean isAttribute) {
+            int start = pos;
+            while (pos < expression.length()) {
+                char c = expression.charAt(pos);
+                boolean isNameChar = Character.isLetter(c) || c == '_'
+                        || (pos > start && (Character.isDigit(c) || c == '.' || c == '-'));
+                if (!isNameChar) {
+                    break;
+                }
+                ++pos;
+            }
+            if (pos == start) {
+                return null;
+            }
+            // Node names are only followed by predicates, while attribute names might be
+            // followed by spaces, comparisons or function arguments separators
+            if (!isAttribute && pos < expression.length() && expression.charAt(pos) != '[') {
+                return null;
+            }
+            return expression.substring(start, pos);
+        }
+
+        @Nullable
+        private String readLiteral() {
+            if (pos >= expression.length()) {
+                return null;
+            }
+            char quote = expression.charAt(pos);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            int end = expression.indexOf(quote, pos + 1);
+            if (end < 0) {
+                return null;
+            }
+            String result = expression.substring(pos + 1, end);
+            pos = end + 1;
+            return result;
+        }
+
+        private boolean skip(String token) {
+            if (expression.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+                ++pos;
+            }
+        }
+    }
+}
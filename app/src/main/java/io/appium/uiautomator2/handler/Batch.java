@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+import io.appium.uiautomator2.common.exceptions.UnknownCommandException;
+import io.appium.uiautomator2.handler.request.SafeRequestHandler;
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.api.batch.BatchCommandModel;
+import io.appium.uiautomator2.model.api.batch.BatchModel;
+import io.appium.uiautomator2.model.api.batch.BatchResultModel;
+import io.appium.uiautomator2.server.AppiumServlet;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
+import static io.appium.uiautomator2.utils.ModelUtils.toModel;
+
+/**
+ * Executes multiple commands in a single HTTP round-trip.
+ * Each command is dispatched to the same handler it would have been routed to if it
+ * was sent separately. Results are returned in the same order as commands have been
+ * listed in the request.
+ */
+public class Batch extends SafeRequestHandler {
+    private final AppiumServlet servlet;
+
+    public Batch(String mappedUri, AppiumServlet servlet) {
+        super(mappedUri);
+        this.servlet = servlet;
+    }
+
+    /**
+     * The batch itself does not touch the device. Each command takes the action lock
+     * on its own if it is not read-only, so batches of reads never wait for long actions.
+     */
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
+    @Override
+    protected AppiumResponse safeHandle(IHttpRequest request) {
+        BatchModel model = toModel(request, BatchModel.class);
+        boolean stopOnError = model.stopOnError == null || model.stopOnError;
+        List<BatchResultModel> results = new ArrayList<>(model.commands.size());
+        for (BatchCommandModel command : model.commands) {
+            BatchedRequest subRequest = new BatchedRequest(request, command);
+            AppiumResponse subResponse = servlet.execute(subRequest);
+            if (subResponse == null) {
+                subResponse = new AppiumResponse(getSessionId(request), new UnknownCommandException(
+                        String.format("No handler is mapped to %s %s", subRequest.method(), subRequest.uri())));
+            }
+            int status = subResponse.getHttpStatus().code();
+            try {
+                results.add(new BatchResultModel(status, subResponse.getRenderedValue()));
+            } catch (IOException e) {
+                throw new UiAutomator2Exception(e);
+            }
+            if (stopOnError && status >= 400) {
+                Logger.info(String.format("Skipping %s remaining batch command(s) after the failure of %s %s",
+                        model.commands.size() - results.size(), subRequest.method(), subRequest.uri()));
+                break;
+            }
+        }
+        return new AppiumResponse(getSessionId(request), results);
+    }
+
+    private static class BatchedRequest implements IHttpRequest {
+        private final IHttpRequest parent;
+        private final String method;
+        private final String uri;
+        private final String body;
+        private final Map<String, Object> data = new HashMap<>();
+
+        BatchedRequest(IHttpRequest parent, BatchCommandModel command) {
+            this.parent = parent;
+            this.method = command.method.toUpperCase(Locale.ROOT);
+            this.uri = command.uri;
+            if (command.body == null) {
+                this.body = "";
+            } else if (command.body instanceof String) {
+                this.body = (String) command.body;
+            } else {
+                this.body = toJsonString(command.body);
+            }
+        }
+
+        @Override
+        public String method() {
+            return method;
+        }
+
+        @Override
+        public String uri() {
+            return uri;
+        }
+
+        @Override
+        public String body() {
+            return body;
+        }
+
+        @Override
+        public String header(String name) {
+            return parent.header(name);
+        }
+
+        @Override
+        public Map<String, Object> data() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.handler;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.common.exceptions.InvalidArgumentException;
+import io.appium.uiautomator2.handler.request.SafeRequestHandler;
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.BinaryValue;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.utils.ScreenshotHelper;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+/**
+ * Returns the screenshot as raw image bytes in the response body rather than
+ * as a Base64-encoded string wrapped into JSON.
+ * Supported query parameters:
+ * - format: `png` (default) or `jpeg`
+ * - quality: JPEG compression quality in range 1..100. 90 by default
+ * - scale: scaling factor in range (0, 1]. 1 by default
+ * - crop: the area to crop in the form of `left,top,width,height`
+ */
+public class CaptureRawScreenshot extends SafeRequestHandler {
+    static final int DEFAULT_JPEG_QUALITY = 90;
+
+    public CaptureRawScreenshot(String mappedUri) {
+        super(mappedUri);
+    }
+
+    @Override
+    protected AppiumResponse safeHandle(IHttpRequest request) {
+        Options options = Options.parse(new QueryStringDecoder(request.uri()).parameters());
+        byte[] data = ScreenshotHelper.takeScreenshot(options.format, options.quality,
+                options.scale, options.cropArea);
+        return ScreenshotHelper.withServedFrameAge(new AppiumResponse(getSessionId(request), new BinaryValue(
+                options.format == Bitmap.CompressFormat.JPEG ? "image/jpeg" : "image/png", data)));
+    }
+
+    @VisibleForTesting
+    static class Options {
+        Bitmap.CompressFormat format = Bitmap.CompressFormat.PNG;
+        int quality = DEFAULT_JPEG_QUALITY;
+        float scale = 1.0f;
+        @Nullable
+        Rect cropArea;
+
+        static Options parse(Map<String, List<String>> params) {
+            Options options = new Options();
+            String format = getParam(params, "format");
+            if (format != null) {
+                switch (format.toLowerCase()) {
+                    case "png":
+                        options.format = Bitmap.CompressFormat.PNG;
+                        break;
+                    case "jpg":
+                    case "jpeg":
+                        options.format = Bitmap.CompressFormat.JPEG;
+                        break;
+                    default:
+                        throw new InvalidArgumentException(String.format(
+                                "Screenshot format must be either 'png' or 'jpeg'. '%s' was given", format));
+                }
+            }
+            String quality = getParam(params, "quality");
+            if (quality != null) {
+                options.quality = parseInt("quality", quality);
+                if (options.quality < 1 || options.quality > 100) {
+                    throw new InvalidArgumentException(String.format(
+                            "Screenshot quality must be in range 1..100. %s was given", quality));
+                }
+            }
+            String scale = getParam(params, "scale");
+            if (scale != null) {
+                try {
+                    options.scale = Float.parseFloat(scale);
+                } catch (NumberFormatException e) {
+                    options.scale = Float.NaN;
+                }
+                // NaN fails both comparisons
+                if (!(options.scale > 0 && options.scale <= 1)) {
+                    throw new InvalidArgumentException(String.format(
+                            "Screenshot scale must be in range (0, 1]. '%s' was given", scale));
+                }
+            }
+            String crop = getParam(params, "crop");
+            if (crop != null) {
+                String[] parts = crop.split(",");
+                if (parts.length != 4) {
+                    throw new InvalidArgumentException(String.format(
+                            "Screenshot crop area must be in the form of 'left,top,width,height'. "
+                                    + "'%s' was given", crop));
+                }
+                int left = parseInt("crop", parts[0]);
+                int top = parseInt("crop", parts[1]);
+                int width = parseInt("crop", parts[2]);
+                int height = parseInt("crop", parts[3]);
+                if (width <= 0 || height <= 0) {
+                    throw new InvalidArgumentException(String.format(
+                            "Screenshot crop area must have positive width and height. '%s' was given", crop));
+                }
+                options.cropArea = new Rect(left, top, left + width, top + height);
+            }
+            return options;
+        }
+
+        @Nullable
+        private static String getParam(Map<String, List<String>> params, String name) {
+            List<String> values = params.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0).trim();
+        }
+
+        private static int parseInt(String name, String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidArgumentException(String.format(
+                        "Screenshot %s must contain integer numbers. '%s' was given", name, value));
+            }
+        }
+    }
+}
@@ -30,6 +30,6 @@ public class CaptureScreenshot extends SafeRequestHandler {
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) {
         final String result = ScreenshotHelper.takeScreenshot();
-        return new AppiumResponse(getSessionId(request), result);
+        return ScreenshotHelper.withServedFrameAge(new AppiumResponse(getSessionId(request), result));
     }
 }
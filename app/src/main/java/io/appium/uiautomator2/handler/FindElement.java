@@ -37,11 +37,13 @@ import io.appium.uiautomator2.model.Session;
 import io.appium.uiautomator2.model.api.FindElementModel;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
 import io.appium.uiautomator2.model.internal.ElementsLookupStrategy;
+import io.appium.uiautomator2.utils.Attribute;
 import io.appium.uiautomator2.utils.Logger;
 import io.appium.uiautomator2.utils.NodeInfoList;
 
 import static io.appium.uiautomator2.utils.AXWindowHelpers.refreshAccessibilityCache;
 import static io.appium.uiautomator2.utils.Device.getAndroidElement;
+import static io.appium.uiautomator2.utils.ElementLocationHelpers.findIndexedNodes;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.getXPathNodeMatch;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.rewriteIdLocator;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.toSelector;
@@ -85,11 +87,20 @@ public class FindElement extends SafeRequestHandler {
         refreshAccessibilityCache();
         if (by instanceof ById) {
             String locator = rewriteIdLocator((ById) by);
-            return CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.res(locator));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.RESOURCE_ID, locator);
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.res(locator))
+                    : CustomUiDevice.getInstance().findObject(indexedNodes);
         } else if (by instanceof By.ByAccessibilityId) {
-            return CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.desc(by.getElementLocator()));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.CONTENT_DESC, by.getElementLocator());
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.desc(by.getElementLocator()))
+                    : CustomUiDevice.getInstance().findObject(indexedNodes);
         } else if (by instanceof ByClass) {
-            return CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.clazz(by.getElementLocator()));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.CLASS, by.getElementLocator());
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObject(androidx.test.uiautomator.By.clazz(by.getElementLocator()))
+                    : CustomUiDevice.getInstance().findObject(indexedNodes);
         } else if (by instanceof By.ByXPath) {
             final NodeInfoList matchedNodes = getXPathNodeMatch(by.getElementLocator(), null, false);
             if (matchedNodes.isEmpty()) {
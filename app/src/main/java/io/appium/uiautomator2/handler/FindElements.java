@@ -16,19 +16,24 @@
 
 package io.appium.uiautomator2.handler;
 
+import android.view.accessibility.AccessibilityNodeInfo;
+
 import androidx.test.uiautomator.UiObject;
 import androidx.test.uiautomator.UiObjectNotFoundException;
 import androidx.test.uiautomator.UiSelector;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
 import io.appium.uiautomator2.common.exceptions.ElementNotFoundException;
 import io.appium.uiautomator2.common.exceptions.InvalidSelectorException;
 import io.appium.uiautomator2.common.exceptions.NotImplementedException;
+import io.appium.uiautomator2.core.AxNodeFetcher;
 import io.appium.uiautomator2.handler.request.SafeRequestHandler;
 import io.appium.uiautomator2.http.AppiumResponse;
 import io.appium.uiautomator2.http.IHttpRequest;
@@ -40,6 +45,8 @@ import io.appium.uiautomator2.model.Session;
 import io.appium.uiautomator2.model.api.FindElementModel;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
 import io.appium.uiautomator2.model.internal.ElementsLookupStrategy;
+import io.appium.uiautomator2.model.internal.UiSelectorEvaluator;
+import io.appium.uiautomator2.utils.Attribute;
 import io.appium.uiautomator2.utils.ElementHelpers;
 import io.appium.uiautomator2.utils.Logger;
 import io.appium.uiautomator2.utils.NodeInfoList;
@@ -47,6 +54,7 @@ import io.appium.uiautomator2.utils.NodeInfoList;
 import static io.appium.uiautomator2.utils.AXWindowHelpers.refreshAccessibilityCache;
 import static io.appium.uiautomator2.utils.Device.getAndroidElement;
 import static io.appium.uiautomator2.utils.Device.getUiDevice;
+import static io.appium.uiautomator2.utils.ElementLocationHelpers.findIndexedNodes;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.getXPathNodeMatch;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.rewriteIdLocator;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.toSelectors;
@@ -101,11 +109,20 @@ public class FindElements extends SafeRequestHandler {
 
         if (by instanceof By.ById) {
             String locator = rewriteIdLocator((ById) by);
-            return CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.res(locator));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.RESOURCE_ID, locator);
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.res(locator))
+                    : CustomUiDevice.getInstance().findObjects(indexedNodes);
         } else if (by instanceof By.ByAccessibilityId) {
-            return CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.desc(by.getElementLocator()));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.CONTENT_DESC, by.getElementLocator());
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.desc(by.getElementLocator()))
+                    : CustomUiDevice.getInstance().findObjects(indexedNodes);
         } else if (by instanceof By.ByClass) {
-            return CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.clazz(by.getElementLocator()));
+            NodeInfoList indexedNodes = findIndexedNodes(Attribute.CLASS, by.getElementLocator());
+            return indexedNodes == null
+                    ? CustomUiDevice.getInstance().findObjects(androidx.test.uiautomator.By.clazz(by.getElementLocator()))
+                    : CustomUiDevice.getInstance().findObjects(indexedNodes);
         } else if (by instanceof By.ByXPath) {
             //TODO: need to handle the context parameter in a smart way
             final NodeInfoList matchedNodes = getXPathNodeMatch(by.getElementLocator(), null, true);
@@ -153,25 +170,29 @@ public class FindElements extends SafeRequestHandler {
     private List<Object> getUiObjectsUsingAutomator(List<UiSelector> selectors, String contextId)
             throws InvalidSelectorException {
         List<Object> foundElements = new ArrayList<>();
+        Map<Object, AccessibilityNodeInfo> foundNodes = new IdentityHashMap<>();
         for (final UiSelector sel : selectors) {
             // With multiple selectors, we expect that some elements may not
             // exist.
             try {
                 Logger.debug("Using: " + sel.toString());
-                final List<Object> elementsFromSelector = fetchElements(sel, contextId);
+                final List<Object> elementsFromSelector = fetchElements(sel, contextId, foundNodes);
                 foundElements.addAll(elementsFromSelector);
             } catch (final UiObjectNotFoundException ignored) {
                 //for findElements up on no elements, empty array should return.
             }
         }
-        foundElements = ElementHelpers.dedupe(foundElements);
+        foundElements = ElementHelpers.dedupe(foundElements, foundNodes);
         return foundElements;
     }
 
     /**
      * finds elements with given UiSelector return List<UiObject
+     *
+     * @param foundNodes accessibility nodes of found elements are put there if they are known
      */
-    private List<Object> fetchElements(UiSelector sel, String key)
+    private List<Object> fetchElements(UiSelector sel, String key,
+                                       Map<Object, AccessibilityNodeInfo> foundNodes)
             throws UiObjectNotFoundException, InvalidSelectorException {
         //TODO: finding elements with contextId yet to implement
         boolean keepSearching = true;
@@ -202,6 +223,20 @@ public class FindElements extends SafeRequestHandler {
         UiObject lastFoundObj;
         final AndroidElement baseEl = session.getKnownElements().getElementFromCache(key);
 
+        if (baseEl == null && !useIndex && UiSelectorEvaluator.isSupported(sel)) {
+            AccessibilityNodeInfo root = AxNodeFetcher.getRootInActiveWindow();
+            if (root != null) {
+                // All the instances are resolved with a single hierarchy walk
+                List<AccessibilityNodeInfo> nodes = new UiSelectorEvaluator().findAll(sel, root);
+                for (int instance = 0; instance < nodes.size(); ++instance) {
+                    UiObject instanceObj = getUiDevice().findObject(sel.instance(instance));
+                    elements.add(instanceObj);
+                    foundNodes.put(instanceObj, nodes.get(instance));
+                }
+                return elements;
+            }
+        }
+
         UiSelector tmp;
         int counter = 0;
         while (keepSearching) {
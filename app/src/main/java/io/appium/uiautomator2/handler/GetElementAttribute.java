@@ -9,6 +9,7 @@ import io.appium.uiautomator2.http.IHttpRequest;
 import io.appium.uiautomator2.model.AndroidElement;
 import io.appium.uiautomator2.model.AppiumUIA2Driver;
 import io.appium.uiautomator2.model.Session;
+import io.appium.uiautomator2.utils.Attribute;
 
 public class GetElementAttribute extends SafeRequestHandler {
 
@@ -16,6 +17,12 @@ public class GetElementAttribute extends SafeRequestHandler {
         super(mappedUri);
     }
 
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        // Content size is measured by scrolling the element
+        return Attribute.fromString(getNameAttribute(request)) != Attribute.CONTENT_SIZE;
+    }
+
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) throws UiObjectNotFoundException {
         String id = getElementId(request);
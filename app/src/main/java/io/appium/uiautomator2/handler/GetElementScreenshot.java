@@ -29,6 +29,6 @@ public class GetElementScreenshot extends SafeRequestHandler {
         }
         final Rect elementRect = element.getBounds();
         final String result = ScreenshotHelper.takeScreenshot(elementRect);
-        return new AppiumResponse(getSessionId(request), result);
+        return ScreenshotHelper.withServedFrameAge(new AppiumResponse(getSessionId(request), result));
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.handler;
+
+import androidx.test.uiautomator.UiObjectNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import io.appium.uiautomator2.common.exceptions.ElementNotFoundException;
+import io.appium.uiautomator2.handler.request.SafeRequestHandler;
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.AndroidElement;
+import io.appium.uiautomator2.model.AppiumUIA2Driver;
+import io.appium.uiautomator2.model.KnownElements;
+import io.appium.uiautomator2.model.Session;
+import io.appium.uiautomator2.model.api.ElementsAttributesModel;
+import io.appium.uiautomator2.utils.Attribute;
+import io.appium.uiautomator2.utils.ElementAttributesReader;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toModel;
+
+/**
+ * Retrieves multiple attributes of multiple elements at once.
+ * The result is a matrix, where each row contains values of the requested attributes
+ * for the corresponding element in the same order as they are listed in the request.
+ */
+public class GetElementsAttributes extends SafeRequestHandler {
+
+    public GetElementsAttributes(String mappedUri) {
+        super(mappedUri);
+    }
+
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
+    @Override
+    protected AppiumResponse safeHandle(IHttpRequest request) throws UiObjectNotFoundException {
+        ElementsAttributesModel model = toModel(request, ElementsAttributesModel.class);
+        boolean isContentSizeRequested = false;
+        for (String attributeName : model.attributes) {
+            ElementAttributesReader.validate(attributeName);
+            isContentSizeRequested |= Attribute.fromString(attributeName) == Attribute.CONTENT_SIZE;
+        }
+        Session session = AppiumUIA2Driver.getInstance().getSessionOrThrow();
+        if (!isContentSizeRequested) {
+            return new AppiumResponse(getSessionId(request), readAttributes(session, model));
+        }
+        // Content size is measured by scrolling the element, so it must not
+        // interfere with other actions
+        Lock actionLock = session.getActionLock();
+        actionLock.lock();
+        try {
+            return new AppiumResponse(getSessionId(request), readAttributes(session, model));
+        } finally {
+            actionLock.unlock();
+        }
+    }
+
+    private static List<List<String>> readAttributes(Session session, ElementsAttributesModel model)
+            throws UiObjectNotFoundException {
+        KnownElements knownElements = session.getKnownElements();
+        List<List<String>> result = new ArrayList<>(model.elements.size());
+        for (String id : model.elements) {
+            AndroidElement element = knownElements.getElementFromCache(id);
+            if (element == null) {
+                throw new ElementNotFoundException();
+            }
+            ElementAttributesReader reader = new ElementAttributesReader(element);
+            List<String> row = new ArrayList<>(model.attributes.size());
+            for (String attributeName : model.attributes) {
+                row.add(reader.read(attributeName));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.handler;
+
+import io.appium.uiautomator2.handler.request.SafeRequestHandler;
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.api.MjpegStatsModel;
+import io.appium.uiautomator2.server.mjpeg.MjpegFrameCache;
+import io.appium.uiautomator2.server.mjpeg.MjpegStreamStats;
+
+public class GetMjpegStats extends SafeRequestHandler {
+
+    public GetMjpegStats(String mappedUri) {
+        super(mappedUri);
+    }
+
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
+    @Override
+    protected AppiumResponse safeHandle(IHttpRequest request) {
+        MjpegStreamStats stats = MjpegStreamStats.getInstance();
+        MjpegFrameCache frameCache = MjpegFrameCache.getInstance();
+        MjpegStatsModel model = new MjpegStatsModel();
+        model.clientsCount = stats.getClientsCount();
+        model.capturedFramesCount = stats.getCapturedFramesCount();
+        model.skippedFramesCount = stats.getSkippedFramesCount();
+        model.encodedFramesCount = stats.getEncodedFramesCount();
+        model.dirtyRegionsCount = stats.getDirtyRegionsCount();
+        model.sentFramesCount = stats.getSentFramesCount();
+        model.droppedFramesCount = stats.getDroppedFramesCount();
+        model.sentBytesCount = stats.getSentBytesCount();
+        model.lastEncodeTimeMs = stats.getLastEncodeTimeMs();
+        model.averageEncodeTimeMs = stats.getAverageEncodeTimeMs();
+        model.frameCacheHitsCount = frameCache.getHitsCount();
+        model.frameCacheMissesCount = frameCache.getMissesCount();
+        return new AppiumResponse(getSessionId(request), model);
+    }
+}
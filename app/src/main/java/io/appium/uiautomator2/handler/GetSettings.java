@@ -21,6 +21,11 @@ public class GetSettings extends SafeRequestHandler {
         super(mappedUri);
     }
 
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) {
         Logger.debug("Get settings:");
@@ -38,6 +38,11 @@ public class GetSize extends SafeRequestHandler {
         super(mappedUri);
     }
 
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) throws UiObjectNotFoundException {
         String id = getElementId(request);
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.handler;
+
+import io.appium.uiautomator2.core.AxNodeFetcher;
+import io.appium.uiautomator2.core.UiElementSnapshotCache;
+import io.appium.uiautomator2.handler.request.SafeRequestHandler;
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.api.SnapshotStatsModel;
+
+public class GetSnapshotStats extends SafeRequestHandler {
+
+    public GetSnapshotStats(String mappedUri) {
+        super(mappedUri);
+    }
+
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
+    @Override
+    protected AppiumResponse safeHandle(IHttpRequest request) {
+        SnapshotStatsModel model = new SnapshotStatsModel();
+        model.nodeFetchesCount = AxNodeFetcher.getFetchesCount();
+        model.lastSnapshotNodeFetchesCount = AxNodeFetcher.getLastSnapshotFetchesCount();
+        UiElementSnapshotCache cache = UiElementSnapshotCache.getInstance();
+        model.isCacheEnabled = UiElementSnapshotCache.isEnabled();
+        model.cacheHitsCount = cache.getHitsCount();
+        model.cacheMissesCount = cache.getMissesCount();
+        model.cacheRebuildsCount = cache.getRebuildsCount();
+        model.cacheIndexHitsCount = cache.getIndexHitsCount();
+        model.cacheIndexFallbacksCount = cache.getIndexFallbacksCount();
+        return new AppiumResponse(getSessionId(request), model);
+    }
+}
@@ -17,6 +17,11 @@ public class GetText extends SafeRequestHandler {
         super(mappedUri);
     }
 
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) throws UiObjectNotFoundException {
         String id = getElementId(request);
@@ -23,6 +23,8 @@ import io.appium.uiautomator2.core.AccessibilityNodeInfoDumper;
 import io.appium.uiautomator2.handler.request.SafeRequestHandler;
 import io.appium.uiautomator2.http.AppiumResponse;
 import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.settings.EnableStreamingSource;
+import io.appium.uiautomator2.model.settings.Settings;
 import io.appium.uiautomator2.utils.Attribute;
 
 import static io.appium.uiautomator2.utils.AXWindowHelpers.refreshAccessibilityCache;
@@ -51,7 +53,9 @@ public class Source extends SafeRequestHandler {
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) {
         refreshAccessibilityCache();
-        String xmlSource = new AccessibilityNodeInfoDumper(null, getXmlSourceAttributes()).dumpToXml();
+        AccessibilityNodeInfoDumper dumper = new AccessibilityNodeInfoDumper(null, getXmlSourceAttributes());
+        boolean isStreamingEnabled = ((EnableStreamingSource) Settings.ENABLE_STREAMING_SOURCE.getSetting()).getValue();
+        Object xmlSource = isStreamingEnabled ? dumper.dumpToStream() : dumper.dumpToXml();
         return new AppiumResponse(getSessionId(request), xmlSource);
     }
 }
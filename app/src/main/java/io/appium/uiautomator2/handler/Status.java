@@ -29,6 +29,11 @@ public class Status extends SafeRequestHandler {
         super(mappedUri);
     }
 
+    @Override
+    public boolean isReadOnly(IHttpRequest request) {
+        return true;
+    }
+
     @Override
     protected AppiumResponse safeHandle(IHttpRequest request) {
         return new AppiumResponse(NO_ID, new StatusModel(true,
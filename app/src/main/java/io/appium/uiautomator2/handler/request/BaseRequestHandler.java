@@ -45,6 +45,18 @@ public abstract class BaseRequestHandler {
         return mappedUri;
     }
 
+    /**
+     * Read-only handlers do not change the state of the device under test or of the session,
+     * so they are executed concurrently with other commands. All other handlers are
+     * serialized by the session action lock.
+     *
+     * @param request the request to be handled. Handler attributes are already added to it
+     * @return true if the handler only reads the state while handling the given request
+     */
+    public boolean isReadOnly(IHttpRequest request) {
+        return false;
+    }
+
     @Nullable
     private static <T> T extractRequestValue(IHttpRequest request, String key,
                                              @SuppressWarnings("SameParameterValue") Class<T> valueClass) {
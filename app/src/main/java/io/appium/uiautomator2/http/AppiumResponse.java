@@ -16,13 +16,22 @@
 
 package io.appium.uiautomator2.http;
 
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
 import io.appium.uiautomator2.model.api.server.ErrorModel;
@@ -30,13 +39,17 @@ import io.appium.uiautomator2.model.api.server.ResponseModel;
 import io.appium.uiautomator2.utils.Logger;
 import io.netty.handler.codec.http.HttpResponseStatus;
 
+import static io.appium.uiautomator2.utils.ModelUtils.toJson;
 import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
 import static io.appium.uiautomator2.utils.StringHelpers.abbreviate;
 
 public class AppiumResponse {
+    private static final int MAX_LOGGED_RESPONSE_LENGTH = 300;
+
     private final Object value;
     private final String sessionId;
     private final HttpResponseStatus httpStatus;
+    private final Map<String, String> headers = new LinkedHashMap<>();
 
     public AppiumResponse(@Nullable String sessionId, @Nullable Object value) {
         this.sessionId = sessionId;
@@ -65,25 +78,124 @@ public class AppiumResponse {
         );
     }
 
+    /**
+     * Adds a custom header to the rendered response
+     *
+     * @param name  header name
+     * @param value header value
+     * @return self instance for chaining
+     */
+    public AppiumResponse setHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
     public void renderTo(IHttpResponse response) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            response.setHeader(header.getKey(), header.getValue());
+        }
+        if (value instanceof BinaryValue) {
+            BinaryValue binaryValue = (BinaryValue) value;
+            response.setContentType(binaryValue.getContentType());
+            response.setStatus(getHttpStatus().code());
+            response.setContent(binaryValue.getData());
+            Logger.info(String.format("AppiumResponse: <%s bytes of %s>",
+                    binaryValue.getData().length, binaryValue.getContentType()));
+            return;
+        }
         response.setContentType("application/json");
         response.setEncoding(StandardCharsets.UTF_8);
         response.setStatus(getHttpStatus().code());
         boolean isError = value instanceof Throwable;
+        if (value instanceof StreamingStringValue) {
+            // The same layout as ResponseModel has after being serialized
+            response.setContent(new JsonStringChunkedInput("{\"value\":",
+                    (StreamingStringValue) value, String.format(",\"sessionId\":%s}", toJsonString(sessionId))));
+            Logger.info("AppiumResponse: <the value is streamed>");
+            return;
+        }
         try {
             Object val = isError ? formatException((Throwable) value) : value;
             ResponseModel responseModel = new ResponseModel(val, sessionId);
-            final String responseString = toJsonString(responseModel);
-            Logger.info(String.format("AppiumResponse: %s",
-                    isError ? responseString : abbreviate(responseString, 300)));
-            response.setContent(responseString);
-        } catch (JsonSyntaxException e) {
+            // JSON is encoded right into the response buffer without building
+            // the whole document as a string first
+            HeadRecordingWriter writer = new HeadRecordingWriter(
+                    new OutputStreamWriter(response.openContentStream(), StandardCharsets.UTF_8),
+                    isError ? Integer.MAX_VALUE : MAX_LOGGED_RESPONSE_LENGTH + 1);
+            toJson(responseModel, writer);
+            writer.flush();
+            Logger.info(String.format("AppiumResponse: %s", isError
+                    ? writer.getHead()
+                    : abbreviate(writer.getHead(), MAX_LOGGED_RESPONSE_LENGTH)));
+        } catch (JsonSyntaxException | JsonIOException | IOException e) {
             Logger.error("Unable to create JSON Object", e);
             response.setContent("{}");
             response.setStatus(UiAutomator2Exception.DEFAULT_ERROR_STATUS.code());
         }
     }
 
+    /**
+     * @return the value in the same form as it is written to the response body.
+     * Errors are formatted, streamed values are read till the end
+     * and binary values are Base64-encoded.
+     */
+    @Nullable
+    public Object getRenderedValue() throws IOException {
+        if (value instanceof Throwable) {
+            return formatException((Throwable) value);
+        }
+        if (value instanceof BinaryValue) {
+            return Base64.encodeToString(((BinaryValue) value).getData(), Base64.DEFAULT);
+        }
+        if (value instanceof StreamingStringValue) {
+            StreamingStringValue streamingValue = (StreamingStringValue) value;
+            StringWriter writer = new StringWriter();
+            streamingValue.open(writer);
+            //noinspection StatementWithEmptyBody
+            while (streamingValue.writeNext()) {
+            }
+            return writer.toString();
+        }
+        return value;
+    }
+
+    /**
+     * Remembers the beginning of the written text, so it could be logged
+     */
+    private static class HeadRecordingWriter extends FilterWriter {
+        private final StringBuilder head = new StringBuilder();
+        private final int maxHeadLength;
+
+        HeadRecordingWriter(Writer out, int maxHeadLength) {
+            super(out);
+            this.maxHeadLength = maxHeadLength;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (head.length() < maxHeadLength) {
+                head.append((char) c);
+            }
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            head.append(cbuf, off, Math.min(len, maxHeadLength - head.length()));
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            head.append(str, off, off + Math.min(len, maxHeadLength - head.length()));
+            super.write(str, off, len);
+        }
+
+        String getHead() {
+            return head.toString();
+        }
+    }
+
     public HttpResponseStatus getHttpStatus() {
         return httpStatus;
     }
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+/**
+ * A response value, which is sent as is in the response body instead of being
+ * wrapped into a JSON document. Only successful responses could have such values.
+ */
+public class BinaryValue {
+    private final String contentType;
+    private final byte[] data;
+
+    /**
+     * @param contentType the MIME type of the data
+     * @param data        the response body
+     */
+    public BinaryValue(String contentType, byte[] data) {
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -18,8 +18,13 @@ package io.appium.uiautomator2.http;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
@@ -30,6 +35,7 @@ public class HttpServer {
     private final int port;
     private final List<IHttpServlet> handlers = new ArrayList<>();
     private Thread serverThread;
+    private ExecutorService requestsExecutor;
 
     public HttpServer(int port) {
         this.port = port;
@@ -43,6 +49,17 @@ public class HttpServer {
         if (serverThread != null) {
             throw new IllegalStateException("Server is already running");
         }
+        final AtomicInteger threadsCount = new AtomicInteger();
+        requestsExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        String.format("request-handler-%s", threadsCount.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final ExecutorService executor = requestsExecutor;
         serverThread = new Thread() {
             @Override
             public void run() {
@@ -56,7 +73,9 @@ public class HttpServer {
                             .option(ChannelOption.SO_REUSEADDR, true)
                             .option(ChannelOption.SO_KEEPALIVE, true)
                             .option(ChannelOption.TCP_NODELAY, true)
-                            .childHandler(new ServerInitializer(handlers));
+                            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                            .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                            .childHandler(new ServerInitializer(handlers, executor));
 
                     Channel ch = bootstrap.bind(port).sync().channel();
                     ch.closeFuture().sync();
@@ -77,6 +96,8 @@ public class HttpServer {
 
         serverThread.interrupt();
         serverThread = null;
+        requestsExecutor.shutdown();
+        requestsExecutor = null;
     }
 
     public int getPort() {
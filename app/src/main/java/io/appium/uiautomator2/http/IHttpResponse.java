@@ -16,18 +16,40 @@
 
 package io.appium.uiautomator2.http;
 
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.stream.ChunkedInput;
+
 public interface IHttpResponse {
 
     IHttpResponse setStatus(int status);
 
     IHttpResponse setContentType(String mimeType);
 
+    IHttpResponse setHeader(String name, String value);
+
     IHttpResponse setContent(byte[] data);
 
     IHttpResponse setContent(String message);
 
+    /**
+     * Discards the content, which has been set so far, and returns a stream
+     * writing the new content directly into the response buffer
+     *
+     * @return the content stream. It does not need to be closed
+     */
+    OutputStream openContentStream();
+
+    /**
+     * Sets the content, which is going to be sent using chunked transfer encoding
+     *
+     * @param content chunked content source
+     * @return self instance for chaining
+     */
+    IHttpResponse setContent(ChunkedInput<ByteBuf> content);
+
     IHttpResponse setEncoding(Charset charset);
 
     IHttpResponse sendRedirect(String to);
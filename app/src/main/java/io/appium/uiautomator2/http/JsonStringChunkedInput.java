@@ -0,0 +1,218 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import java.io.Writer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Produces a JSON document, which contains a single string value, in chunks.
+ * The string value is escaped on the fly while being written by {@link StreamingStringValue}
+ * and surrounded by the given JSON prefix and suffix, which are written as is.
+ * {@link ServerHandler} reads the chunks on the requests executor thread rather than
+ * on the event loop, since serializing a large value might take a while.
+ */
+public class JsonStringChunkedInput implements ChunkedInput<ByteBuf> {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final String prefix;
+    private final String suffix;
+    private final StreamingStringValue value;
+    private final JsonStringWriter writer = new JsonStringWriter();
+    private boolean isOpened;
+    private boolean isEndOfInput;
+
+    /**
+     * @param prefix JSON content to be written before the opening quote of the string value
+     * @param value  the string value
+     * @param suffix JSON content to be written after the closing quote of the string value
+     */
+    public JsonStringChunkedInput(String prefix, StreamingStringValue value, String suffix) {
+        this.prefix = prefix;
+        this.value = value;
+        this.suffix = suffix;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return isEndOfInput;
+    }
+
+    @Override
+    public void close() {
+        isEndOfInput = true;
+    }
+
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        if (isEndOfInput) {
+            return null;
+        }
+
+        ByteBuf chunk = ctx.alloc().buffer(CHUNK_SIZE);
+        try {
+            writer.target = chunk;
+            if (!isOpened) {
+                chunk.writeBytes((prefix + "\"").getBytes(CharsetUtil.UTF_8));
+                value.open(writer);
+                isOpened = true;
+            }
+            boolean hasMore = true;
+            while (chunk.readableBytes() < CHUNK_SIZE && (hasMore = value.writeNext())) {
+                // keep writing until the chunk is full
+            }
+            if (!hasMore) {
+                chunk.writeBytes(("\"" + suffix).getBytes(CharsetUtil.UTF_8));
+                isEndOfInput = true;
+            }
+            return chunk;
+        } catch (Exception e) {
+            chunk.release();
+            throw e;
+        } finally {
+            writer.target = null;
+        }
+    }
+
+    /**
+     * Escapes written characters in the same way Gson does for string values
+     * and encodes them to UTF-8 right into the current chunk.
+     */
+    static class JsonStringWriter extends Writer {
+        private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(CharsetUtil.US_ASCII);
+
+        ByteBuf target;
+        private char highSurrogate;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            for (int i = off; i < off + len; ++i) {
+                write(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            for (int i = off; i < off + len; ++i) {
+                write(str.charAt(i));
+            }
+        }
+
+        private void write(char c) {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    writeUtf8(Character.toCodePoint(high, c));
+                    return;
+                }
+                // Unpaired surrogates cannot be encoded
+                target.writeByte('?');
+            }
+            if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+                return;
+            }
+            if (Character.isLowSurrogate(c)) {
+                target.writeByte('?');
+                return;
+            }
+
+            switch (c) {
+                case '"':
+                case '\\':
+                    target.writeByte('\\');
+                    target.writeByte(c);
+                    return;
+                case '\t':
+                    writeAscii("\\t");
+                    return;
+                case '\b':
+                    writeAscii("\\b");
+                    return;
+                case '\n':
+                    writeAscii("\\n");
+                    return;
+                case '\r':
+                    writeAscii("\\r");
+                    return;
+                case '\f':
+                    writeAscii("\\f");
+                    return;
+                case '\u2028':
+                case '\u2029':
+                    writeUnicodeEscape(c);
+                    return;
+                default:
+                    if (c < 0x20) {
+                        writeUnicodeEscape(c);
+                    } else {
+                        writeUtf8(c);
+                    }
+            }
+        }
+
+        private void writeAscii(String str) {
+            for (int i = 0; i < str.length(); ++i) {
+                target.writeByte(str.charAt(i));
+            }
+        }
+
+        private void writeUnicodeEscape(char c) {
+            target.writeByte('\\');
+            target.writeByte('u');
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                target.writeByte(HEX_DIGITS[(c >> shift) & 0xF]);
+            }
+        }
+
+        private void writeUtf8(int codePoint) {
+            if (codePoint < 0x80) {
+                target.writeByte(codePoint);
+            } else if (codePoint < 0x800) {
+                target.writeByte(0xC0 | (codePoint >> 6));
+                target.writeByte(0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                target.writeByte(0xE0 | (codePoint >> 12));
+                target.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                target.writeByte(0x80 | (codePoint & 0x3F));
+            } else {
+                target.writeByte(0xF0 | (codePoint >> 18));
+                target.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                target.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                target.writeByte(0x80 | (codePoint & 0x3F));
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Characters are written to the target buffer immediately
+        }
+
+        @Override
+        public void close() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                target.writeByte('?');
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import io.appium.uiautomator2.utils.Logger;
+
+/**
+ * Executes submitted tasks one after another in the order of submission
+ * using the threads of the given executor. Tasks of different serial executors,
+ * which share the same underlying executor, might still run concurrently.
+ */
+public class SerialExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor;
+    private boolean isRunning;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (tasks) {
+            tasks.add(task);
+            if (isRunning) {
+                return;
+            }
+            isRunning = true;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runPendingTasks();
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (tasks) {
+                tasks.clear();
+                isRunning = false;
+            }
+            throw e;
+        }
+    }
+
+    private void runPendingTasks() {
+        while (true) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    isRunning = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // The remaining tasks must still be executed
+                Logger.error("Unhandled exception in a serial task", e);
+            }
+        }
+    }
+}
@@ -17,53 +17,151 @@
 package io.appium.uiautomator2.http;
 
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.appium.uiautomator2.common.exceptions.UnknownCommandException;
 import io.appium.uiautomator2.http.impl.NettyHttpRequest;
 import io.appium.uiautomator2.http.impl.NettyHttpResponse;
 import io.appium.uiautomator2.server.AppiumServlet;
 import io.appium.uiautomator2.utils.Logger;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CACHE_CONTROL;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.Names.PRAGMA;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 public class ServerHandler extends ChannelInboundHandlerAdapter {
     private final List<IHttpServlet> httpHandlers;
+    // Requests of the same connection must be answered in order
+    private final Executor requestsExecutor;
 
-    public ServerHandler(List<IHttpServlet> handlers) {
+    /**
+     * @param handlers         the list of servlets to handle requests
+     * @param requestsExecutor the executor to handle requests on, so Netty event loops are
+     *                         never blocked by long-running commands. Requests of different
+     *                         connections might be handled concurrently
+     */
+    public ServerHandler(List<IHttpServlet> handlers, Executor requestsExecutor) {
         this.httpHandlers = handlers;
+        this.requestsExecutor = new SerialExecutor(requestsExecutor);
     }
 
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    public void channelRead(final ChannelHandlerContext ctx, Object msg) {
         if (!(msg instanceof FullHttpRequest)) {
             return;
         }
 
-        FullHttpRequest request = (FullHttpRequest) msg;
-        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK);
+        final FullHttpRequest request = (FullHttpRequest) msg;
+        try {
+            requestsExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        handleRequest(ctx, request);
+                    } catch (Throwable e) {
+                        ctx.fireExceptionCaught(e);
+                    } finally {
+                        ReferenceCountUtil.release(request);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The server is being stopped
+            ReferenceCountUtil.release(request);
+            ctx.close();
+        }
+    }
+
+    private void handleRequest(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+        // The content is encoded straight into a buffer of the channel allocator,
+        // which is pooled, so no intermediate copies are made
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, ctx.alloc().ioBuffer());
         boolean keepAlive = HttpHeaders.isKeepAlive(request);
-        response.headers().set(CONNECTION, keepAlive
-                ? HttpHeaders.Values.KEEP_ALIVE
-                : HttpHeaders.Values.CLOSE);
-        response.headers().set(PRAGMA, "no-cache");
-        response.headers().set(CACHE_CONTROL, "no-store");
+        NettyHttpResponse httpResponse;
+        try {
+            response.headers().set(CONNECTION, keepAlive
+                    ? HttpHeaders.Values.KEEP_ALIVE
+                    : HttpHeaders.Values.CLOSE);
+            response.headers().set(PRAGMA, "no-cache");
+            response.headers().set(CACHE_CONTROL, "no-store");
+            httpResponse = dispatch(request, response);
+        } catch (Throwable e) {
+            response.release();
+            throw e;
+        }
+
+        ChunkedInput<ByteBuf> chunkedContent = httpResponse.getChunkedContent();
+        ChannelFuture future;
+        if (chunkedContent == null) {
+            HttpHeaders.setContentLength(response, response.content().readableBytes());
+            future = ctx.writeAndFlush(response);
+        } else {
+            HttpResponse chunkedResponse = new DefaultHttpResponse(HTTP_1_1, response.getStatus());
+            chunkedResponse.headers().set(response.headers());
+            chunkedResponse.headers().remove(CONTENT_LENGTH);
+            HttpHeaders.setTransferEncodingChunked(chunkedResponse);
+            response.release();
+            ctx.write(chunkedResponse);
+            future = writeChunks(ctx, chunkedContent);
+        }
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Reads the chunks on the current (requests executor) thread, so the content is never
+     * produced on the event loop, where a slow producer would stall I/O of all its channels.
+     * The event loop only writes ready buffers. The producer waits while the channel
+     * is not writable to keep the amount of outbound data bounded.
+     */
+    private ChannelFuture writeChunks(ChannelHandlerContext ctx, ChunkedInput<ByteBuf> chunkedContent)
+            throws Exception {
+        try {
+            while (!chunkedContent.isEndOfInput()) {
+                ByteBuf chunk = chunkedContent.readChunk(ctx);
+                if (chunk == null) {
+                    break;
+                }
+                ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+                if (!ctx.channel().isWritable()) {
+                    future.awaitUninterruptibly();
+                }
+                if (future.isDone() && !future.isSuccess()) {
+                    // The connection is gone, there is no point to produce the rest
+                    return future;
+                }
+            }
+            return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        } finally {
+            chunkedContent.close();
+        }
+    }
 
+    private NettyHttpResponse dispatch(FullHttpRequest request, FullHttpResponse response) throws Exception {
         Logger.info(String.format("channel read: %s %s", request.getMethod().toString(), request.getUri()));
 
         IHttpRequest httpRequest = new NettyHttpRequest(request);
-        IHttpResponse httpResponse = new NettyHttpResponse(response);
+        NettyHttpResponse httpResponse = new NettyHttpResponse(response);
         for (IHttpServlet handler : httpHandlers) {
             handler.handleHttpRequest(httpRequest, httpResponse);
             if (httpResponse.isClosed()) {
@@ -76,12 +174,7 @@ public class ServerHandler extends ChannelInboundHandlerAdapter {
                     .renderTo(httpResponse);
             httpResponse.end();
         }
-
-        ChannelFuture future = ctx.write(response);
-        if (!keepAlive) {
-            future.addListener(ChannelFutureListener.CLOSE);
-        }
-        super.channelRead(ctx, msg);
+        return httpResponse;
     }
 
     @Override
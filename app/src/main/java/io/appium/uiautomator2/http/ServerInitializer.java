@@ -17,7 +17,9 @@
 package io.appium.uiautomator2.http;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import io.appium.uiautomator2.server.ServerConfig;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
@@ -26,9 +28,12 @@ import io.netty.handler.codec.http.HttpServerCodec;
 
 public class ServerInitializer extends ChannelInitializer<SocketChannel> {
     private final List<io.appium.uiautomator2.http.IHttpServlet> handlers;
+    private final Executor requestsExecutor;
 
-    public ServerInitializer(List<io.appium.uiautomator2.http.IHttpServlet> handlers) {
+    public ServerInitializer(List<io.appium.uiautomator2.http.IHttpServlet> handlers,
+                             Executor requestsExecutor) {
         this.handlers = handlers;
+        this.requestsExecutor = requestsExecutor;
     }
 
     @Override
@@ -36,7 +41,7 @@ public class ServerInitializer extends ChannelInitializer<SocketChannel> {
         ChannelPipeline pipeline = ch.pipeline();
         pipeline.addLast("idleStateHandler", new KeepAliveStateHandler());
         pipeline.addLast("codec", new HttpServerCodec());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(65536));
-        pipeline.addLast("io/appium/uiautomator2/handler", new io.appium.uiautomator2.http.ServerHandler(handlers));
+        pipeline.addLast("aggregator", new HttpObjectAggregator(ServerConfig.getMaxRequestContentLength()));
+        pipeline.addLast("io/appium/uiautomator2/handler", new io.appium.uiautomator2.http.ServerHandler(handlers, requestsExecutor));
     }
 }
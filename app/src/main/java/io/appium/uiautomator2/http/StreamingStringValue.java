@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A string response value, which is too large to be kept in memory as a whole.
+ * Such values are written directly to the response stream portion by portion
+ * using chunked transfer encoding.
+ */
+public interface StreamingStringValue {
+    /**
+     * Prepares the value to be written to the given writer.
+     * This method is called once before any other calls.
+     *
+     * @param writer the destination writer
+     * @throws IOException if there was an error while writing
+     */
+    void open(Writer writer) throws IOException;
+
+    /**
+     * Writes the next portion of the value to the writer.
+     * The written portion must be flushed to the writer before this method returns.
+     *
+     * @return false if the whole value has been written
+     * @throws IOException if there was an error while writing
+     */
+    boolean writeNext() throws IOException;
+}
@@ -10,6 +10,7 @@ import io.netty.util.CharsetUtil;
 public class NettyHttpRequest implements IHttpRequest {
     private final FullHttpRequest request;
     private final Map<String, Object> data;
+    private String body;
 
     public NettyHttpRequest(FullHttpRequest request) {
         this.request = request;
@@ -28,7 +29,11 @@ public class NettyHttpRequest implements IHttpRequest {
 
     @Override
     public String body() {
-        return request.content().toString(CharsetUtil.UTF_8);
+        // The content is only decoded once, since handlers might need the body multiple times
+        if (body == null) {
+            body = request.content().toString(CharsetUtil.UTF_8);
+        }
+        return body;
     }
 
     @Override
@@ -1,10 +1,17 @@
 package io.appium.uiautomator2.http.impl;
 
+import androidx.annotation.Nullable;
+
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 
 import io.appium.uiautomator2.http.IHttpResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.stream.ChunkedInput;
 import io.netty.util.CharsetUtil;
 
 public class NettyHttpResponse implements IHttpResponse {
@@ -12,10 +19,10 @@ public class NettyHttpResponse implements IHttpResponse {
     private final FullHttpResponse response;
     private static final String CONTENT_TYPE = "Content-Type";
     private static final String CONTENT_ENCODING = "Content-Encoding";
-    private static final String CONTENT_LENGTH = "Content-Length";
     private static final String LOCATION = "location";
     private boolean closed;
     private Charset charset = CharsetUtil.UTF_8;
+    private ChunkedInput<ByteBuf> chunkedContent;
 
 
     public NettyHttpResponse(FullHttpResponse response) {
@@ -33,17 +40,44 @@ public class NettyHttpResponse implements IHttpResponse {
         return this;
     }
 
+    @Override
+    public IHttpResponse setHeader(String name, String value) {
+        response.headers().set(name, value);
+        return this;
+    }
+
+    // Content-Length header is set by the server handler right before the response is sent
     public IHttpResponse setContent(byte[] data) {
-        response.headers().add(CONTENT_LENGTH, data.length);
-        response.content().writeBytes(data);
+        response.content().clear().writeBytes(data);
         return this;
     }
 
     public IHttpResponse setContent(String message) {
-        setContent(message.getBytes(charset));
+        if (CharsetUtil.UTF_8.equals(charset)) {
+            // Avoids the intermediate byte array
+            ByteBufUtil.writeUtf8(response.content().clear(), message);
+        } else {
+            setContent(message.getBytes(charset));
+        }
+        return this;
+    }
+
+    @Override
+    public OutputStream openContentStream() {
+        return new ByteBufOutputStream(response.content().clear());
+    }
+
+    @Override
+    public IHttpResponse setContent(ChunkedInput<ByteBuf> content) {
+        this.chunkedContent = content;
         return this;
     }
 
+    @Nullable
+    public ChunkedInput<ByteBuf> getChunkedContent() {
+        return chunkedContent;
+    }
+
     public IHttpResponse sendRedirect(String to) {
         setStatus(HttpResponseStatus.MOVED_PERMANENTLY.code());
         response.headers().add(LOCATION, to);
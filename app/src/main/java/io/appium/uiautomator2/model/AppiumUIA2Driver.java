@@ -26,7 +26,7 @@ import io.appium.uiautomator2.common.exceptions.NoSuchDriverException;
 
 public class AppiumUIA2Driver {
     private static AppiumUIA2Driver instance;
-    private Session session;
+    private volatile Session session;
 
     private AppiumUIA2Driver() {
     }
@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import io.appium.uiautomator2.utils.Attribute;
+
+/**
+ * A lightweight view of a single element of {@link CompactUiSnapshot}.
+ * Attribute values are read from the snapshot arrays on demand.
+ */
+public class CompactUiElement extends UiElement<AccessibilityNodeInfo, CompactUiElement> {
+    private final CompactUiSnapshot snapshot;
+    private final int position;
+    private Map<Attribute, Object> attributes;
+
+    CompactUiElement(CompactUiSnapshot snapshot, int position, @Nullable AccessibilityNodeInfo node) {
+        super(node);
+        this.snapshot = snapshot;
+        this.position = position;
+    }
+
+    public CompactUiSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Attribute attribute) {
+        return (T) snapshot.getValue(position, attribute);
+    }
+
+    @Override
+    public List<CompactUiElement> getChildren() {
+        return new AbstractList<CompactUiElement>() {
+            @Override
+            public CompactUiElement get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException(String.format(
+                            "Index %s is out of range 0..%s", index, size()));
+                }
+                return snapshot.getElement(snapshot.getChildPosition(position, index));
+            }
+
+            @Override
+            public int size() {
+                return snapshot.getChildrenCount(position);
+            }
+        };
+    }
+
+    @Override
+    protected Map<Attribute, Object> getAttributes() {
+        if (attributes == null) {
+            attributes = new AttributesView();
+        }
+        return attributes;
+    }
+
+    /**
+     * Read-only map of attributes, which have non-null values,
+     * in the same order {@link UiElementSnapshot} keeps them.
+     */
+    private class AttributesView extends AbstractMap<Attribute, Object> {
+        private Set<Attribute> keys;
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Attribute && snapshot.hasValue(position, (Attribute) key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof Attribute ? snapshot.getValue(position, (Attribute) key) : null;
+        }
+
+        @Override
+        public Set<Attribute> keySet() {
+            if (keys == null) {
+                keys = new AbstractSet<Attribute>() {
+                    @Override
+                    public Iterator<Attribute> iterator() {
+                        return new KeysIterator();
+                    }
+
+                    @Override
+                    public boolean contains(Object o) {
+                        return containsKey(o);
+                    }
+
+                    @Override
+                    public int size() {
+                        int result = 0;
+                        for (Iterator<Attribute> it = iterator(); it.hasNext(); it.next()) {
+                            ++result;
+                        }
+                        return result;
+                    }
+                };
+            }
+            return keys;
+        }
+
+        @Override
+        public Set<Entry<Attribute, Object>> entrySet() {
+            return new AbstractSet<Entry<Attribute, Object>>() {
+                @Override
+                public Iterator<Entry<Attribute, Object>> iterator() {
+                    final Iterator<Attribute> keysIterator = new KeysIterator();
+                    return new Iterator<Entry<Attribute, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return keysIterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Attribute, Object> next() {
+                            Attribute key = keysIterator.next();
+                            return new SimpleImmutableEntry<>(key, get(key));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keySet().size();
+                }
+            };
+        }
+    }
+
+    private class KeysIterator implements Iterator<Attribute> {
+        private int nextIdx = -1;
+
+        KeysIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                ++nextIdx;
+            } while (nextIdx < UiElementSnapshot.SUPPORTED_ATTRIBUTES.length
+                    && !snapshot.hasValue(position, UiElementSnapshot.SUPPORTED_ATTRIBUTES[nextIdx]));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIdx < UiElementSnapshot.SUPPORTED_ATTRIBUTES.length;
+        }
+
+        @Override
+        public Attribute next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Attribute result = UiElementSnapshot.SUPPORTED_ATTRIBUTES[nextIdx];
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
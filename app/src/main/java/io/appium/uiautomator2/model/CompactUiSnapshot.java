@@ -0,0 +1,467 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model;
+
+import android.graphics.Rect;
+import android.util.Range;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import io.appium.uiautomator2.core.AxNodeFetcher;
+import io.appium.uiautomator2.core.AxNodeInfoHelper;
+import io.appium.uiautomator2.core.SnapshotStringPool;
+import io.appium.uiautomator2.core.VisibleBoundsScope;
+import io.appium.uiautomator2.utils.Attribute;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.model.settings.Settings.ALLOW_INVISIBLE_ELEMENTS;
+import static io.appium.uiautomator2.utils.ReflectionUtils.setField;
+import static io.appium.uiautomator2.utils.StringHelpers.charSequenceToNullableString;
+
+/**
+ * Snapshot of the accessibility hierarchy, which is stored as a structure of arrays
+ * rather than as a tree of objects. Each element is identified by its position in the
+ * depth-first traversal order. Children are kept in a flat index table, boolean
+ * attributes in bit sets, bounds as packed integers and repeated strings are interned.
+ * This keeps the count of allocated objects low regardless of the hierarchy size.
+ * Elements are exposed to the rest of the code via {@link CompactUiElement} views.
+ * The produced attributes are the same {@link UiElementSnapshot} would produce.
+ */
+public class CompactUiSnapshot {
+    private static final String ROOT_NODE_NAME = "hierarchy";
+    private static final int DEFAULT_MAX_DEPTH = 70;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final Attribute[] FLAG_ATTRIBUTES = new Attribute[]{
+            Attribute.CHECKABLE, Attribute.CHECKED, Attribute.CLICKABLE, Attribute.ENABLED,
+            Attribute.FOCUSABLE, Attribute.FOCUSED, Attribute.LONG_CLICKABLE, Attribute.PASSWORD,
+            Attribute.SCROLLABLE, Attribute.SELECTED, Attribute.DISPLAYED
+    };
+    private static final Set<Attribute> CONTAINER_ATTRIBUTES =
+            Collections.unmodifiableSet(EnumSet.of(Attribute.INDEX, Attribute.CLASS));
+    private static final Set<Attribute> ALL_ATTRIBUTES = Collections.unmodifiableSet(
+            EnumSet.copyOf(Arrays.asList(UiElementSnapshot.SUPPORTED_ATTRIBUTES)));
+
+    private final int size;
+    private final AccessibilityNodeInfo[] nodes;
+    private final int[] childOffsets;
+    private final int[] childPositions;
+    private final int[] indexes;
+    // left, top, right and bottom coordinates of each element
+    private final int[] bounds;
+    private final int[] selectionStarts;
+    private final int[] selectionEnds;
+    private final BitSet hasSelection;
+    private final BitSet[] flags;
+    private final String[] classNames;
+    private final String[] packageNames;
+    private final String[] texts;
+    private final String[] originalTexts;
+    private final String[] contentDescriptions;
+    private final String[] resourceIds;
+    private final byte[] attributeSetIds;
+    private final List<Set<Attribute>> attributeSets;
+    private final CompactUiElement[] elements;
+
+    private CompactUiSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.nodes = Arrays.copyOf(builder.nodes, size);
+        this.indexes = Arrays.copyOf(builder.indexes, size);
+        this.bounds = Arrays.copyOf(builder.bounds, size * 4);
+        this.selectionStarts = Arrays.copyOf(builder.selectionStarts, size);
+        this.selectionEnds = Arrays.copyOf(builder.selectionEnds, size);
+        this.hasSelection = builder.hasSelection;
+        this.flags = builder.flags;
+        this.classNames = Arrays.copyOf(builder.classNames, size);
+        this.packageNames = Arrays.copyOf(builder.packageNames, size);
+        this.texts = Arrays.copyOf(builder.texts, size);
+        this.originalTexts = Arrays.copyOf(builder.originalTexts, size);
+        this.contentDescriptions = Arrays.copyOf(builder.contentDescriptions, size);
+        this.resourceIds = Arrays.copyOf(builder.resourceIds, size);
+        this.attributeSetIds = Arrays.copyOf(builder.attributeSetIds, size);
+        this.attributeSets = builder.attributeSets;
+        this.elements = new CompactUiElement[size];
+
+        // Siblings follow each other in the depth-first order, so it is enough
+        // to group positions by their parents to get the ordered children table
+        this.childOffsets = new int[size + 1];
+        for (int pos = 0; pos < size; ++pos) {
+            int parent = builder.parents[pos];
+            if (parent >= 0) {
+                ++childOffsets[parent + 1];
+            }
+        }
+        for (int pos = 0; pos < size; ++pos) {
+            childOffsets[pos + 1] += childOffsets[pos];
+        }
+        this.childPositions = new int[childOffsets[size]];
+        int[] cursors = Arrays.copyOf(childOffsets, size);
+        for (int pos = 0; pos < size; ++pos) {
+            int parent = builder.parents[pos];
+            if (parent >= 0) {
+                childPositions[cursors[parent]++] = pos;
+            }
+        }
+    }
+
+    public static CompactUiElement take(AccessibilityNodeInfo[] roots, List<CharSequence> toastMSGs,
+                                        @Nullable Set<Attribute> includedAttributes) {
+        Builder builder = new Builder(includedAttributes);
+        int container = builder.addContainer();
+        for (int i = 0; i < roots.length; ++i) {
+            builder.addSubtree(roots[i], i, 1, container, builder.createBoundsScope(roots[i]));
+        }
+        int index = roots.length;
+        for (CharSequence toastMSG : toastMSGs) {
+            Logger.info(String.format("Adding toast message to root: %s", toastMSG));
+            builder.addToastMsg(toastMSG, index++, container);
+        }
+        return new CompactUiSnapshot(builder).getElement(container);
+    }
+
+    public static CompactUiElement take(AccessibilityNodeInfo rootElement,
+                                        @Nullable Set<Attribute> includedAttributes) {
+        Builder builder = new Builder(includedAttributes);
+        int root = builder.addSubtree(rootElement, AxNodeInfoHelper.calculateIndex(rootElement),
+                0, -1, builder.createBoundsScope(rootElement));
+        return new CompactUiSnapshot(builder).getElement(root);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    CompactUiElement getElement(int pos) {
+        // Views are stateless, so it does not matter if two threads create the same one
+        CompactUiElement result = elements[pos];
+        if (result == null) {
+            result = new CompactUiElement(this, pos, nodes[pos]);
+            elements[pos] = result;
+        }
+        return result;
+    }
+
+    int getChildrenCount(int pos) {
+        return childOffsets[pos + 1] - childOffsets[pos];
+    }
+
+    int getChildPosition(int pos, int childIdx) {
+        return childPositions[childOffsets[pos] + childIdx];
+    }
+
+    Set<Attribute> getAttributeSet(int pos) {
+        return attributeSets.get(attributeSetIds[pos]);
+    }
+
+    boolean hasValue(int pos, Attribute attr) {
+        if (!getAttributeSet(pos).contains(attr)) {
+            return false;
+        }
+        switch (attr) {
+            case CLASS:
+                return classNames[pos] != null;
+            case PACKAGE:
+                return packageNames[pos] != null;
+            case TEXT:
+                return texts[pos] != null;
+            case ORIGINAL_TEXT:
+                return originalTexts[pos] != null;
+            case CONTENT_DESC:
+                return contentDescriptions[pos] != null;
+            case RESOURCE_ID:
+                return resourceIds[pos] != null;
+            case SELECTION_START:
+            case SELECTION_END:
+                return hasSelection.get(pos);
+            case INDEX:
+            case BOUNDS:
+                return true;
+            default:
+                return getFlagIndex(attr) >= 0;
+        }
+    }
+
+    @Nullable
+    Object getValue(int pos, Attribute attr) {
+        if (!getAttributeSet(pos).contains(attr)) {
+            return null;
+        }
+        switch (attr) {
+            case INDEX:
+                return indexes[pos];
+            case CLASS:
+                return classNames[pos];
+            case PACKAGE:
+                return packageNames[pos];
+            case TEXT:
+                return texts[pos];
+            case ORIGINAL_TEXT:
+                return originalTexts[pos];
+            case CONTENT_DESC:
+                return contentDescriptions[pos];
+            case RESOURCE_ID:
+                return resourceIds[pos];
+            case SELECTION_START:
+                return hasSelection.get(pos) ? selectionStarts[pos] : null;
+            case SELECTION_END:
+                return hasSelection.get(pos) ? selectionEnds[pos] : null;
+            case BOUNDS: {
+                int offset = pos * 4;
+                // The same format as Rect.toShortString has
+                return "[" + bounds[offset] + "," + bounds[offset + 1] + "]["
+                        + bounds[offset + 2] + "," + bounds[offset + 3] + "]";
+            }
+            default:
+                int flagIdx = getFlagIndex(attr);
+                return flagIdx < 0 ? null : flags[flagIdx].get(pos);
+        }
+    }
+
+    private static int getFlagIndex(Attribute attr) {
+        for (int i = 0; i < FLAG_ATTRIBUTES.length; ++i) {
+            if (FLAG_ATTRIBUTES[i] == attr) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class Builder {
+        private final Set<Attribute> includedAttributes;
+        private final boolean areInvisibleElementsAllowed;
+        private final SnapshotStringPool stringPool = SnapshotStringPool.getInstance();
+        private final List<Set<Attribute>> attributeSets = new ArrayList<>();
+        private final BitSet hasSelection = new BitSet();
+        private final BitSet[] flags = new BitSet[FLAG_ATTRIBUTES.length];
+        private int size;
+        private AccessibilityNodeInfo[] nodes = new AccessibilityNodeInfo[INITIAL_CAPACITY];
+        private int[] parents = new int[INITIAL_CAPACITY];
+        private int[] indexes = new int[INITIAL_CAPACITY];
+        private int[] bounds = new int[INITIAL_CAPACITY * 4];
+        private int[] selectionStarts = new int[INITIAL_CAPACITY];
+        private int[] selectionEnds = new int[INITIAL_CAPACITY];
+        private String[] classNames = new String[INITIAL_CAPACITY];
+        private String[] packageNames = new String[INITIAL_CAPACITY];
+        private String[] texts = new String[INITIAL_CAPACITY];
+        private String[] originalTexts = new String[INITIAL_CAPACITY];
+        private String[] contentDescriptions = new String[INITIAL_CAPACITY];
+        private String[] resourceIds = new String[INITIAL_CAPACITY];
+        private byte[] attributeSetIds = new byte[INITIAL_CAPACITY];
+
+        private final byte containerAttributesId;
+        private final byte includedAttributesId;
+        private final byte allAttributesId;
+
+        Builder(@Nullable Set<Attribute> includedAttributes) {
+            if (includedAttributes == null) {
+                this.includedAttributes = ALL_ATTRIBUTES;
+            } else {
+                // Class name attribute should always be there
+                Set<Attribute> attributes = EnumSet.of(Attribute.CLASS);
+                attributes.addAll(includedAttributes);
+                this.includedAttributes = Collections.unmodifiableSet(attributes);
+            }
+            areInvisibleElementsAllowed = AppiumUIA2Driver.getInstance().getSessionOrThrow()
+                    .getCapability(ALLOW_INVISIBLE_ELEMENTS.toString(), false);
+            for (int i = 0; i < flags.length; ++i) {
+                flags[i] = new BitSet();
+            }
+            containerAttributesId = addAttributeSet(CONTAINER_ATTRIBUTES);
+            includedAttributesId = addAttributeSet(this.includedAttributes);
+            allAttributesId = addAttributeSet(ALL_ATTRIBUTES);
+        }
+
+        private byte addAttributeSet(Set<Attribute> attributes) {
+            attributeSets.add(attributes);
+            return (byte) (attributeSets.size() - 1);
+        }
+
+        private void ensureCapacity() {
+            if (size < nodes.length) {
+                return;
+            }
+            int capacity = nodes.length * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            indexes = Arrays.copyOf(indexes, capacity);
+            bounds = Arrays.copyOf(bounds, capacity * 4);
+            selectionStarts = Arrays.copyOf(selectionStarts, capacity);
+            selectionEnds = Arrays.copyOf(selectionEnds, capacity);
+            classNames = Arrays.copyOf(classNames, capacity);
+            packageNames = Arrays.copyOf(packageNames, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            originalTexts = Arrays.copyOf(originalTexts, capacity);
+            contentDescriptions = Arrays.copyOf(contentDescriptions, capacity);
+            resourceIds = Arrays.copyOf(resourceIds, capacity);
+            attributeSetIds = Arrays.copyOf(attributeSetIds, capacity);
+        }
+
+        private int add(@Nullable AccessibilityNodeInfo node, int index, int parent,
+                        byte attributeSetId) {
+            ensureCapacity();
+            int pos = size++;
+            nodes[pos] = node;
+            parents[pos] = parent;
+            indexes[pos] = index;
+            attributeSetIds[pos] = attributeSetId;
+            return pos;
+        }
+
+        int addContainer() {
+            int pos = add(null, 0, -1, containerAttributesId);
+            classNames[pos] = ROOT_NODE_NAME;
+            return pos;
+        }
+
+        void addToastMsg(CharSequence tokenMSG, int index, int parent) {
+            AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain();
+            node.setText(tokenMSG);
+            node.setClassName(Toast.class.getName());
+            node.setPackageName("com.android.settings");
+            node.setVisibleToUser(true);
+            setField("mSealed", true, node);
+            collectAttributes(node, add(node, index, parent, allAttributesId), ALL_ATTRIBUTES, null);
+        }
+
+        /**
+         * Visible bounds are only calculated if they are going to be included into the snapshot
+         */
+        @Nullable
+        VisibleBoundsScope createBoundsScope(AccessibilityNodeInfo root) {
+            return includedAttributes.contains(Attribute.BOUNDS) ? VisibleBoundsScope.of(root) : null;
+        }
+
+        int addSubtree(AccessibilityNodeInfo node, int index, int depth, int parent,
+                       @Nullable VisibleBoundsScope boundsScope) {
+            int pos = add(node, index, parent, includedAttributesId);
+            collectAttributes(node, pos, includedAttributes, boundsScope);
+
+            final int childCount = node.getChildCount();
+            if (childCount == 0 || depth >= DEFAULT_MAX_DEPTH) {
+                if (depth >= DEFAULT_MAX_DEPTH) {
+                    Logger.info(String.format("Skipping building children of '%s' because the maximum " +
+                            "recursion depth (%s) has been reached", node, DEFAULT_MAX_DEPTH));
+                }
+                return pos;
+            }
+            final VisibleBoundsScope childrenBoundsScope = boundsScope == null
+                    ? null
+                    : boundsScope.forChildrenOf(node);
+            for (int childIdx = 0; childIdx < childCount; ++childIdx) {
+                AccessibilityNodeInfo child = AxNodeFetcher.getChild(node, childIdx);
+                if (child == null) {
+                    Logger.info(String.format("The child node #%s of %s is null", childIdx, node));
+                    continue;
+                }
+
+                // Ignore if the element is not visible on the screen
+                if (areInvisibleElementsAllowed || child.isVisibleToUser()) {
+                    addSubtree(child, childIdx, depth + 1, pos, childrenBoundsScope);
+                }
+            }
+            return pos;
+        }
+
+        private void collectAttributes(AccessibilityNodeInfo node, int pos, Set<Attribute> attributes,
+                                       @Nullable VisibleBoundsScope boundsScope) {
+            if (attributes.contains(Attribute.CLASS)) {
+                classNames[pos] = stringPool.intern(charSequenceToNullableString(node.getClassName()));
+            }
+            if (attributes.contains(Attribute.PACKAGE)) {
+                packageNames[pos] = stringPool.intern(charSequenceToNullableString(node.getPackageName()));
+            }
+            if (attributes.contains(Attribute.RESOURCE_ID)) {
+                resourceIds[pos] = stringPool.intern(node.getViewIdResourceName());
+            }
+            if (attributes.contains(Attribute.CONTENT_DESC)) {
+                contentDescriptions[pos] = charSequenceToNullableString(node.getContentDescription());
+            }
+            if (attributes.contains(Attribute.TEXT)) {
+                texts[pos] = AxNodeInfoHelper.getText(node, true);
+            }
+            if (attributes.contains(Attribute.ORIGINAL_TEXT)) {
+                String originalText = AxNodeInfoHelper.getText(node, false);
+                // Both texts are mostly equal, so there is no need to keep two copies
+                originalTexts[pos] = originalText != null && originalText.equals(texts[pos])
+                        ? texts[pos]
+                        : originalText;
+            }
+            if (attributes.contains(Attribute.SELECTION_START)
+                    || attributes.contains(Attribute.SELECTION_END)) {
+                Range<Integer> selectionRange = AxNodeInfoHelper.getSelectionRange(node);
+                if (selectionRange != null) {
+                    hasSelection.set(pos);
+                    selectionStarts[pos] = selectionRange.getLower();
+                    selectionEnds[pos] = selectionRange.getUpper();
+                }
+            }
+            if (attributes.contains(Attribute.BOUNDS)) {
+                Rect rect = boundsScope == null
+                        ? AxNodeInfoHelper.getBounds(node)
+                        : boundsScope.getBounds(node);
+                int offset = pos * 4;
+                bounds[offset] = rect.left;
+                bounds[offset + 1] = rect.top;
+                bounds[offset + 2] = rect.right;
+                bounds[offset + 3] = rect.bottom;
+            }
+            for (int i = 0; i < FLAG_ATTRIBUTES.length; ++i) {
+                if (attributes.contains(FLAG_ATTRIBUTES[i]) && getFlag(node, FLAG_ATTRIBUTES[i])) {
+                    flags[i].set(pos);
+                }
+            }
+        }
+
+        private static boolean getFlag(AccessibilityNodeInfo node, Attribute attr) {
+            switch (attr) {
+                case CHECKABLE:
+                    return node.isCheckable();
+                case CHECKED:
+                    return node.isChecked();
+                case CLICKABLE:
+                    return node.isClickable();
+                case ENABLED:
+                    return node.isEnabled();
+                case FOCUSABLE:
+                    return node.isFocusable();
+                case FOCUSED:
+                    return node.isFocused();
+                case LONG_CLICKABLE:
+                    return node.isLongClickable();
+                case PASSWORD:
+                    return node.isPassword();
+                case SCROLLABLE:
+                    return node.isScrollable();
+                case SELECTED:
+                    return node.isSelected();
+                case DISPLAYED:
+                    return node.isVisibleToUser();
+                default:
+                    return false;
+            }
+        }
+    }
+}
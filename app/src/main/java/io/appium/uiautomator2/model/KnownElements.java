@@ -19,8 +19,8 @@ package io.appium.uiautomator2.model;
 import androidx.annotation.Nullable;
 import androidx.test.uiautomator.UiSelector;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.appium.uiautomator2.common.exceptions.StaleElementReferenceException;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
@@ -32,8 +32,12 @@ import static io.appium.uiautomator2.utils.ElementLocationHelpers.getXPathNodeMa
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.rewriteIdLocator;
 import static io.appium.uiautomator2.utils.ElementLocationHelpers.toSelector;
 
+/**
+ * The cache of elements, which have been found in the current session.
+ * It is safe to access the cache from multiple threads.
+ */
 public class KnownElements {
-    private final Map<String, AndroidElement> cache = new HashMap<>();
+    private final Map<String, AndroidElement> cache = new ConcurrentHashMap<>();
 
     KnownElements() {
     }
@@ -126,7 +130,7 @@ public class KnownElements {
         return cache.get(id);
     }
 
-    public String add(AndroidElement element) {
+    public synchronized String add(AndroidElement element) {
         if (cache.containsValue(element)) {
             return getCacheKey(element);
         }
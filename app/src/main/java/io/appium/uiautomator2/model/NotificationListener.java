@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import io.appium.uiautomator2.core.UiAutomation;
+import io.appium.uiautomator2.core.UiElementSnapshotCache;
 import io.appium.uiautomator2.utils.Logger;
 
 import static android.app.UiAutomation.OnAccessibilityEventListener;
@@ -60,6 +61,8 @@ public class NotificationListener implements OnAccessibilityEventListener {
         }
         Logger.debug("Starting toast notification listener.");
         originalListener = uiAutomation.getOnAccessibilityEventListener();
+        // Events might have been missed while the listener was stopped
+        UiElementSnapshotCache.getInstance().invalidate();
         isListening = true;
         Logger.debug("Original listener: " + originalListener);
         uiAutomation.setOnAccessibilityEventListener(this);
@@ -73,6 +76,7 @@ public class NotificationListener implements OnAccessibilityEventListener {
         Logger.debug("Stopping toast notification listener.");
         isListening = false;
         uiAutomation.setOnAccessibilityEventListener(originalListener);
+        UiElementSnapshotCache.getInstance().invalidate();
     }
 
     @Override
@@ -85,6 +89,10 @@ public class NotificationListener implements OnAccessibilityEventListener {
             }
         }
 
+        if (UiElementSnapshotCache.isEnabled()) {
+            UiElementSnapshotCache.getInstance().onAccessibilityEvent(event);
+        }
+
         if (originalListener != null) {
             originalListener.onAccessibilityEvent(event);
         }
@@ -21,15 +21,22 @@ import androidx.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.appium.uiautomator2.core.SnapshotStringPool;
 
 import static io.appium.uiautomator2.model.settings.Settings.ELEMENT_RESPONSE_ATTRIBUTES;
 import static io.appium.uiautomator2.model.settings.Settings.SHOULD_USE_COMPACT_RESPONSES;
 
 public class Session {
     public static final String NO_ID = "None";
-    private final Map<String, Object> capabilities = new HashMap<>();
+    // Capabilities are read by concurrently executed commands
+    private final Map<String, Object> capabilities = Collections.synchronizedMap(new HashMap<String, Object>());
     private final String sessionId;
     private final KnownElements knownElements = new KnownElements();
+    private final SnapshotStringPool snapshotStringPool = new SnapshotStringPool();
+    private final Lock actionLock = new ReentrantLock();
     private AccessibilityScrollData lastScrollData;
 
     Session(String sessionId, Map<String, Object> capabilities) {
@@ -90,4 +97,15 @@ public class Session {
     public KnownElements getKnownElements() {
         return this.knownElements;
     }
+
+    public SnapshotStringPool getSnapshotStringPool() {
+        return this.snapshotStringPool;
+    }
+
+    /**
+     * @return the lock, which serializes commands changing the state of the device or the session
+     */
+    public Lock getActionLock() {
+        return this.actionLock;
+    }
 }
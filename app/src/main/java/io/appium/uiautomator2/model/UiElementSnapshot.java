@@ -31,8 +31,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+import io.appium.uiautomator2.core.AxNodeFetcher;
 import io.appium.uiautomator2.core.AxNodeInfoHelper;
+import io.appium.uiautomator2.core.SnapshotExecutor;
+import io.appium.uiautomator2.core.SnapshotStringPool;
+import io.appium.uiautomator2.core.VisibleBoundsScope;
 import io.appium.uiautomator2.utils.Attribute;
 import io.appium.uiautomator2.utils.Logger;
 
@@ -51,7 +57,7 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
     // https://github.com/appium/appium/issues/12545
     private final static int DEFAULT_MAX_DEPTH = 70;
     // The same order will be used for node attributes in xml page source
-    private final static Attribute[] SUPPORTED_ATTRIBUTES = new Attribute[]{
+    final static Attribute[] SUPPORTED_ATTRIBUTES = new Attribute[]{
             Attribute.INDEX, Attribute.PACKAGE, Attribute.CLASS, Attribute.TEXT,
             Attribute.ORIGINAL_TEXT, Attribute.CONTENT_DESC, Attribute.RESOURCE_ID,
             Attribute.CHECKABLE, Attribute.CHECKED, Attribute.CLICKABLE, Attribute.ENABLED,
@@ -67,9 +73,17 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
     private final int depth;
     private final int maxDepth;
     private final int index;
+    private boolean hasSkippedChildren;
 
+    /**
+     * @param boundsScope the scope the node belongs to or null if visible bounds of the node
+     *                    should be calculated by climbing its ancestors
+     * @param stringPool  the pool of the current session, which is resolved once per snapshot
+     */
     private UiElementSnapshot(AccessibilityNodeInfo node, int index, int depth, int maxDepth,
-                              @Nullable Set<Attribute> includedAttributes) {
+                              @Nullable Set<Attribute> includedAttributes,
+                              @Nullable VisibleBoundsScope boundsScope,
+                              SnapshotStringPool stringPool) {
         super(checkNotNull(node));
         this.depth = depth;
         this.maxDepth = maxDepth;
@@ -79,17 +93,19 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
             this.includedAttributes.add(Attribute.CLASS);
             this.includedAttributes.addAll(includedAttributes);
         }
-        this.attributes = collectAttributes();
-        this.children = buildChildren(node);
+        this.attributes = collectAttributes(boundsScope, stringPool);
+        this.children = buildChildren(node, boundsScope, stringPool);
     }
 
     private UiElementSnapshot(AccessibilityNodeInfo node, int index, int depth,
-                              @Nullable Set<Attribute> includedAttributes) {
-        this(node, index, depth, DEFAULT_MAX_DEPTH, includedAttributes);
+                              @Nullable Set<Attribute> includedAttributes,
+                              @Nullable VisibleBoundsScope boundsScope,
+                              SnapshotStringPool stringPool) {
+        this(node, index, depth, DEFAULT_MAX_DEPTH, includedAttributes, boundsScope, stringPool);
     }
 
     private UiElementSnapshot(AccessibilityNodeInfo[] childNodes,
-                              @Nullable Set<Attribute> includedAttributes) {
+                              @Nullable final Set<Attribute> includedAttributes) {
         super(null);
         this.depth = 0;
         this.index = 0;
@@ -98,12 +114,30 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
         putAttribute(attribs, Attribute.INDEX, this.index);
         putAttribute(attribs, Attribute.CLASS, ROOT_NODE_NAME);
         this.attributes = Collections.unmodifiableMap(attribs);
-        List<UiElementSnapshot> children = new ArrayList<>(childNodes.length);
+        final SnapshotStringPool stringPool = SnapshotStringPool.getInstance();
+        List<Callable<UiElementSnapshot>> childTasks = new ArrayList<>(childNodes.length);
         for (int childNodeIdx = 0; childNodeIdx < childNodes.length; ++childNodeIdx) {
-            UiElementSnapshot child = new UiElementSnapshot(childNodes[childNodeIdx], childNodeIdx,
-                    this.depth + 1, includedAttributes);
-            children.add(child);
+            final AccessibilityNodeInfo childNode = childNodes[childNodeIdx];
+            final int childIndex = childNodeIdx;
+            childTasks.add(new Callable<UiElementSnapshot>() {
+                @Override
+                public UiElementSnapshot call() {
+                    return new UiElementSnapshot(childNode, childIndex, depth + 1, includedAttributes,
+                            createBoundsScope(childNode, includedAttributes), stringPool);
+                }
+            });
         }
+        this.children = invokeAll(childTasks);
+    }
+
+    private UiElementSnapshot(UiElementSnapshot source, List<UiElementSnapshot> children) {
+        super(source.getNode());
+        this.depth = source.depth;
+        this.index = source.index;
+        this.maxDepth = source.maxDepth;
+        this.hasSkippedChildren = source.hasSkippedChildren;
+        this.includedAttributes.addAll(source.includedAttributes);
+        this.attributes = source.attributes;
         this.children = children;
     }
 
@@ -113,7 +147,20 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
         }
     }
 
-    private @Nullable Object getNodeAttributeValue(Attribute attr) {
+    /**
+     * Visible bounds are only calculated if they are going to be included into the snapshot
+     */
+    @Nullable
+    private static VisibleBoundsScope createBoundsScope(AccessibilityNodeInfo root,
+                                                        @Nullable Set<Attribute> includedAttributes) {
+        return includedAttributes == null || includedAttributes.contains(Attribute.BOUNDS)
+                ? VisibleBoundsScope.of(root)
+                : null;
+    }
+
+    private @Nullable Object getNodeAttributeValue(Attribute attr,
+                                                   @Nullable VisibleBoundsScope boundsScope,
+                                                   SnapshotStringPool stringPool) {
         AccessibilityNodeInfo node = Objects.requireNonNull(getNode());
         switch (attr) {
             case CHECKABLE:
@@ -121,7 +168,7 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
             case CHECKED:
                 return node.isChecked();
             case CLASS:
-                return charSequenceToNullableString(node.getClassName());
+                return stringPool.intern(charSequenceToNullableString(node.getClassName()));
             case CLICKABLE:
                 return node.isClickable();
             case CONTENT_DESC:
@@ -135,11 +182,11 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
             case LONG_CLICKABLE:
                 return node.isLongClickable();
             case PACKAGE:
-                return charSequenceToNullableString(node.getPackageName());
+                return stringPool.intern(charSequenceToNullableString(node.getPackageName()));
             case PASSWORD:
                 return node.isPassword();
             case RESOURCE_ID:
-                return node.getViewIdResourceName();
+                return stringPool.intern(node.getViewIdResourceName());
             case SCROLLABLE:
                 return node.isScrollable();
             case SELECTION_START: {
@@ -157,7 +204,9 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
             case ORIGINAL_TEXT:
                 return AxNodeInfoHelper.getText(node, false);
             case BOUNDS:
-                return AxNodeInfoHelper.getBounds(node).toShortString();
+                return (boundsScope == null
+                        ? AxNodeInfoHelper.getBounds(node)
+                        : boundsScope.getBounds(node)).toShortString();
             case INDEX:
                 return index;
             case DISPLAYED:
@@ -167,42 +216,95 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
         }
     }
 
-    private Map<Attribute, Object> collectAttributes() {
+    private Map<Attribute, Object> collectAttributes(@Nullable VisibleBoundsScope boundsScope,
+                                                     SnapshotStringPool stringPool) {
         Map<Attribute, Object> result = new LinkedHashMap<>();
         for (Attribute attr : SUPPORTED_ATTRIBUTES) {
             if (!includedAttributes.isEmpty() && !includedAttributes.contains(attr)) {
                 continue;
             }
-            putAttribute(result, attr, getNodeAttributeValue(attr));
+            putAttribute(result, attr, getNodeAttributeValue(attr, boundsScope, stringPool));
         }
         return Collections.unmodifiableMap(result);
     }
 
     public static UiElementSnapshot take(AccessibilityNodeInfo[] roots, List<CharSequence> toastMSGs,
                                          @Nullable Set<Attribute> includedAttributes) {
-        UiElementSnapshot uiRoot = new UiElementSnapshot(roots, includedAttributes);
-        for (CharSequence toastMSG : toastMSGs) {
-            Logger.info(String.format("Adding toast message to root: %s", toastMSG));
-            uiRoot.addToastMsg(toastMSG);
-        }
-        return uiRoot;
+        return new UiElementSnapshot(roots, includedAttributes).withToastMessages(toastMSGs);
     }
 
     public static UiElementSnapshot take(AccessibilityNodeInfo rootElement,
                                          @Nullable Set<Attribute> includedAttributes) {
         return new UiElementSnapshot(rootElement, AxNodeInfoHelper.calculateIndex(rootElement), 0,
-                includedAttributes);
+                includedAttributes, createBoundsScope(rootElement, includedAttributes),
+                SnapshotStringPool.getInstance());
     }
 
     public static UiElementSnapshot take(AccessibilityNodeInfo rootElement, int maxDepth,
                                          @Nullable Set<Attribute> includedAttributes) {
         return new UiElementSnapshot(rootElement, AxNodeInfoHelper.calculateIndex(rootElement), 0,
-                maxDepth, includedAttributes);
+                maxDepth, includedAttributes, createBoundsScope(rootElement, includedAttributes),
+                SnapshotStringPool.getInstance());
     }
 
     private static UiElementSnapshot take(AccessibilityNodeInfo rootElement, int index, int depth,
-                                          @Nullable Set<Attribute> includedAttributes) {
-        return new UiElementSnapshot(rootElement, index, depth, includedAttributes);
+                                          @Nullable Set<Attribute> includedAttributes,
+                                          @Nullable VisibleBoundsScope boundsScope,
+                                          SnapshotStringPool stringPool) {
+        return new UiElementSnapshot(rootElement, index, depth, includedAttributes, boundsScope,
+                stringPool);
+    }
+
+    /**
+     * Creates a copy of this snapshot with the given toast messages appended to its children.
+     * The current instance is not modified.
+     *
+     * @param toastMSGs the list of toast messages to add
+     * @return the resulting snapshot or the current instance if the list is empty
+     */
+    public UiElementSnapshot withToastMessages(List<CharSequence> toastMSGs) {
+        if (toastMSGs.isEmpty()) {
+            return this;
+        }
+        UiElementSnapshot result = withChildren(new ArrayList<>(children));
+        for (CharSequence toastMSG : toastMSGs) {
+            Logger.info(String.format("Adding toast message to root: %s", toastMSG));
+            result.addToastMsg(toastMSG);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the node has children, which have not been included into the snapshot
+     * because the maximum depth has been reached
+     */
+    public boolean hasSkippedChildren() {
+        return hasSkippedChildren;
+    }
+
+    /**
+     * Creates a shallow copy of this snapshot, which has the same attributes,
+     * but different children. The current instance is not modified.
+     *
+     * @param children the list of children of the resulting snapshot
+     * @return the resulting snapshot
+     */
+    public UiElementSnapshot withChildren(List<UiElementSnapshot> children) {
+        return new UiElementSnapshot(this, children);
+    }
+
+    /**
+     * Takes a new snapshot of the given node using the same index, depth and the set
+     * of included attributes as the current one has. This allows to update a subtree
+     * of an existing snapshot without retrieving the whole hierarchy again.
+     *
+     * @param node the actual accessibility node, which corresponds to the current snapshot
+     * @return the refreshed snapshot
+     */
+    public UiElementSnapshot rebuild(AccessibilityNodeInfo node) {
+        Set<Attribute> attrs = includedAttributes.isEmpty() ? null : includedAttributes;
+        return new UiElementSnapshot(node, index, depth, maxDepth, attrs,
+                createBoundsScope(node, attrs), SnapshotStringPool.getInstance());
     }
 
     private void addToastMsg(CharSequence tokenMSG) {
@@ -212,32 +314,79 @@ public class UiElementSnapshot extends UiElement<AccessibilityNodeInfo, UiElemen
         node.setPackageName("com.android.settings");
         node.setVisibleToUser(true);
         setField("mSealed", true, node);
-        this.children.add(new UiElementSnapshot(node, this.children.size(), 0, null));
+        this.children.add(new UiElementSnapshot(node, this.children.size(), 0, null, null,
+                SnapshotStringPool.getInstance()));
     }
 
-    private List<UiElementSnapshot> buildChildren(AccessibilityNodeInfo node) {
+    private List<UiElementSnapshot> buildChildren(final AccessibilityNodeInfo node,
+                                                  @Nullable VisibleBoundsScope boundsScope,
+                                                  final SnapshotStringPool stringPool) {
         final int childCount = node.getChildCount();
         if (childCount == 0 || (maxDepth >= 0 && depth >= maxDepth)) {
             if (depth >= maxDepth) {
                 Logger.info(String.format("Skipping building children of '%s' because the maximum " +
                         "recursion depth (%s) has been reached", node, maxDepth));
+                hasSkippedChildren = childCount > 0;
             }
             return Collections.emptyList();
         }
 
-        List<UiElementSnapshot> children = new ArrayList<>(childCount);
-        boolean areInvisibleElementsAllowed = AppiumUIA2Driver.getInstance().getSessionOrThrow()
+        final boolean areInvisibleElementsAllowed = AppiumUIA2Driver.getInstance().getSessionOrThrow()
                 .getCapability(ALLOW_INVISIBLE_ELEMENTS.toString(), false);
+        // An empty set means all attributes are included, while passing it to children
+        // as is would make them only include the class name
+        final Set<Attribute> childrenAttributes = includedAttributes.isEmpty() ? null : includedAttributes;
+        final VisibleBoundsScope childrenBoundsScope = boundsScope == null
+                ? null
+                : boundsScope.forChildrenOf(node);
+        List<Callable<UiElementSnapshot>> childTasks = new ArrayList<>(childCount);
         for (int index = 0; index < childCount; ++index) {
-            AccessibilityNodeInfo child = node.getChild(index);
-            if (child == null) {
-                Logger.info(String.format("The child node #%s of %s is null", index, node));
-                continue;
-            }
+            final int childIndex = index;
+            childTasks.add(new Callable<UiElementSnapshot>() {
+                @Override
+                public UiElementSnapshot call() {
+                    AccessibilityNodeInfo child = AxNodeFetcher.getChild(node, childIndex);
+                    if (child == null) {
+                        Logger.info(String.format("The child node #%s of %s is null", childIndex, node));
+                        return null;
+                    }
+
+                    // Ignore if the element is not visible on the screen
+                    return areInvisibleElementsAllowed || child.isVisibleToUser()
+                            ? take(child, childIndex, depth + 1, childrenAttributes,
+                                    childrenBoundsScope, stringPool)
+                            : null;
+                }
+            });
+        }
+        return invokeAll(childTasks);
+    }
 
-            // Ignore if the element is not visible on the screen
-            if (areInvisibleElementsAllowed || child.isVisibleToUser()) {
-                children.add(take(child, index, depth + 1, includedAttributes));
+    /**
+     * Executes the given tasks, which build child snapshots, and collects non-null results.
+     * Sibling subtrees are built concurrently if the parallel snapshotting is enabled.
+     * The order of children is always preserved.
+     */
+    private static List<UiElementSnapshot> invokeAll(List<Callable<UiElementSnapshot>> childTasks) {
+        List<UiElementSnapshot> results;
+        if (SnapshotExecutor.getInstance().isParallel()) {
+            results = SnapshotExecutor.getInstance().invokeAll(childTasks);
+        } else {
+            results = new ArrayList<>(childTasks.size());
+            for (Callable<UiElementSnapshot> childTask : childTasks) {
+                try {
+                    results.add(childTask.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new UiAutomator2Exception(e);
+                }
+            }
+        }
+        List<UiElementSnapshot> children = new ArrayList<>(results.size());
+        for (UiElementSnapshot child : results) {
+            if (child != null) {
+                children.add(child);
             }
         }
         return children;
@@ -17,7 +17,6 @@
 package io.appium.uiautomator2.model;
 
 import android.graphics.Rect;
-import android.util.Range;
 import android.view.accessibility.AccessibilityNodeInfo;
 
 import androidx.annotation.Nullable;
@@ -33,14 +32,13 @@ import java.util.UUID;
 
 import io.appium.uiautomator2.core.AxNodeInfoHelper;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
-import io.appium.uiautomator2.utils.Attribute;
+import io.appium.uiautomator2.utils.ElementAttributesReader;
 import io.appium.uiautomator2.utils.ElementHelpers;
 import io.appium.uiautomator2.utils.Logger;
 import io.appium.uiautomator2.utils.PositionHelper;
 
 import static io.appium.uiautomator2.core.AxNodeInfoExtractor.toAxNodeInfo;
 import static io.appium.uiautomator2.utils.Device.getAndroidElement;
-import static io.appium.uiautomator2.utils.ElementHelpers.generateNoAttributeException;
 import static io.appium.uiautomator2.utils.StringHelpers.isBlank;
 
 public class UiObject2Element extends BaseElement {
@@ -149,81 +147,7 @@ public class UiObject2Element extends BaseElement {
     @Nullable
     @Override
     public String getAttribute(String attr) throws UiObjectNotFoundException {
-        final Attribute dstAttribute = Attribute.fromString(attr);
-        if (dstAttribute == null) {
-            throw generateNoAttributeException(attr);
-        }
-
-        final Object result;
-        switch (dstAttribute) {
-            case TEXT:
-                result = getText();
-                break;
-            case CONTENT_DESC:
-                result = element.getContentDescription();
-                break;
-            case CLASS:
-                result = element.getClassName();
-                break;
-            case RESOURCE_ID:
-                result = element.getResourceName();
-                break;
-            case CONTENT_SIZE:
-                result = ElementHelpers.getContentSize(this);
-                break;
-            case ENABLED:
-                result = element.isEnabled();
-                break;
-            case CHECKABLE:
-                result = element.isCheckable();
-                break;
-            case CHECKED:
-                result = element.isChecked();
-                break;
-            case CLICKABLE:
-                result = element.isClickable();
-                break;
-            case FOCUSABLE:
-                result = element.isFocusable();
-                break;
-            case FOCUSED:
-                result = element.isFocused();
-                break;
-            case LONG_CLICKABLE:
-                result = element.isLongClickable();
-                break;
-            case SCROLLABLE:
-                result = element.isScrollable();
-                break;
-            case SELECTED:
-                result = element.isSelected();
-                break;
-            case DISPLAYED:
-                result = AxNodeInfoHelper.isVisible(toAxNodeInfo(element));
-                break;
-            case PASSWORD:
-                result = AxNodeInfoHelper.isPassword(toAxNodeInfo(element));
-                break;
-            case BOUNDS:
-                result = getBounds().toShortString();
-                break;
-            case PACKAGE:
-                result = AxNodeInfoHelper.getPackageName(toAxNodeInfo(element));
-                break;
-            case SELECTION_END:
-            case SELECTION_START:
-                Range<Integer> selectionRange = AxNodeInfoHelper.getSelectionRange(toAxNodeInfo(element));
-                result = selectionRange == null
-                        ? null
-                        : (dstAttribute == Attribute.SELECTION_END ? selectionRange.getUpper() : selectionRange.getLower());
-                break;
-            default:
-                throw generateNoAttributeException(attr);
-        }
-        if (result == null) {
-            return null;
-        }
-        return (result instanceof String) ? (String) result : String.valueOf(result);
+        return new ElementAttributesReader(this).read(attr);
     }
 
     @Override
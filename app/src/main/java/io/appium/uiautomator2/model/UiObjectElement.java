@@ -17,12 +17,10 @@
 package io.appium.uiautomator2.model;
 
 import android.graphics.Rect;
-import android.util.Range;
 import android.view.accessibility.AccessibilityNodeInfo;
 
 import androidx.annotation.Nullable;
 import androidx.test.uiautomator.BySelector;
-import androidx.test.uiautomator.Configurator;
 import androidx.test.uiautomator.Direction;
 import androidx.test.uiautomator.UiObject;
 import androidx.test.uiautomator.UiObject2;
@@ -36,16 +34,13 @@ import java.util.regex.Pattern;
 import io.appium.uiautomator2.common.exceptions.ElementNotFoundException;
 import io.appium.uiautomator2.core.AxNodeInfoHelper;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
-import io.appium.uiautomator2.utils.Attribute;
 import io.appium.uiautomator2.utils.Device;
+import io.appium.uiautomator2.utils.ElementAttributesReader;
 import io.appium.uiautomator2.utils.ElementHelpers;
 import io.appium.uiautomator2.utils.Logger;
 import io.appium.uiautomator2.utils.PositionHelper;
 
 import static io.appium.uiautomator2.core.AxNodeInfoExtractor.toAxNodeInfo;
-import static io.appium.uiautomator2.utils.ElementHelpers.generateNoAttributeException;
-import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
-import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
 import static io.appium.uiautomator2.utils.StringHelpers.isBlank;
 
 public class UiObjectElement extends BaseElement {
@@ -155,81 +150,7 @@ public class UiObjectElement extends BaseElement {
     @Nullable
     @Override
     public String getAttribute(String attr) throws UiObjectNotFoundException {
-        final Attribute dstAttribute = Attribute.fromString(attr);
-        if (dstAttribute == null) {
-            throw generateNoAttributeException(attr);
-        }
-
-        final Object result;
-        switch (dstAttribute) {
-            case TEXT:
-                result = getText();
-                break;
-            case CONTENT_DESC:
-                result = element.getContentDescription();
-                break;
-            case CLASS:
-                result = element.getClassName();
-                break;
-            case RESOURCE_ID:
-                result = getResourceId();
-                break;
-            case CONTENT_SIZE:
-                result = ElementHelpers.getContentSize(this);
-                break;
-            case ENABLED:
-                result = element.isEnabled();
-                break;
-            case CHECKABLE:
-                result = element.isCheckable();
-                break;
-            case CHECKED:
-                result = element.isChecked();
-                break;
-            case CLICKABLE:
-                result = element.isClickable();
-                break;
-            case FOCUSABLE:
-                result = element.isFocusable();
-                break;
-            case FOCUSED:
-                result = element.isFocused();
-                break;
-            case LONG_CLICKABLE:
-                result = element.isLongClickable();
-                break;
-            case SCROLLABLE:
-                result = element.isScrollable();
-                break;
-            case SELECTED:
-                result = element.isSelected();
-                break;
-            case DISPLAYED:
-                result = element.exists() && AxNodeInfoHelper.isVisible(toAxNodeInfo(element));
-                break;
-            case PASSWORD:
-                result = AxNodeInfoHelper.isPassword(toAxNodeInfo(element));
-                break;
-            case BOUNDS:
-                result = getBounds().toShortString();
-                break;
-            case PACKAGE: {
-                result = AxNodeInfoHelper.getPackageName(toAxNodeInfo(element));
-                break;
-            }
-            case SELECTION_END:
-            case SELECTION_START:
-                Range<Integer> selectionRange = AxNodeInfoHelper.getSelectionRange(toAxNodeInfo(element));
-                result = selectionRange == null ? null
-                        : (dstAttribute == Attribute.SELECTION_END ? selectionRange.getUpper() : selectionRange.getLower());
-                break;
-            default:
-                throw generateNoAttributeException(attr);
-        }
-        if (result == null) {
-            return null;
-        }
-        return (result instanceof String) ? (String) result : String.valueOf(result);
+        return new ElementAttributesReader(this).read(attr);
     }
 
     @Override
@@ -391,34 +312,6 @@ public class UiObjectElement extends BaseElement {
         return PositionHelper.getAbsolutePosition(new Point(bounds.left, bounds.top), bounds, offset, false);
     }
 
-    public String getResourceId() {
-        String resourceId = "";
-
-        try {
-            /*
-             * Unfortunately UiObject does not implement a getResourceId method.
-             * There is currently no way to determine the resource-id of a given
-             * element represented by UiObject. Until this support is added to
-             * UiAutomater, we try to match the implementation pattern that is
-             * already used by UiObject for getting attributes using reflection.
-             * The returned string matches exactly what is displayed in the
-             * UiAutomater inspector.
-             */
-            AccessibilityNodeInfo node = (AccessibilityNodeInfo) invoke(getMethod(element.getClass(), "findAccessibilityNodeInfo", long.class),
-                    element, Configurator.getInstance().getWaitForSelectorTimeout());
-
-            if (node == null) {
-                throw new UiObjectNotFoundException(element.getSelector().toString());
-            }
-
-            resourceId = node.getViewIdResourceName();
-        } catch (final Exception e) {
-            Logger.error("Exception: " + e + " (" + e.getMessage() + ")");
-        }
-
-        return resourceId;
-    }
-
     @Override
     public boolean dragTo(final int destX, final int destY, final int steps) throws UiObjectNotFoundException {
         Point coords = new Point(destX, destY);
@@ -22,20 +22,52 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.appium.uiautomator2.model.RequiredField;
 
 import static io.appium.uiautomator2.utils.StringHelpers.isBlank;
 
 public abstract class BaseModel {
-    private List<Field> getProperties() {
-        List<Field> result = new ArrayList<>();
-        Collections.addAll(result, getClass().getDeclaredFields());
+    // Field metadata is immutable, so it is only collected once per model class
+    private static final Map<Class<?>, List<Property>> PROPERTIES = new ConcurrentHashMap<>();
+
+    private static class Property {
+        final Field field;
+        final String jsonName;
+        final boolean isRequired;
+
+        Property(Field field) {
+            this.field = field;
+            field.setAccessible(true);
+            String jsonFieldName = field.getName();
+            SerializedName serializedNameAnnotation = field.getAnnotation(SerializedName.class);
+            if (serializedNameAnnotation != null && !isBlank(serializedNameAnnotation.value())) {
+                jsonFieldName = serializedNameAnnotation.value();
+            }
+            this.jsonName = jsonFieldName;
+            this.isRequired = field.getAnnotation(RequiredField.class) != null;
+        }
+    }
+
+    private List<Property> getProperties() {
+        List<Property> result = PROPERTIES.get(getClass());
+        if (result != null) {
+            return result;
+        }
+        List<Field> fields = new ArrayList<>();
+        Collections.addAll(fields, getClass().getDeclaredFields());
         Class<?> superclass = getClass().getSuperclass();
         while (superclass != null && superclass != BaseModel.class) {
-            Collections.addAll(result, superclass.getDeclaredFields());
+            Collections.addAll(fields, superclass.getDeclaredFields());
             superclass = superclass.getSuperclass();
         }
+        result = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            result.add(new Property(field));
+        }
+        PROPERTIES.put(getClass(), result);
         return result;
     }
 
@@ -50,21 +82,14 @@ public abstract class BaseModel {
     }
 
     public BaseModel validate() {
-        for (Field f : getProperties()) {
-            String jsonFieldName = f.getName();
-            SerializedName serializedNameAnnotation = f.getAnnotation(SerializedName.class);
-            if (serializedNameAnnotation != null && !isBlank(serializedNameAnnotation.value())) {
-                jsonFieldName = serializedNameAnnotation.value();
-            }
-
+        for (Property property : getProperties()) {
             Object fieldValue;
             try {
-                f.setAccessible(true);
-                fieldValue = f.get(this);
-                if (fieldValue == null && f.getAnnotation(RequiredField.class) != null) {
+                fieldValue = property.field.get(this);
+                if (fieldValue == null && property.isRequired) {
                     throw new IllegalArgumentException(
                             String.format("%s: The mandatory field '%s' is not present in JSON",
-                                    getClass().getSimpleName(), jsonFieldName));
+                                    getClass().getSimpleName(), property.jsonName));
                 }
             } catch (IllegalAccessException ign) {
                 continue;
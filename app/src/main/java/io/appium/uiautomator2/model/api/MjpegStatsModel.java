@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.api;
+
+public class MjpegStatsModel extends BaseModel {
+    public Integer clientsCount;
+    public Long capturedFramesCount;
+    public Long skippedFramesCount;
+    public Long encodedFramesCount;
+    public Long dirtyRegionsCount;
+    public Long sentFramesCount;
+    public Long droppedFramesCount;
+    public Long sentBytesCount;
+    public Long lastEncodeTimeMs;
+    public Double averageEncodeTimeMs;
+    public Long frameCacheHitsCount;
+    public Long frameCacheMissesCount;
+
+    public MjpegStatsModel() {}
+}
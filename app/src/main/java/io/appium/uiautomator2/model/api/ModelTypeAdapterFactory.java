@@ -0,0 +1,418 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.appium.uiautomator2.model.api.server.ResponseModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CActionsModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CGestureModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CItemModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CItemParametersModel;
+
+import static io.appium.uiautomator2.utils.w3c.ElementConstants.JWP_ELEMENT_ID_KEY_NAME;
+import static io.appium.uiautomator2.utils.w3c.ElementConstants.W3C_ELEMENT_ID_KEY_NAME;
+
+/**
+ * Hand-written type adapters for models, which are (de)serialized on almost every request.
+ * They produce the same JSON as the default reflective adapters, but do not need
+ * to look up fields and their annotations. Values of nested types are delegated
+ * to the adapters of the given Gson instance, so their conversion rules stay the same.
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == FindElementModel.class) {
+            return (TypeAdapter<T>) new FindElementModelAdapter(gson);
+        }
+        if (rawType == ElementModel.class) {
+            return (TypeAdapter<T>) new ElementModelAdapter(gson);
+        }
+        if (rawType == ResponseModel.class) {
+            return (TypeAdapter<T>) new ResponseModelAdapter(gson);
+        }
+        if (rawType == W3CActionsModel.class) {
+            return (TypeAdapter<T>) new W3CActionsModelAdapter(gson);
+        }
+        if (rawType == W3CItemModel.class) {
+            return (TypeAdapter<T>) new W3CItemModelAdapter(gson);
+        }
+        if (rawType == W3CGestureModel.class) {
+            return (TypeAdapter<T>) new W3CGestureModelAdapter(gson);
+        }
+        return null;
+    }
+
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static class FindElementModelAdapter extends TypeAdapter<FindElementModel> {
+        private final TypeAdapter<String> stringAdapter;
+
+        FindElementModelAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, FindElementModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("strategy");
+            stringAdapter.write(out, value.strategy);
+            out.name("selector");
+            stringAdapter.write(out, value.selector);
+            out.name("context");
+            stringAdapter.write(out, value.context);
+            out.endObject();
+        }
+
+        @Override
+        public FindElementModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            FindElementModel result = new FindElementModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "strategy":
+                        result.strategy = stringAdapter.read(in);
+                        break;
+                    case "selector":
+                        result.selector = stringAdapter.read(in);
+                        break;
+                    case "context":
+                        result.context = stringAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class ElementModelAdapter extends TypeAdapter<ElementModel> {
+        private final TypeAdapter<String> stringAdapter;
+
+        ElementModelAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, ElementModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name(JWP_ELEMENT_ID_KEY_NAME);
+            stringAdapter.write(out, value.jwpElementId);
+            out.name(W3C_ELEMENT_ID_KEY_NAME);
+            stringAdapter.write(out, value.w3cElementId);
+            out.endObject();
+        }
+
+        @Override
+        public ElementModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            ElementModel result = new ElementModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (JWP_ELEMENT_ID_KEY_NAME.equals(name) || "element".equals(name)) {
+                    result.jwpElementId = stringAdapter.read(in);
+                } else if (W3C_ELEMENT_ID_KEY_NAME.equals(name)) {
+                    result.w3cElementId = stringAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class ResponseModelAdapter extends TypeAdapter<ResponseModel> {
+        private final Gson gson;
+        private final TypeAdapter<Object> objectAdapter;
+        private final TypeAdapter<String> stringAdapter;
+
+        ResponseModelAdapter(Gson gson) {
+            this.gson = gson;
+            objectAdapter = gson.getAdapter(Object.class);
+            stringAdapter = gson.getAdapter(String.class);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(JsonWriter out, ResponseModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("value");
+            if (value.value == null) {
+                out.nullValue();
+            } else {
+                // The same runtime type resolution the reflective adapter does for Object fields
+                ((TypeAdapter<Object>) gson.getAdapter(value.value.getClass())).write(out, value.value);
+            }
+            out.name("sessionId");
+            stringAdapter.write(out, value.sessionId);
+            out.endObject();
+        }
+
+        @Override
+        public ResponseModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            ResponseModel result = new ResponseModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "value":
+                        result.value = objectAdapter.read(in);
+                        break;
+                    case "sessionId":
+                        result.sessionId = stringAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class W3CActionsModelAdapter extends TypeAdapter<W3CActionsModel> {
+        private final TypeAdapter<List<W3CItemModel>> itemsAdapter;
+
+        W3CActionsModelAdapter(Gson gson) {
+            itemsAdapter = gson.getAdapter(new TypeToken<List<W3CItemModel>>() {});
+        }
+
+        @Override
+        public void write(JsonWriter out, W3CActionsModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("actions");
+            itemsAdapter.write(out, value.actions);
+            out.endObject();
+        }
+
+        @Override
+        public W3CActionsModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            W3CActionsModel result = new W3CActionsModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("actions".equals(in.nextName())) {
+                    result.actions = itemsAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class W3CItemModelAdapter extends TypeAdapter<W3CItemModel> {
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<W3CItemParametersModel> parametersAdapter;
+        private final TypeAdapter<List<W3CGestureModel>> gesturesAdapter;
+
+        W3CItemModelAdapter(Gson gson) {
+            stringAdapter = gson.getAdapter(String.class);
+            parametersAdapter = gson.getAdapter(W3CItemParametersModel.class);
+            gesturesAdapter = gson.getAdapter(new TypeToken<List<W3CGestureModel>>() {});
+        }
+
+        @Override
+        public void write(JsonWriter out, W3CItemModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type");
+            stringAdapter.write(out, value.type);
+            out.name("id");
+            stringAdapter.write(out, value.id);
+            out.name("parameters");
+            parametersAdapter.write(out, value.parameters);
+            out.name("actions");
+            gesturesAdapter.write(out, value.actions);
+            out.endObject();
+        }
+
+        @Override
+        public W3CItemModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            W3CItemModel result = new W3CItemModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":
+                        result.type = stringAdapter.read(in);
+                        break;
+                    case "id":
+                        result.id = stringAdapter.read(in);
+                        break;
+                    case "parameters":
+                        result.parameters = parametersAdapter.read(in);
+                        break;
+                    case "actions":
+                        result.actions = gesturesAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class W3CGestureModelAdapter extends TypeAdapter<W3CGestureModel> {
+        private final Gson gson;
+        private final TypeAdapter<String> stringAdapter;
+        private final TypeAdapter<Long> longAdapter;
+        private final TypeAdapter<Double> doubleAdapter;
+        private final TypeAdapter<Integer> integerAdapter;
+        private final TypeAdapter<Object> objectAdapter;
+
+        W3CGestureModelAdapter(Gson gson) {
+            this.gson = gson;
+            stringAdapter = gson.getAdapter(String.class);
+            longAdapter = gson.getAdapter(Long.class);
+            doubleAdapter = gson.getAdapter(Double.class);
+            integerAdapter = gson.getAdapter(Integer.class);
+            objectAdapter = gson.getAdapter(Object.class);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(JsonWriter out, W3CGestureModel value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type");
+            stringAdapter.write(out, value.type);
+            out.name("duration");
+            longAdapter.write(out, value.duration);
+            out.name("origin");
+            if (value.origin == null) {
+                out.nullValue();
+            } else {
+                ((TypeAdapter<Object>) gson.getAdapter(value.origin.getClass())).write(out, value.origin);
+            }
+            out.name("x");
+            doubleAdapter.write(out, value.x);
+            out.name("y");
+            doubleAdapter.write(out, value.y);
+            out.name("button");
+            integerAdapter.write(out, value.button);
+            out.name("value");
+            stringAdapter.write(out, value.value);
+            out.name("size");
+            doubleAdapter.write(out, value.size);
+            out.name("pressure");
+            doubleAdapter.write(out, value.pressure);
+            out.endObject();
+        }
+
+        @Override
+        public W3CGestureModel read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            W3CGestureModel result = new W3CGestureModel();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":
+                        result.type = stringAdapter.read(in);
+                        break;
+                    case "duration":
+                        result.duration = longAdapter.read(in);
+                        break;
+                    case "origin":
+                        result.origin = objectAdapter.read(in);
+                        break;
+                    case "x":
+                        result.x = doubleAdapter.read(in);
+                        break;
+                    case "y":
+                        result.y = doubleAdapter.read(in);
+                        break;
+                    case "button":
+                        result.button = integerAdapter.read(in);
+                        break;
+                    case "value":
+                        result.value = stringAdapter.read(in);
+                        break;
+                    case "size":
+                        result.size = doubleAdapter.read(in);
+                        break;
+                    case "pressure":
+                        result.pressure = doubleAdapter.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+}
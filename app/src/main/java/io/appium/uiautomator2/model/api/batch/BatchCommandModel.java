@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model.api.batch;
+
+import io.appium.uiautomator2.model.RequiredField;
+import io.appium.uiautomator2.model.api.BaseModel;
+
+public class BatchCommandModel extends BaseModel {
+    @RequiredField
+    public String method;
+    @RequiredField
+    public String uri;
+    // Either a JSON object or a raw string
+    public Object body;
+
+    public BatchCommandModel() {}
+
+    public BatchCommandModel(String method, String uri, Object body) {
+        this.method = method;
+        this.uri = uri;
+        this.body = body;
+    }
+}
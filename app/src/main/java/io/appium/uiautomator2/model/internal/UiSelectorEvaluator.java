@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.internal;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+import androidx.test.uiautomator.UiSelector;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+import io.appium.uiautomator2.core.AxNodeFetcher;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
+
+/**
+ * Finds all the nodes a {@link UiSelector} matches with a single walk over the accessibility
+ * hierarchy. The result is the same as resolving {@code selector.instance(0)},
+ * {@code selector.instance(1)}, etc. with QueryController until the first missing instance,
+ * although QueryController walks the hierarchy from its root on each lookup.
+ * Only regular selectors, which might be chained with child and parent selectors,
+ * are supported. Pattern and container selectors, which are created by UiCollection and
+ * UiScrollable, must still be resolved one instance at a time.
+ */
+public class UiSelectorEvaluator {
+    private static boolean isInitialized = false;
+    private static Method isMatchForMethod;
+    private static Method isLeafMethod;
+    private static Method hasChildSelectorMethod;
+    private static Method hasParentSelectorMethod;
+    private static Method hasContainerSelectorMethod;
+    private static Method hasPatternSelectorMethod;
+    private static Method getChildSelectorMethod;
+    private static Method getParentSelectorMethod;
+    private static Method getInstanceMethod;
+
+    private static class Node {
+        final AccessibilityNodeInfo info;
+        // The index of the node among its parent children
+        final int index;
+        @Nullable
+        final Node parent;
+        // The position of the node in the document order
+        final int position;
+        final List<Node> children = new ArrayList<>();
+        // The position following the last descendant of the node
+        int end;
+
+        Node(AccessibilityNodeInfo info, int index, @Nullable Node parent, int position) {
+            this.info = info;
+            this.index = index;
+            this.parent = parent;
+            this.position = position;
+        }
+    }
+
+    private static synchronized boolean isAvailable() {
+        if (!isInitialized) {
+            isInitialized = true;
+            try {
+                isMatchForMethod = getMethod(UiSelector.class, "isMatchFor",
+                        AccessibilityNodeInfo.class, int.class);
+                isLeafMethod = getMethod(UiSelector.class, "isLeaf");
+                hasChildSelectorMethod = getMethod(UiSelector.class, "hasChildSelector");
+                hasParentSelectorMethod = getMethod(UiSelector.class, "hasParentSelector");
+                hasContainerSelectorMethod = getMethod(UiSelector.class, "hasContainerSelector");
+                hasPatternSelectorMethod = getMethod(UiSelector.class, "hasPatternSelector");
+                getChildSelectorMethod = getMethod(UiSelector.class, "getChildSelector");
+                getParentSelectorMethod = getMethod(UiSelector.class, "getParentSelector");
+                getInstanceMethod = getMethod(UiSelector.class, "getInstance");
+            } catch (UiAutomator2Exception e) {
+                Logger.info("Cannot access UiSelector internals. " +
+                        "Selector instances will be resolved one by one", e);
+                isMatchForMethod = null;
+            }
+        }
+        return isMatchForMethod != null;
+    }
+
+    /**
+     * @param selector the selector to check
+     * @return true if all the matches of the given selector could be found at once
+     */
+    public static boolean isSupported(UiSelector selector) {
+        if (!isAvailable()) {
+            return false;
+        }
+        UiSelector current = selector;
+        while (current != null) {
+            if (isTrue(hasContainerSelectorMethod, current) || isTrue(hasPatternSelectorMethod, current)) {
+                return false;
+            }
+            // Instances of nested selectors are counted through the whole search
+            if (current != selector && (Integer) invoke(getInstanceMethod, current) != 0) {
+                return false;
+            }
+            current = getNextSelector(current);
+        }
+        return true;
+    }
+
+    /**
+     * Finds all the nodes the given selector matches. The selector must be supported.
+     *
+     * @param selector the selector to resolve. Its instance, if set, is ignored
+     * @param root     the root of the active window
+     * @return the list of nodes, which subsequent selector instances are resolved to
+     */
+    public List<AccessibilityNodeInfo> findAll(UiSelector selector, AccessibilityNodeInfo root) {
+        if (!isAvailable()) {
+            throw new UiAutomator2Exception("UiSelector internals are not accessible");
+        }
+        List<Node> nodes = new ArrayList<>();
+        fetch(root, 0, null, nodes);
+
+        // The first selector in the chain must match in order to try the next ones
+        UiSelector firstSelector = selector.instance(0);
+        List<Node> candidates = new ArrayList<>();
+        for (Node node : nodes) {
+            if (isMatchFor(firstSelector, node)) {
+                candidates.add(node);
+            }
+        }
+
+        // The instance N is resolved starting from the candidate N. If the rest of the chain
+        // does not match there, then the search continues after the subtree of the candidate
+        // the same way as if the instance of the next candidate was requested
+        Node[] matches = new Node[candidates.size() + 1];
+        for (int i = candidates.size() - 1; i >= 0; --i) {
+            Node candidate = candidates.get(i);
+            Node match = findAfterMatch(firstSelector, candidate);
+            matches[i] = match == null
+                    ? matches[findFirstCandidateAt(candidates, i + 1, candidate.end)]
+                    : match;
+        }
+
+        List<AccessibilityNodeInfo> result = new ArrayList<>();
+        for (int i = 0; matches[i] != null; ++i) {
+            result.add(matches[i].info);
+        }
+        return result;
+    }
+
+    protected int getChildCount(AccessibilityNodeInfo node) {
+        return node.getChildCount();
+    }
+
+    @Nullable
+    protected AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+        return AxNodeFetcher.getChild(node, index);
+    }
+
+    /**
+     * Retrieves the subtree of the given node. Invisible children are skipped the same way
+     * QueryController does it.
+     */
+    private Node fetch(AccessibilityNodeInfo info, int index, @Nullable Node parent, List<Node> nodes) {
+        Node node = new Node(info, index, parent, nodes.size());
+        nodes.add(node);
+        int childCount = getChildCount(info);
+        for (int i = 0; i < childCount; ++i) {
+            AccessibilityNodeInfo child = getChild(info, i);
+            if (child == null || !child.isVisibleToUser()) {
+                continue;
+            }
+            node.children.add(fetch(child, i, node, nodes));
+        }
+        node.end = nodes.size();
+        return node;
+    }
+
+    /**
+     * @return the index of the first candidate, whose position is not less than the given one,
+     * or the count of candidates if there is no such candidate
+     */
+    private static int findFirstCandidateAt(List<Node> candidates, int fromIndex, int position) {
+        int low = fromIndex;
+        int high = candidates.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (candidates.get(middle).position < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The methods below mirror QueryController.findNodeRegularRecursive
+
+    @Nullable
+    private Node find(UiSelector selector, Node node) {
+        return isMatchFor(selector, node)
+                ? findAfterMatch(selector, node)
+                : findInChildren(selector, node);
+    }
+
+    @Nullable
+    private Node findAfterMatch(UiSelector selector, Node matchedNode) {
+        if (isTrue(isLeafMethod, selector)) {
+            return matchedNode;
+        }
+        UiSelector nextSelector = getNextSelector(selector);
+        // The parent selector is applied to siblings of the matched node
+        Node nextNode = isTrue(hasChildSelectorMethod, selector) ? matchedNode : matchedNode.parent;
+        return nextSelector == null || nextNode == null ? null : findInChildren(nextSelector, nextNode);
+    }
+
+    @Nullable
+    private Node findInChildren(UiSelector selector, Node node) {
+        for (Node child : node.children) {
+            Node result = find(selector, child);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMatchFor(UiSelector selector, Node node) {
+        return isTrue(isMatchForMethod, selector, node.info, node.index);
+    }
+
+    @Nullable
+    private static UiSelector getNextSelector(UiSelector selector) {
+        if (isTrue(hasChildSelectorMethod, selector)) {
+            return (UiSelector) invoke(getChildSelectorMethod, selector);
+        }
+        if (isTrue(hasParentSelectorMethod, selector)) {
+            return (UiSelector) invoke(getParentSelectorMethod, selector);
+        }
+        return null;
+    }
+
+    private static boolean isTrue(Method method, UiSelector selector, Object... parameters) {
+        return (Boolean) invoke(method, selector, parameters);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import io.appium.uiautomator2.core.UiElementSnapshotCache;
+
+/**
+ * Whether to reuse the snapshot of the accessibility hierarchy between page source
+ * and XPath lookup calls. The cached snapshot is kept up to date by listening to
+ * accessibility events, so it only works while the notification listener is enabled.
+ * Disabled by default.
+ */
+public class EnableSnapshotCache extends AbstractSetting<Boolean> {
+
+    private static final String SETTING_NAME = "enableSnapshotCache";
+
+    private boolean value = false;
+
+    public EnableSnapshotCache() {
+        super(Boolean.class, SETTING_NAME);
+    }
+
+    @Override
+    public Boolean getValue() {
+        return value;
+    }
+
+    @Override
+    protected void apply(Boolean value) {
+        this.value = value;
+        if (!value) {
+            UiElementSnapshotCache.getInstance().invalidate();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import io.appium.uiautomator2.common.exceptions.InvalidArgumentException;
+import io.appium.uiautomator2.server.ServerConfig;
+
+/**
+ * Controls the maximum size of HTTP request bodies in bytes. Larger requests
+ * are rejected. The new value only applies to connections opened after the change.
+ *
+ * Type: `Integer`
+ * Acceptable range: `1024` to `268435456`
+ * Default value: `65536`
+ */
+public class MaxRequestContentLength extends AbstractSetting<Integer> {
+    public static final String SETTING_NAME = "maxRequestContentLength";
+    private static final int MIN_VALUE = 1024;
+    private static final int MAX_VALUE = 256 * 1024 * 1024;
+
+    public MaxRequestContentLength() {
+        super(Integer.class, SETTING_NAME);
+    }
+
+    @Override
+    public Integer getValue() {
+        return ServerConfig.getMaxRequestContentLength();
+    }
+
+    @Override
+    protected void apply(Integer value) {
+        if (value == null || value < MIN_VALUE || value > MAX_VALUE) {
+            throw new InvalidArgumentException(String.format(
+                "Invalid %s value specified, must be in range %s..%s. %s was given",
+                SETTING_NAME,
+                MIN_VALUE,
+                MAX_VALUE,
+                value
+            ));
+        }
+        ServerConfig.setMaxRequestContentLength(value);
+    }
+}
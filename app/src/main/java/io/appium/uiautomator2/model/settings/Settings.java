@@ -24,8 +24,11 @@ public enum Settings {
     ALLOW_INVISIBLE_ELEMENTS(new AllowInvisibleElements()),
     COMPRESSED_LAYOUT_HIERARCHY(new CompressedLayoutHierarchy()),
     ELEMENT_RESPONSE_ATTRIBUTES(new ElementResponseAttributes()),
+    ENABLE_COMPACT_SNAPSHOTS(new EnableCompactSnapshots()),
     ENABLE_MULTI_WINDOWS(new EnableMultiWindows()),
     ENABLE_NOTIFICATION_LISTENER(new EnableNotificationListener()),
+    ENABLE_SNAPSHOT_CACHE(new EnableSnapshotCache()),
+    ENABLE_STREAMING_SOURCE(new EnableStreamingSource()),
     KEY_INJECTION_DELAY(new KeyInjectionDelay()),
     SCROLL_ACKNOWLEDGMENT_TIMEOUT(new ScrollAcknowledgmentTimeout()),
     SHOULD_USE_COMPACT_RESPONSES(new ShouldUseCompactResponses()),
@@ -34,14 +37,19 @@ public enum Settings {
     NORMALIZE_TAG_NAMES(new NormalizeTagNames()),
     SHUTDOWN_ON_POWER_DISCONNECT(new ShutdownOnPowerDisconnect()),
     SIMPLE_BOUNDS_CALCULATION(new SimpleBoundsCalculation()),
+    SNAPSHOT_PARALLELISM(new SnapshotParallelism()),
     TRACK_SCROLL_EVENTS(new TrackScrollEvents()),
     WAKE_LOCK_TIMEOUT(new WakeLockTimeout()),
+    XPATH_CACHE_SIZE(new XPathCacheSize()),
     SERVER_PORT(new ServerPort()),
     MJPEG_SERVER_PORT(new MjpegServerPort()),
     MJPEG_SERVER_FRAMERATE(new MjpegServerFramerate()),
     MJPEG_SCALING_FACTOR(new MjpegScalingFactor()),
     MJPEG_SERVER_SCREENSHOT_QUALITY(new MjpegServerScreenshotQuality()),
     MJPEG_BILINEAR_FILTERING(new MjpegBilinearFiltering()),
+    MJPEG_SKIP_UNCHANGED_FRAMES(new MjpegSkipUnchangedFrames()),
+    MJPEG_FRAME_MAX_AGE(new MjpegFrameMaxAge()),
+    MAX_REQUEST_CONTENT_LENGTH(new MaxRequestContentLength()),
     USE_RESOURCES_FOR_ORIENTATION_DETECTION(new UseResourcesForOrientationDetection());
 
     private final ISetting<?> setting;
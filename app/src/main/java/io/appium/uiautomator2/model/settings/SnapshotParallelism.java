@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import io.appium.uiautomator2.common.exceptions.InvalidArgumentException;
+import io.appium.uiautomator2.core.SnapshotExecutor;
+
+/**
+ * Controls the maximum count of threads, which retrieve accessibility nodes
+ * concurrently while taking the snapshot of the hierarchy. Window roots and
+ * sibling subtrees are then fetched in parallel, which speeds up the retrieval
+ * of complex screens with multiple windows. One means nodes are fetched sequentially.
+ *
+ * Type: `Integer`
+ * Acceptable range: `1` to `16`
+ * Default value: `1`
+ */
+public class SnapshotParallelism extends AbstractSetting<Integer> {
+    public static final String SETTING_NAME = "snapshotParallelism";
+    private static final int MAX_VALUE = 16;
+
+    public SnapshotParallelism() {
+        super(Integer.class, SETTING_NAME);
+    }
+
+    @Override
+    public Integer getValue() {
+        return SnapshotExecutor.getInstance().getParallelism();
+    }
+
+    @Override
+    protected void apply(Integer value) {
+        if (value == null || value < 1 || value > MAX_VALUE) {
+            throw new InvalidArgumentException(String.format(
+                "Invalid %s value specified, must be in range 1..%s. %s was given",
+                SETTING_NAME,
+                MAX_VALUE,
+                value
+            ));
+        }
+        SnapshotExecutor.getInstance().setParallelism(value);
+    }
+}
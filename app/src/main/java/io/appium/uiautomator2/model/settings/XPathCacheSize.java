@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import io.appium.uiautomator2.common.exceptions.InvalidArgumentException;
+import io.appium.uiautomator2.core.XPathExpressionCache;
+
+/**
+ * Controls the maximum count of compiled XPath expressions, which are kept
+ * in memory to be reused by subsequent lookups. The least recently used
+ * expressions are evicted first. Setting it to zero disables the cache.
+ *
+ * Type: `Integer`
+ * Acceptable range: `0` to `10000`
+ * Default value: `256`
+ */
+public class XPathCacheSize extends AbstractSetting<Integer> {
+    public static final String SETTING_NAME = "xpathCacheSize";
+    private static final int MAX_VALUE = 10000;
+
+    public XPathCacheSize() {
+        super(Integer.class, SETTING_NAME);
+    }
+
+    @Override
+    public Integer getValue() {
+        return XPathExpressionCache.getInstance().getMaxSize();
+    }
+
+    @Override
+    protected void apply(Integer value) {
+        if (value == null || value < 0 || value > MAX_VALUE) {
+            throw new InvalidArgumentException(String.format(
+                "Invalid %s value specified, must be in range 0..%s. %s was given",
+                SETTING_NAME,
+                MAX_VALUE,
+                value
+            ));
+        }
+        XPathExpressionCache.getInstance().setMaxSize(value);
+    }
+}
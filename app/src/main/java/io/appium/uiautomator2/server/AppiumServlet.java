@@ -17,15 +17,17 @@
 package io.appium.uiautomator2.server;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.appium.uiautomator2.handler.AcceptAlert;
+import io.appium.uiautomator2.handler.Batch;
+import io.appium.uiautomator2.handler.CaptureRawScreenshot;
 import io.appium.uiautomator2.handler.CaptureScreenshot;
 import io.appium.uiautomator2.handler.Clear;
 import io.appium.uiautomator2.handler.Click;
@@ -44,6 +46,8 @@ import io.appium.uiautomator2.handler.GetDevicePixelRatio;
 import io.appium.uiautomator2.handler.GetDeviceSize;
 import io.appium.uiautomator2.handler.GetElementAttribute;
 import io.appium.uiautomator2.handler.GetElementScreenshot;
+import io.appium.uiautomator2.handler.GetElementsAttributes;
+import io.appium.uiautomator2.handler.GetMjpegStats;
 import io.appium.uiautomator2.handler.GetName;
 import io.appium.uiautomator2.handler.GetOrientation;
 import io.appium.uiautomator2.handler.GetRect;
@@ -51,6 +55,7 @@ import io.appium.uiautomator2.handler.GetRotation;
 import io.appium.uiautomator2.handler.GetSessionDetails;
 import io.appium.uiautomator2.handler.GetSessions;
 import io.appium.uiautomator2.handler.GetSettings;
+import io.appium.uiautomator2.handler.GetSnapshotStats;
 import io.appium.uiautomator2.handler.GetSize;
 import io.appium.uiautomator2.handler.GetSystemBars;
 import io.appium.uiautomator2.handler.GetText;
@@ -83,6 +88,8 @@ import io.appium.uiautomator2.http.AppiumResponse;
 import io.appium.uiautomator2.http.IHttpRequest;
 import io.appium.uiautomator2.http.IHttpResponse;
 import io.appium.uiautomator2.http.IHttpServlet;
+import io.appium.uiautomator2.model.AppiumUIA2Driver;
+import io.appium.uiautomator2.model.Session;
 
 public class AppiumServlet implements IHttpServlet {
 
@@ -93,10 +100,11 @@ public class AppiumServlet implements IHttpServlet {
     public static final String NAME_ID_KEY = "NAME_ID_KEY";
     public static final int MAX_ELEMENTS = 3;
     public static final int SECOND_ELEMENT_IDX = 2;
-    private static final ConcurrentMap<String, BaseRequestHandler> getHandler = new ConcurrentHashMap<>();
-    private static final ConcurrentMap<String, BaseRequestHandler> postHandler = new ConcurrentHashMap<>();
-    private static final ConcurrentMap<String, BaseRequestHandler> deleteHandler = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, String[]> mapperUrlSectionsCache = new ConcurrentHashMap<>();
+    private final RouteTrie<BaseRequestHandler> getHandler = new RouteTrie<>();
+    private final RouteTrie<BaseRequestHandler> postHandler = new RouteTrie<>();
+    private final RouteTrie<BaseRequestHandler> deleteHandler = new RouteTrie<>();
+    // Serializes state-changing commands, which are executed while there is no active session
+    private static final Lock SESSIONLESS_ACTION_LOCK = new ReentrantLock();
 
 
     public AppiumServlet() {
@@ -145,6 +153,8 @@ public class AppiumServlet implements IHttpServlet {
         register(postHandler, new SetClipboard("/wd/hub/session/:sessionId/appium/device/set_clipboard"));
         register(postHandler, new AcceptAlert("/wd/hub/session/:sessionId/alert/accept"));
         register(postHandler, new DismissAlert("/wd/hub/session/:sessionId/alert/dismiss"));
+        register(postHandler, new Batch("/wd/hub/session/:sessionId/appium/batch", this));
+        register(postHandler, new GetElementsAttributes("/wd/hub/session/:sessionId/appium/elements/attributes"));
 
         register(postHandler, new io.appium.uiautomator2.handler.gestures.Drag("/wd/hub/session/:sessionId/appium/gestures/drag"));
         register(postHandler, new io.appium.uiautomator2.handler.gestures.Fling("/wd/hub/session/:sessionId/appium/gestures/fling"));
@@ -160,6 +170,7 @@ public class AppiumServlet implements IHttpServlet {
         register(getHandler, new GetSessions("/wd/hub/sessions"));
         register(getHandler, new GetSessionDetails("/wd/hub/session/:sessionId"));
         register(getHandler, new CaptureScreenshot("/wd/hub/session/:sessionId/screenshot"));
+        register(getHandler, new CaptureRawScreenshot("/wd/hub/session/:sessionId/appium/screenshot/raw"));
         register(getHandler, new GetOrientation("/wd/hub/session/:sessionId/orientation"));
         register(getHandler, new GetRotation("/wd/hub/session/:sessionId/rotation"));
         register(getHandler, new GetText("/wd/hub/session/:sessionId/element/:id/text"));
@@ -181,85 +192,69 @@ public class AppiumServlet implements IHttpServlet {
         register(getHandler, new FirstVisibleView("/wd/hub/session/:sessionId/appium/element/:id/first_visible"));
         register(getHandler, new GetAlertText("/wd/hub/session/:sessionId/alert/text"));
         register(getHandler, new GetDeviceInfo("/wd/hub/session/:sessionId/appium/device/info"));
+        register(getHandler, new GetMjpegStats("/wd/hub/session/:sessionId/appium/mjpeg/stats"));
+        register(getHandler, new GetSnapshotStats("/wd/hub/session/:sessionId/appium/snapshot/stats"));
     }
 
-    private void register(Map<String, BaseRequestHandler> registerOn, BaseRequestHandler handler) {
-        registerOn.put(handler.getMappedUri(), handler);
-    }
-
-    private BaseRequestHandler findMatcher(IHttpRequest request, Map<String, BaseRequestHandler> handler) {
-        String[] urlToMatchSections = getRequestUrlSections(request.uri());
-        for (Map.Entry<String, ? extends BaseRequestHandler> entry : handler.entrySet()) {
-            String[] mapperUrlSections = getMapperUrlSectionsCached(entry.getKey());
-            if (isFor(mapperUrlSections, urlToMatchSections)) {
-                return entry.getValue();
-            }
+    @VisibleForTesting
+    @Nullable
+    RouteTrie<BaseRequestHandler> getRoutes(String method) {
+        if ("GET".equals(method)) {
+            return getHandler;
+        }
+        if ("POST".equals(method)) {
+            return postHandler;
+        }
+        if ("DELETE".equals(method)) {
+            return deleteHandler;
         }
         return null;
     }
 
-    private String[] getRequestUrlSections(String urlToMatch) {
-        if (urlToMatch == null) {
-            return null;
-        }
-        int qPos = urlToMatch.indexOf('?');
-        if (qPos != -1) {
-            urlToMatch = urlToMatch.substring(0, urlToMatch.indexOf("?"));
-        }
-        return urlToMatch.split("/");
+    private void register(RouteTrie<BaseRequestHandler> registerOn, BaseRequestHandler handler) {
+        registerOn.add(handler.getMappedUri(), handler);
     }
 
-    private String[] getMapperUrlSectionsCached(String mapperUrl) {
-        String[] sections = mapperUrlSectionsCache.get(mapperUrl);
-        if (sections == null) {
-            sections = mapperUrl.split("/");
-            for (int i = 0; i < sections.length; i++) {
-                String section = sections[i];
-                // To work around a but in Selenium Grid 2.31.0.
-                int qPos = section.indexOf('?');
-                if (qPos != -1) {
-                    sections[i] = section.substring(0, qPos);
-                }
-            }
-            mapperUrlSectionsCache.put(mapperUrl, sections);
+    @Override
+    public void handleHttpRequest(IHttpRequest request, IHttpResponse response) {
+        RouteTrie.Match<BaseRequestHandler> match = findHandler(request);
+        if (match != null) {
+            handleResponse(response, execute(request, match));
         }
-        return sections;
     }
 
-    private boolean isFor(String[] mapperUrlSections, String[] urlToMatchSections) {
-        if (urlToMatchSections == null) {
-            return mapperUrlSections.length == 0;
-        }
-        if (mapperUrlSections.length != urlToMatchSections.length) {
-            return false;
-        }
-        for (int i = 0; i < mapperUrlSections.length; i++) {
-            if (!(mapperUrlSections[i].startsWith(":") || mapperUrlSections[i].equals(urlToMatchSections[i]))) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Executes the given request in the same way as if it has been received via HTTP.
+     *
+     * @param request the request to execute
+     * @return the result of the matching handler or null if no handler matches the request
+     */
+    @Nullable
+    public AppiumResponse execute(IHttpRequest request) {
+        RouteTrie.Match<BaseRequestHandler> match = findHandler(request);
+        return match == null ? null : execute(request, match);
     }
 
-    @Override
-    public void handleHttpRequest(IHttpRequest request, IHttpResponse response) {
-        BaseRequestHandler handler = null;
-        if ("GET".equals(request.method())) {
-            handler = findMatcher(request, getHandler);
-        } else if ("POST".equals(request.method())) {
-            handler = findMatcher(request, postHandler);
-        } else if ("DELETE".equals(request.method())) {
-            handler = findMatcher(request, deleteHandler);
-        }
-        if (handler != null) {
-            handleRequest(request, response, handler);
-        }
+    @Nullable
+    private RouteTrie.Match<BaseRequestHandler> findHandler(IHttpRequest request) {
+        RouteTrie<BaseRequestHandler> routes = getRoutes(request.method());
+        return routes == null ? null : routes.find(request.uri());
     }
 
-    private void handleRequest(IHttpRequest request, IHttpResponse response, BaseRequestHandler handler) {
-        addHandlerAttributesToRequest(request, handler.getMappedUri());
-        AppiumResponse result = handler.handle(request);
-        handleResponse(response, result);
+    private AppiumResponse execute(IHttpRequest request, RouteTrie.Match<BaseRequestHandler> match) {
+        BaseRequestHandler handler = match.getTarget();
+        addHandlerAttributesToRequest(request, match);
+        if (handler.isReadOnly(request)) {
+            return handler.handle(request);
+        }
+        Session session = AppiumUIA2Driver.getInstance().getSession();
+        Lock actionLock = session == null ? SESSIONLESS_ACTION_LOCK : session.getActionLock();
+        actionLock.lock();
+        try {
+            return handler.handle(request);
+        } finally {
+            actionLock.unlock();
+        }
     }
 
     private void handleResponse(IHttpResponse response, @Nullable AppiumResponse result) {
@@ -269,28 +264,28 @@ public class AppiumServlet implements IHttpServlet {
         response.end();
     }
 
-    private void addHandlerAttributesToRequest(IHttpRequest request, String mappedUri) {
-        String sessionId = getParameter(mappedUri, request.uri(), ":sessionId");
+    private void addHandlerAttributesToRequest(IHttpRequest request, RouteTrie.Match<?> match) {
+        String sessionId = getParameter(match, "sessionId");
         if (sessionId != null) {
             request.data().put(SESSION_ID_KEY, sessionId);
         }
 
-        String command = getParameter(mappedUri, request.uri(), ":command");
+        String command = getParameter(match, "command");
         if (command != null) {
             request.data().put(COMMAND_NAME_KEY, command);
         }
 
-        String name = getParameter(mappedUri, request.uri(), ":name");
+        String name = getParameter(match, "name");
         if (name != null) {
             request.data().put(NAME_ID_KEY, name);
         }
 
-        String id = getParameter(mappedUri, request.uri(), ":id");
+        String id = getParameter(match, "id");
         if (id != null) {
             request.data().put(ELEMENT_ID_KEY, id);
         }
         for (int elementIdx = SECOND_ELEMENT_IDX; elementIdx < MAX_ELEMENTS + SECOND_ELEMENT_IDX; ++elementIdx) {
-            String elementId = getParameter(mappedUri, request.uri(), ":id" + elementIdx);
+            String elementId = getParameter(match, "id" + elementIdx);
             if (elementId != null) {
                 request.data().put(ELEMENT_ID_KEY + elementIdx, elementId);
             }
@@ -298,22 +293,15 @@ public class AppiumServlet implements IHttpServlet {
     }
 
     @Nullable
-    private String getParameter(String configuredUri, String actualUri, String param) {
-        String[] configuredSections = configuredUri.split("/");
-        String[] currentSections = actualUri.split("/");
-        if (configuredSections.length != currentSections.length) {
+    private String getParameter(RouteTrie.Match<?> match, String param) {
+        String value = match.getParameter(param);
+        if (value == null) {
             return null;
         }
-        for (int i = 0; i < currentSections.length; i++) {
-            if (!configuredSections[i].contains(param)) {
-                continue;
-            }
-            try {
-                return URLDecoder.decode(currentSections[i], StandardCharsets.UTF_8.name());
-            } catch (UnsupportedEncodingException e) {
-                throw new IllegalArgumentException(e);
-            }
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e);
         }
-        return null;
     }
 }
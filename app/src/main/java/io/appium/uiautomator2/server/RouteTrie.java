@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.server;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precompiled routing table, which matches request paths segment by segment.
+ * Route segments starting with a colon, like ":sessionId", match any value and
+ * the matched values are captured in a single pass.
+ * Literal segments take precedence over parameters if both match.
+ *
+ * @param <T> the type of route targets
+ */
+class RouteTrie<T> {
+    private static final String PARAM_PREFIX = ":";
+
+    private final Node<T> root = new Node<>();
+    private final Set<String> patterns = new LinkedHashSet<>();
+
+    private static class Node<T> {
+        final Map<String, Node<T>> literals = new HashMap<>();
+        @Nullable Node<T> param;
+        @Nullable T target;
+        @Nullable String[] paramNames;
+    }
+
+    static class Match<T> {
+        private final T target;
+        private final String[] paramNames;
+        private final String[] paramValues;
+
+        private Match(T target, String[] paramNames, String[] paramValues) {
+            this.target = target;
+            this.paramNames = paramNames;
+            this.paramValues = paramValues;
+        }
+
+        T getTarget() {
+            return target;
+        }
+
+        /**
+         * @param name parameter name without the leading colon, for example "sessionId"
+         * @return the raw (not URL-decoded) value of the parameter or null if
+         * the matched route does not have such parameter
+         */
+        @Nullable
+        String getParameter(String name) {
+            for (int i = 0; i < paramNames.length; ++i) {
+                if (paramNames[i].equals(name)) {
+                    return paramValues[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String[] toSections(String path) {
+        int qPos = path.indexOf('?');
+        if (qPos != -1) {
+            path = path.substring(0, qPos);
+        }
+        return path.split("/");
+    }
+
+    /**
+     * Adds a new route. An existing route with the same pattern is replaced.
+     *
+     * @param pattern route pattern, for example "/wd/hub/session/:sessionId/element/:id/text"
+     * @param target  the value to be returned for matching paths
+     */
+    void add(String pattern, T target) {
+        Node<T> node = root;
+        List<String> paramNames = new ArrayList<>();
+        for (String section : toSections(pattern)) {
+            if (section.startsWith(PARAM_PREFIX)) {
+                paramNames.add(section.substring(PARAM_PREFIX.length()));
+                if (node.param == null) {
+                    node.param = new Node<>();
+                }
+                node = node.param;
+            } else {
+                Node<T> next = node.literals.get(section);
+                if (next == null) {
+                    next = new Node<>();
+                    node.literals.put(section, next);
+                }
+                node = next;
+            }
+        }
+        node.target = target;
+        node.paramNames = paramNames.toArray(new String[0]);
+        patterns.add(pattern);
+    }
+
+    /**
+     * @return patterns of all added routes in the order they have been added
+     */
+    List<String> getPatterns() {
+        return new ArrayList<>(patterns);
+    }
+
+    /**
+     * Finds the route matching the given path. The query string is ignored.
+     *
+     * @param path request path
+     * @return the match or null if no route matches the path
+     */
+    @Nullable
+    Match<T> find(@Nullable String path) {
+        if (path == null) {
+            return null;
+        }
+        String[] sections = toSections(path);
+        String[] values = new String[sections.length];
+        return find(root, sections, 0, values, 0);
+    }
+
+    @Nullable
+    private Match<T> find(Node<T> node, String[] sections, int sectionIdx,
+                          String[] values, int valuesCount) {
+        if (sectionIdx == sections.length) {
+            if (node.target == null || node.paramNames == null) {
+                return null;
+            }
+            String[] paramValues = new String[valuesCount];
+            System.arraycopy(values, 0, paramValues, 0, valuesCount);
+            return new Match<>(node.target, node.paramNames, paramValues);
+        }
+        String section = sections[sectionIdx];
+        Node<T> literal = node.literals.get(section);
+        if (literal != null) {
+            Match<T> result = find(literal, sections, sectionIdx + 1, values, valuesCount);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (node.param != null) {
+            values[valuesCount] = section;
+            return find(node.param, sections, sectionIdx + 1, values, valuesCount + 1);
+        }
+        return null;
+    }
+}
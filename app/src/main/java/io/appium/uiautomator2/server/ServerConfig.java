@@ -19,11 +19,13 @@ package io.appium.uiautomator2.server;
 import java.util.HashMap;
 import java.util.Map;
 
+import io.appium.uiautomator2.model.settings.MaxRequestContentLength;
 import io.appium.uiautomator2.model.settings.MjpegBilinearFiltering;
 import io.appium.uiautomator2.model.settings.MjpegScalingFactor;
 import io.appium.uiautomator2.model.settings.MjpegServerFramerate;
 import io.appium.uiautomator2.model.settings.MjpegServerPort;
 import io.appium.uiautomator2.model.settings.MjpegServerScreenshotQuality;
+import io.appium.uiautomator2.model.settings.MjpegSkipUnchangedFrames;
 import io.appium.uiautomator2.model.settings.ServerPort;
 
 public class ServerConfig {
@@ -33,6 +35,8 @@ public class ServerConfig {
     public static final int DEFAULT_MJPEG_SCALING_FACTOR = 50;
     public static final int DEFAULT_MJPEG_SERVER_SCREENSHOT_QUALITY = 50;
     public static final boolean DEFAULT_MJPEG_SERVER_BILINEAR_FILTERING = false;
+    public static final boolean DEFAULT_MJPEG_SKIP_UNCHANGED_FRAMES = false;
+    public static final int DEFAULT_MAX_REQUEST_CONTENT_LENGTH = 64 * 1024;
 
     private final static int SERVER_PORT = getValueFromEnvOrDefault(
         "SERVER_PORT",
@@ -51,6 +55,11 @@ public class ServerConfig {
         DEFAULT_MJPEG_SERVER_SCREENSHOT_QUALITY);
     private final static boolean MJPEG_BILINEAR_FILTERING =
         Boolean.parseBoolean(System.getenv("MJPEG_BILINEAR_FILTERING"));
+    private final static boolean MJPEG_SKIP_UNCHANGED_FRAMES =
+        Boolean.parseBoolean(System.getenv("MJPEG_SKIP_UNCHANGED_FRAMES"));
+    private final static int MAX_REQUEST_CONTENT_LENGTH = getValueFromEnvOrDefault(
+        "MAX_REQUEST_CONTENT_LENGTH",
+        DEFAULT_MAX_REQUEST_CONTENT_LENGTH);
 
     // In-memory overrides
     private static Map<String, Object> overrides = new HashMap<>();
@@ -111,6 +120,18 @@ public class ServerConfig {
             MJPEG_BILINEAR_FILTERING);
     }
 
+    public static boolean isMjpegSkipUnchangedFrames() {
+        return getValueFromOverridesOrDefault(
+            MjpegSkipUnchangedFrames.SETTING_NAME,
+            MJPEG_SKIP_UNCHANGED_FRAMES);
+    }
+
+    public static int getMaxRequestContentLength() {
+        return getValueFromOverridesOrDefault(
+            MaxRequestContentLength.SETTING_NAME,
+            MAX_REQUEST_CONTENT_LENGTH);
+    }
+
     public static void setServerPort(int serverPort) {
         setOverridesValue(ServerPort.SETTING_NAME, serverPort);
     }
@@ -140,4 +161,16 @@ public class ServerConfig {
             MjpegBilinearFiltering.SETTING_NAME,
             mjpegBilinearFiltering);
     }
+
+    public static void setMjpegSkipUnchangedFrames(boolean mjpegSkipUnchangedFrames) {
+        setOverridesValue(
+            MjpegSkipUnchangedFrames.SETTING_NAME,
+            mjpegSkipUnchangedFrames);
+    }
+
+    public static void setMaxRequestContentLength(int maxRequestContentLength) {
+        setOverridesValue(
+            MaxRequestContentLength.SETTING_NAME,
+            maxRequestContentLength);
+    }
 }
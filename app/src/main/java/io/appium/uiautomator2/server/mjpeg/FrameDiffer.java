@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.server.mjpeg;
+
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Detects which parts of the screen have changed between consecutive frames.
+ * The frame is split into square tiles and a hash of each tile is compared
+ * with the one of the previous frame, so only the hashes need to be kept in memory.
+ * Frames are expected to be downscaled thumbnails of the screen, since reading
+ * full resolution pixels on every frame is expensive.
+ */
+class FrameDiffer {
+    // 64 screen pixels for thumbnails downscaled four times
+    static final int TILE_SIZE = 16;
+    // An odd multiplier makes any single pixel change alter the tile hash
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] tileHashes;
+    private int width;
+    private int height;
+
+    /**
+     * Compares the given frame with the previous one and remembers it for the next comparison.
+     *
+     * @param pixels the frame pixels in row-major order
+     * @param width  the frame width
+     * @param height the frame height
+     * @return the bounding rectangle of tiles, which have changed since the previous frame,
+     * the whole frame if there is no previous frame of the same size or null if nothing
+     * has changed
+     */
+    @Nullable
+    Rect update(int[] pixels, int width, int height) {
+        int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        long[] hashes = new long[columns * rows];
+        for (int y = 0; y < height; ++y) {
+            int rowOffset = (y / TILE_SIZE) * columns;
+            int pixelOffset = y * width;
+            for (int column = 0; column < columns; ++column) {
+                int tileEnd = Math.min((column + 1) * TILE_SIZE, width);
+                long hash = hashes[rowOffset + column];
+                for (int x = column * TILE_SIZE; x < tileEnd; ++x) {
+                    hash = hash * HASH_MULTIPLIER + pixels[pixelOffset + x];
+                }
+                hashes[rowOffset + column] = hash;
+            }
+        }
+
+        long[] previousHashes = this.tileHashes;
+        boolean isSameSize = previousHashes != null && this.width == width && this.height == height;
+        this.tileHashes = hashes;
+        this.width = width;
+        this.height = height;
+        if (!isSameSize) {
+            return new Rect(0, 0, width, height);
+        }
+
+        int minColumn = columns, minRow = rows, maxColumn = -1, maxRow = -1;
+        for (int row = 0; row < rows; ++row) {
+            for (int column = 0; column < columns; ++column) {
+                int index = row * columns + column;
+                if (hashes[index] != previousHashes[index]) {
+                    minColumn = Math.min(minColumn, column);
+                    maxColumn = Math.max(maxColumn, column);
+                    minRow = Math.min(minRow, row);
+                    maxRow = Math.max(maxRow, row);
+                }
+            }
+        }
+        if (maxColumn < 0) {
+            return null;
+        }
+        return new Rect(minColumn * TILE_SIZE, minRow * TILE_SIZE,
+                Math.min((maxColumn + 1) * TILE_SIZE, width),
+                Math.min((maxRow + 1) * TILE_SIZE, height));
+    }
+
+    /**
+     * Maps the rectangle from thumbnail to frame coordinates, so that it covers
+     * all the frame pixels, which contribute to the thumbnail rectangle.
+     *
+     * @param rect            the rectangle in thumbnail coordinates
+     * @param thumbnailWidth  the thumbnail width
+     * @param thumbnailHeight the thumbnail height
+     * @param frameWidth      the frame width
+     * @param frameHeight     the frame height
+     * @return the corresponding rectangle in frame coordinates
+     */
+    static Rect toFrameRect(Rect rect, int thumbnailWidth, int thumbnailHeight,
+                            int frameWidth, int frameHeight) {
+        return new Rect(
+                Math.max((int) ((long) rect.left * frameWidth / thumbnailWidth), 0),
+                Math.max((int) ((long) rect.top * frameHeight / thumbnailHeight), 0),
+                Math.min(ceilDiv((long) rect.right * frameWidth, thumbnailWidth), frameWidth),
+                Math.min(ceilDiv((long) rect.bottom * frameHeight, thumbnailHeight), frameHeight));
+    }
+
+    private static int ceilDiv(long dividend, int divisor) {
+        return (int) ((dividend + divisor - 1) / divisor);
+    }
+
+    /**
+     * Forgets the previous frame, so the next one is considered completely changed
+     */
+    void reset() {
+        tileHashes = null;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.server.mjpeg;
+
+import java.util.List;
+import java.util.Locale;
+
+import io.appium.uiautomator2.utils.Logger;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+/**
+ * Starts streaming to the client as soon as its request has arrived
+ */
+class MjpegClientHandler extends SimpleChannelInboundHandler<HttpObject> {
+    private static final String DIRTY_REGIONS_PARAM = "dirtyRegions";
+
+    private final List<MjpegScreenshotClient> clients;
+    private MjpegScreenshotClient client;
+
+    MjpegClientHandler(List<MjpegScreenshotClient> clients) {
+        this.clients = clients;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
+        if (client != null || !(msg instanceof HttpRequest)) {
+            // The rest of the request is not needed
+            return;
+        }
+
+        List<String> dirtyRegions = new QueryStringDecoder(((HttpRequest) msg).getUri())
+            .parameters().get(DIRTY_REGIONS_PARAM);
+        boolean supportsDirtyRegions = dirtyRegions != null
+            && (dirtyRegions.contains("true") || dirtyRegions.contains("1"));
+        client = new MjpegScreenshotClient(ctx.channel(), supportsDirtyRegions);
+        Logger.info(String.format(
+            Locale.ROOT,
+            "Screenshot broadcast starting for %s",
+            client.getRemoteAddress()
+        ));
+        client.start();
+        synchronized (clients) {
+            clients.add(client);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (client != null && ctx.channel().isWritable()) {
+            client.flush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (client != null) {
+            Logger.info(String.format(
+                Locale.ROOT,
+                "Screenshot broadcast client %s has disconnected",
+                client.getRemoteAddress()
+            ));
+            synchronized (clients) {
+                clients.remove(client);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        Logger.warn("Client socket connection not writable. Closing... ", cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.server.mjpeg;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recent frame captured by the MJPEG stream, so screenshot commands
+ * could reuse it instead of taking another shot of the screen while streaming.
+ * Frames are reference counted, since the stream might replace the cached frame
+ * while a screenshot command is still encoding it.
+ */
+public class MjpegFrameCache {
+    public static final int DEFAULT_MAX_FRAME_AGE_MS = 0;
+    private static MjpegFrameCache INSTANCE;
+
+    private final AtomicLong hitsCount = new AtomicLong();
+    private final AtomicLong missesCount = new AtomicLong();
+    private Frame latestFrame;
+    private long maxFrameAgeMs = DEFAULT_MAX_FRAME_AGE_MS;
+
+    MjpegFrameCache() {
+    }
+
+    public static synchronized MjpegFrameCache getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new MjpegFrameCache();
+        }
+        return INSTANCE;
+    }
+
+    public static class Frame {
+        private final Bitmap bitmap;
+        private final long capturedAtNanos = System.nanoTime();
+        private int refCount = 1;
+
+        private Frame(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        public Bitmap getBitmap() {
+            return bitmap;
+        }
+
+        /**
+         * @return how many milliseconds ago the frame has been captured
+         */
+        public long getAgeMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - capturedAtNanos);
+        }
+
+        private synchronized boolean retain() {
+            if (refCount == 0) {
+                return false;
+            }
+            ++refCount;
+            return true;
+        }
+
+        /**
+         * Must be called once the frame is not used anymore.
+         * The bitmap is recycled as soon as nobody uses the frame.
+         */
+        public synchronized void release() {
+            if (refCount > 0 && --refCount == 0) {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * Replaces the cached frame with the given bitmap. The cache takes the ownership
+     * of the bitmap, so it must not be recycled by the caller.
+     *
+     * @param bitmap the just captured screenshot
+     * @return the frame to be used by the caller. It must be released after usage
+     */
+    public Frame put(Bitmap bitmap) {
+        Frame frame = new Frame(bitmap);
+        Frame previousFrame;
+        synchronized (this) {
+            previousFrame = latestFrame;
+            latestFrame = null;
+            if (maxFrameAgeMs > 0 && frame.retain()) {
+                latestFrame = frame;
+            }
+        }
+        if (previousFrame != null) {
+            previousFrame.release();
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the cached frame if it is not older than the configured max age.
+     *
+     * @return the fresh frame, which must be released after usage, or null
+     * if there is no such frame
+     */
+    @Nullable
+    public Frame acquireFresh() {
+        synchronized (this) {
+            if (maxFrameAgeMs <= 0) {
+                return null;
+            }
+            if (latestFrame != null && latestFrame.getAgeMs() <= maxFrameAgeMs
+                    && latestFrame.retain()) {
+                hitsCount.incrementAndGet();
+                return latestFrame;
+            }
+        }
+        missesCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Releases the cached frame, so its memory could be reclaimed
+     */
+    public void clear() {
+        Frame previousFrame;
+        synchronized (this) {
+            previousFrame = latestFrame;
+            latestFrame = null;
+        }
+        if (previousFrame != null) {
+            previousFrame.release();
+        }
+    }
+
+    public synchronized long getMaxFrameAgeMs() {
+        return maxFrameAgeMs;
+    }
+
+    /**
+     * Changes the maximum age of frames, which could be reused by screenshot commands.
+     *
+     * @param maxFrameAgeMs the max age in milliseconds. Zero disables the cache.
+     */
+    public void setMaxFrameAgeMs(long maxFrameAgeMs) {
+        synchronized (this) {
+            this.maxFrameAgeMs = maxFrameAgeMs;
+        }
+        if (maxFrameAgeMs <= 0) {
+            clear();
+        }
+    }
+
+    public long getHitsCount() {
+        return hitsCount.get();
+    }
+
+    public long getMissesCount() {
+        return missesCount.get();
+    }
+}
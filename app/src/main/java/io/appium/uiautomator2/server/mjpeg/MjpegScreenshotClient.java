@@ -13,25 +13,24 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package io.appium.uiautomator2.server.mjpeg;
 
-import android.os.SystemClock;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.Socket;
-import java.util.Locale;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
-import io.appium.uiautomator2.utils.Logger;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * A connected MJPEG viewer. Frames are queued per client and written from the channel
+ * event loop, so a slow viewer never blocks the stream. If the viewer cannot keep up,
+ * the oldest queued frames are dropped.
+ */
 class MjpegScreenshotClient {
-    private static final int INPUT_NOT_READY_SLEEP_TIME_MS = 100;
-    private static final byte[] START = (
+    static final int MAX_QUEUED_FRAMES = 2;
+    static final byte[] START = (
         "HTTP/1.0 200 OK\r\n" +
         "Server: Android Screenshot Socket Server\r\n" +
         "Connection: close\r\n" +
@@ -42,91 +41,103 @@ class MjpegScreenshotClient {
         "Content-Type: multipart/x-mixed-replace; boundary=--BoundaryString\r\n\r\n"
     ).getBytes(UTF_8);
 
-    private final Socket socket;
-    private BufferedReader in;
-    private OutputStream out;
-    private boolean isClosed = false;
-    private boolean isInitialized = false;
-
-    MjpegScreenshotClient(Socket socket) {
-        this.socket = socket;
+    private final Channel channel;
+    private final boolean supportsDirtyRegions;
+    private final MjpegStreamStats stats = MjpegStreamStats.getInstance();
+    // Only accessed from the channel event loop
+    private final Deque<byte[]> queuedFrames = new ArrayDeque<>();
+    private volatile boolean hasReceivedFullFrame = false;
+
+    /**
+     * @param channel              the client connection
+     * @param supportsDirtyRegions whether the client has requested to only receive
+     *                             changed parts of frames
+     */
+    MjpegScreenshotClient(Channel channel, boolean supportsDirtyRegions) {
+        this.channel = channel;
+        this.supportsDirtyRegions = supportsDirtyRegions;
     }
 
-    private String getRemoteAddress() {
-        if (socket == null) {
-            return "";
-        }
-        return socket.getRemoteSocketAddress().toString().replaceAll("^/+", "");
+    String getRemoteAddress() {
+        return String.valueOf(channel.remoteAddress()).replaceAll("^/+", "");
     }
 
     boolean isClosed() {
-        return isClosed;
+        return !channel.isActive();
     }
 
-    boolean isInitialized() {
-        return isInitialized;
+    /**
+     * @return true if the client has requested to only receive changed parts of frames
+     */
+    boolean supportsDirtyRegions() {
+        return supportsDirtyRegions;
     }
 
-    void closeSocket() {
-        if (isClosed()) {
-            return;
-        }
-
-        try {
-            socket.close();
-        } catch (IOException closeError) {
-            Logger.error("Error closing socket.", closeError);
-        }
+    boolean hasReceivedFullFrame() {
+        return hasReceivedFullFrame;
+    }
 
-        this.isClosed = true;
+    void closeSocket() {
+        channel.close();
     }
 
-    void initialize() {
-        if (isInitialized()) {
-            return;
-        }
+    /**
+     * Writes the response headers, after which frames could be streamed
+     */
+    void start() {
+        channel.writeAndFlush(Unpooled.wrappedBuffer(START));
+    }
 
-        Logger.info(String.format(
-            Locale.ROOT,
-            "Screenshot broadcast client opened a connection %s",
-            getRemoteAddress()
-        ));
+    /**
+     * Writes the whole frame
+     *
+     * @param data multipart chunk containing the frame
+     */
+    void write(byte[] data) {
+        write(data, true);
+    }
 
-        try {
-            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.out = socket.getOutputStream();
-        } catch (IOException e) {
-            Logger.error("Client failed to initialize", e);
-            closeSocket();
-            return;
+    /**
+     * Queues the frame to be written. This method never blocks.
+     *
+     * @param data        multipart chunk containing the frame
+     * @param isFullFrame whether the chunk contains the whole frame or its changed part
+     */
+    void write(final byte[] data, boolean isFullFrame) {
+        if (isFullFrame) {
+            hasReceivedFullFrame = true;
         }
-
-        try {
-            while (!in.ready()) {
-               SystemClock.sleep(INPUT_NOT_READY_SLEEP_TIME_MS);
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (queuedFrames.size() >= MAX_QUEUED_FRAMES) {
+                    queuedFrames.pollFirst();
+                    stats.onFrameDropped();
+                    if (supportsDirtyRegions) {
+                        // Changed parts of the dropped frame are lost, so the next frame must be whole
+                        hasReceivedFullFrame = false;
+                    }
+                }
+                queuedFrames.addLast(data);
+                flush();
             }
-
-            Logger.info(String.format(
-                Locale.ROOT,
-                "Screenshot broadcast starting for %s",
-                getRemoteAddress()
-            ));
-            out.write(START);
-        } catch (IOException e) {
-            Logger.warn("Client socket connection could not be read.", e);
-            closeSocket();
-            return;
-        }
-
-        this.isInitialized = true;
+        });
     }
 
-    void write(byte[] data) {
-        try {
-            out.write(data);
-        } catch (IOException e) {
-            Logger.warn("Client socket connection not writable. Closing... ", e);
-            closeSocket();
+    /**
+     * Writes queued frames while the channel is able to accept them.
+     * Must be called from the channel event loop.
+     */
+    void flush() {
+        boolean isWritten = false;
+        while (channel.isWritable() && !queuedFrames.isEmpty()) {
+            byte[] data = queuedFrames.pollFirst();
+            channel.write(Unpooled.wrappedBuffer(data));
+            stats.onFrameSent(data.length);
+            isWritten = true;
+        }
+        if (isWritten) {
+            channel.flush();
         }
     }
 }
@@ -13,23 +13,30 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package io.appium.uiautomator2.server.mjpeg;
 
-import java.io.IOException;
-import java.net.ServerSocket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
 import io.appium.uiautomator2.utils.Logger;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
 
 public class MjpegScreenshotServer extends Thread {
     private final int port;
     private final List<MjpegScreenshotClient> clients;
     private final MjpegScreenshotStream mjpegScreenshotStream;
-    private ServerSocket serverSocket;
-    private boolean isStopped = false;
+    private volatile Channel serverChannel;
+    private volatile boolean isStopped = false;
 
     public MjpegScreenshotServer(int port) {
         this(port, new ArrayList<MjpegScreenshotClient>());
@@ -49,27 +56,42 @@ public class MjpegScreenshotServer extends Thread {
 
     @Override
     public void run() {
+        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+        // Frames are only written by event loops, so a single one serves many viewers
+        EventLoopGroup workerGroup = new NioEventLoopGroup(1);
         try {
-            serverSocket = new ServerSocket(port);
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast("decoder", new HttpRequestDecoder());
+                        ch.pipeline().addLast("client", new MjpegClientHandler(clients));
+                    }
+                });
+            serverChannel = bootstrap.bind(port).sync().channel();
             Logger.info(String.format(
                 Locale.ROOT,
                 "ServerSocket created on port %d", port));
-        } catch (IOException e) {
-            Logger.error("Failed to create Socket Server.", e);
-            return;
-        }
-
-        mjpegScreenshotStream.start();
-        while (!isStopped) {
-            try {
-                Logger.debug("Socket Server waiting for connections.");
-                addClient(new MjpegScreenshotClient(serverSocket.accept()));
-            } catch (IOException e) {
-                Logger.error("Socket Server failed to open connection.", e);
+            if (isStopped) {
+                serverChannel.close();
             }
-        }
 
-        closeAllClients();
+            mjpegScreenshotStream.start();
+            serverChannel.closeFuture().sync();
+        } catch (InterruptedException ignored) {
+        } catch (Exception e) {
+            Logger.error("Failed to create Socket Server.", e);
+        } finally {
+            mjpegScreenshotStream.interrupt();
+            closeAllClients();
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+        }
     }
 
     private void closeServer() {
@@ -77,20 +99,10 @@ public class MjpegScreenshotServer extends Thread {
             return;
         }
 
-        closeAllClients();
-
-        try {
-            serverSocket.close();
-        } catch (IOException e) {
-            Logger.error("Socket Server failed to close socket.", e);
-        }
-
         this.isStopped = true;
-    }
-
-    private void addClient(MjpegScreenshotClient client) {
-        synchronized (clients) {
-            clients.add(client);
+        Channel channel = serverChannel;
+        if (channel != null) {
+            channel.close();
         }
     }
 
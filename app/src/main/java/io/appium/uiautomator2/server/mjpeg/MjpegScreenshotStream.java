@@ -18,8 +18,14 @@ package io.appium.uiautomator2.server.mjpeg;
 
 import android.app.UiAutomation;
 import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.os.SystemClock;
 
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -37,11 +43,28 @@ public class MjpegScreenshotStream extends Thread {
         "--BoundaryString\r\n" +
         "Content-type: image/jpg\r\n" +
         "Content-Length: %d\r\n\r\n";
+    // Partial frames carry the position of the changed region in the streamed frame
+    private static final String DIRTY_REGION_BOUNDARY_STRING =
+        "--BoundaryString\r\n" +
+        "Content-type: image/jpg\r\n" +
+        "Content-Length: %d\r\n" +
+        "X-Dirty-Rect: %d,%d,%d,%d\r\n\r\n";
     private static final int NO_CLIENTS_CONNECTED_SLEEP_TIME_MS = 500;
+    // Unchanged frames are still repeated from time to time, so clients don't time out
+    private static final long KEEP_ALIVE_INTERVAL_MS = 1000;
+    // Frames are compared using thumbnails, which have 16 times less pixels to read
+    private static final int DIFF_DOWNSCALE_FACTOR = 4;
     private static final byte[] END = "\r\n\r\n".getBytes(UTF_8);
     private static final UiAutomation UI_AUTOMATION =
         CustomUiDevice.getInstance().getInstrumentation().getUiAutomation();
     private final List<MjpegScreenshotClient> clients;
+    private final MjpegStreamStats stats = MjpegStreamStats.getInstance();
+    private final FrameDiffer frameDiffer = new FrameDiffer();
+    private final Paint thumbnailPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private Bitmap thumbnail;
+    private int[] pixels = new int[0];
+    private byte[] lastFullFrame;
+    private long lastFullFrameSentAt;
     private boolean isStopped = false;
 
     MjpegScreenshotStream(List<MjpegScreenshotClient> clients) {
@@ -63,6 +86,8 @@ public class MjpegScreenshotStream extends Thread {
             }
 
             if (noClientsConnected) {
+                stats.setClientsCount(0);
+                reset();
                 SystemClock.sleep(NO_CLIENTS_CONNECTED_SLEEP_TIME_MS);
                 continue;
             }
@@ -72,42 +97,53 @@ public class MjpegScreenshotStream extends Thread {
                 Math.round((1.0f / ServerConfig.getMjpegServerFramerate()) * 1000.0f);
             long start = System.currentTimeMillis();
 
-            // add some resilience to handle `getScreenshot` or any of its
+            // add some resilience to handle `streamFrame` or any of its
             // sub-routines raising an error. If an error occurs during
             // [post-]processing the frame will be dropped
-            byte[] screenshotData;
             try {
-                screenshotData = getScreenshot();
+                streamFrame(getActiveClients());
             } catch (Exception e) {
                 Logger.error("Error getting screenshot: ", e);
-                screenshotData = new byte[0];
-            }
-
-            if (screenshotData.length > 0) {
-                synchronized (clients) {
-                    Iterator<MjpegScreenshotClient> clientsIterator = clients.iterator();
-                    while (clientsIterator.hasNext()) {
-                        MjpegScreenshotClient client = clientsIterator.next();
-                        if (client.isClosed()) {
-                            clientsIterator.remove();
-                            continue;
-                        }
-
-                        if (!client.isInitialized()) {
-                            client.initialize();
-                        }
-
-                        client.write(screenshotData);
-                    }
-                }
-            } else {
                 Logger.warn("Empty screenshot returned, dropping frame");
+                // Clients might have missed changes, so the next frame is sent as a whole
+                frameDiffer.reset();
+                lastFullFrame = null;
             }
 
             // Always attempt to match the target framerate, even if the frame
             // was dropped, to keep the rate consistent
             matchFramerate(targetInterval, start);
         }
+        reset();
+    }
+
+    private void reset() {
+        // Nobody keeps the cached frame up to date
+        MjpegFrameCache.getInstance().clear();
+        frameDiffer.reset();
+        if (thumbnail != null) {
+            thumbnail.recycle();
+            thumbnail = null;
+        }
+        pixels = new int[0];
+        lastFullFrame = null;
+    }
+
+    private List<MjpegScreenshotClient> getActiveClients() {
+        List<MjpegScreenshotClient> result = new ArrayList<>();
+        synchronized (clients) {
+            Iterator<MjpegScreenshotClient> clientsIterator = clients.iterator();
+            while (clientsIterator.hasNext()) {
+                MjpegScreenshotClient client = clientsIterator.next();
+                if (client.isClosed()) {
+                    clientsIterator.remove();
+                    continue;
+                }
+                result.add(client);
+            }
+        }
+        stats.setClientsCount(result.size());
+        return result;
     }
 
     private void matchFramerate(long targetInterval, long start) {
@@ -119,25 +155,160 @@ public class MjpegScreenshotStream extends Thread {
         }
     }
 
-    private byte[] getScreenshot() {
+    private void streamFrame(List<MjpegScreenshotClient> activeClients) {
         Bitmap screenshot = UI_AUTOMATION.takeScreenshot();
         if (screenshot == null) {
             throw new TakeScreenshotException("Could not take screenshot: UiAutomation returned null");
         }
+        stats.onFrameCaptured();
+
+        boolean skipUnchangedFrames = ServerConfig.isMjpegSkipUnchangedFrames();
+
+        // The frame might be reused by screenshot commands, so the cache owns the bitmap
+        MjpegFrameCache.Frame frame = MjpegFrameCache.getInstance().put(screenshot);
+        try {
+            Bitmap bitmap = frame.getBitmap();
+            Rect frameRect = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
+            // Frames are always compared, so an unchanged frame is never encoded again
+            Rect dirtyRect = findDirtyRect(bitmap);
+            boolean isChanged = dirtyRect != null;
+            boolean isWholeFrameDirty = !isChanged || dirtyRect.equals(frameRect);
+            long now = System.currentTimeMillis();
+            boolean isKeepAliveDue = now - lastFullFrameSentAt >= KEEP_ALIVE_INTERVAL_MS;
+
+            List<MjpegScreenshotClient> fullFrameClients = new ArrayList<>();
+            List<MjpegScreenshotClient> dirtyRegionClients = new ArrayList<>();
+            for (MjpegScreenshotClient client : activeClients) {
+                boolean isIncremental = client.supportsDirtyRegions() || skipUnchangedFrames;
+                if (!client.hasReceivedFullFrame() || isKeepAliveDue || !isIncremental
+                        || (isChanged && (isWholeFrameDirty || !client.supportsDirtyRegions()))) {
+                    fullFrameClients.add(client);
+                } else if (isChanged) {
+                    dirtyRegionClients.add(client);
+                }
+            }
 
+            float scale = ServerConfig.getMjpegScalingFactor() / 100.0f;
+            boolean isEncoded = false;
+            if (fullFrameClients.isEmpty()) {
+                if (isChanged) {
+                    // The frame is only encoded when somebody needs it
+                    lastFullFrame = null;
+                }
+            } else {
+                // Keep-alive frames are always encoded from the current screenshot, so changes,
+                // which are too small to be visible on thumbnails, are delivered with a delay
+                if (isChanged || lastFullFrame == null || isKeepAliveDue) {
+                    lastFullFrame = encodeFrame(bitmap, scale);
+                    isEncoded = true;
+                }
+                for (MjpegScreenshotClient client : fullFrameClients) {
+                    writeFrame(client, lastFullFrame, true);
+                }
+            }
+            if (!dirtyRegionClients.isEmpty()) {
+                byte[] dirtyRegion = encodeDirtyRegion(bitmap, dirtyRect, scale);
+                isEncoded = true;
+                for (MjpegScreenshotClient client : dirtyRegionClients) {
+                    writeFrame(client, dirtyRegion, false);
+                }
+            }
+            if (!isEncoded) {
+                stats.onFrameSkipped();
+            }
+            if (isKeepAliveDue) {
+                lastFullFrameSentAt = now;
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * @return the changed area of the screen since the previous frame, or null if nothing has changed
+     */
+    @Nullable
+    private Rect findDirtyRect(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int thumbnailWidth = Math.max(width / DIFF_DOWNSCALE_FACTOR, 1);
+        int thumbnailHeight = Math.max(height / DIFF_DOWNSCALE_FACTOR, 1);
+        if (thumbnail == null || thumbnail.getWidth() != thumbnailWidth
+                || thumbnail.getHeight() != thumbnailHeight) {
+            if (thumbnail != null) {
+                thumbnail.recycle();
+            }
+            thumbnail = Bitmap.createBitmap(thumbnailWidth, thumbnailHeight, Bitmap.Config.ARGB_8888);
+            pixels = new int[thumbnailWidth * thumbnailHeight];
+        }
+        try {
+            new Canvas(thumbnail).drawBitmap(bitmap, null,
+                    new Rect(0, 0, thumbnailWidth, thumbnailHeight), thumbnailPaint);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            // e.g. hardware bitmaps cannot be drawn on software canvases
+            Logger.debug("Cannot read frame pixels, assuming the whole frame has changed", e);
+            frameDiffer.reset();
+            return new Rect(0, 0, width, height);
+        }
+        thumbnail.getPixels(pixels, 0, thumbnailWidth, 0, 0, thumbnailWidth, thumbnailHeight);
+        Rect dirtyRect = frameDiffer.update(pixels, thumbnailWidth, thumbnailHeight);
+        return dirtyRect == null
+                ? null
+                : FrameDiffer.toFrameRect(dirtyRect, thumbnailWidth, thumbnailHeight, width, height);
+    }
+
+    private static void writeFrame(MjpegScreenshotClient client, byte[] data, boolean isFullFrame) {
+        // Frames are queued, so slow clients don't delay the stream
+        client.write(data, isFullFrame);
+    }
+
+    private byte[] encodeFrame(Bitmap bitmap, float scale) {
+        long start = SystemClock.uptimeMillis();
         byte[] jpeg = ScreenshotHelper.compressJpeg(
-            screenshot,
-            ServerConfig.getMjpegScalingFactor() / 100.0f,
+            bitmap,
+            scale,
             ServerConfig.getMjpegServerScreenshotQuality(),
             ServerConfig.isMjpegBilinearFiltering()
         );
-        screenshot.recycle();
-
-        byte[] header = String.format(
+        stats.onFrameEncoded(SystemClock.uptimeMillis() - start, false);
+        return toMultipartChunk(String.format(
             Locale.ROOT,
             BOUNDARY_STRING,
             jpeg.length
-        ).getBytes(UTF_8);
+        ), jpeg);
+    }
+
+    private byte[] encodeDirtyRegion(Bitmap bitmap, Rect dirtyRect, float scale) {
+        long start = SystemClock.uptimeMillis();
+        Bitmap region = Bitmap.createBitmap(bitmap, dirtyRect.left, dirtyRect.top,
+            dirtyRect.width(), dirtyRect.height());
+        byte[] jpeg;
+        try {
+            jpeg = ScreenshotHelper.compressJpeg(
+                region,
+                scale,
+                ServerConfig.getMjpegServerScreenshotQuality(),
+                ServerConfig.isMjpegBilinearFiltering()
+            );
+        } finally {
+            if (region != bitmap) {
+                region.recycle();
+            }
+        }
+        stats.onFrameEncoded(SystemClock.uptimeMillis() - start, true);
+        return toMultipartChunk(String.format(
+            Locale.ROOT,
+            DIRTY_REGION_BOUNDARY_STRING,
+            jpeg.length,
+            Math.round(dirtyRect.left * scale),
+            Math.round(dirtyRect.top * scale),
+            Math.max(Math.round(dirtyRect.width() * scale), 1),
+            Math.max(Math.round(dirtyRect.height() * scale), 1)
+        ), jpeg);
+    }
+
+    private static byte[] toMultipartChunk(String headerString, byte[] jpeg) {
+        byte[] header = headerString.getBytes(UTF_8);
         byte[] data = new byte[jpeg.length + header.length + END.length];
 
         System.arraycopy(
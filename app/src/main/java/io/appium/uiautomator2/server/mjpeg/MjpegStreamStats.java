@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.server.mjpeg;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the MJPEG stream, which are exposed to clients for diagnostics
+ */
+public class MjpegStreamStats {
+    private static MjpegStreamStats INSTANCE;
+
+    private final AtomicLong capturedFramesCount = new AtomicLong();
+    private final AtomicLong skippedFramesCount = new AtomicLong();
+    private final AtomicLong encodedFramesCount = new AtomicLong();
+    private final AtomicLong dirtyRegionsCount = new AtomicLong();
+    private final AtomicLong sentFramesCount = new AtomicLong();
+    private final AtomicLong droppedFramesCount = new AtomicLong();
+    private final AtomicLong sentBytesCount = new AtomicLong();
+    private final AtomicLong totalEncodeTimeMs = new AtomicLong();
+    private final AtomicLong lastEncodeTimeMs = new AtomicLong();
+    private final AtomicInteger clientsCount = new AtomicInteger();
+
+    MjpegStreamStats() {
+    }
+
+    public static synchronized MjpegStreamStats getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new MjpegStreamStats();
+        }
+        return INSTANCE;
+    }
+
+    void onFrameCaptured() {
+        capturedFramesCount.incrementAndGet();
+    }
+
+    void onFrameSkipped() {
+        skippedFramesCount.incrementAndGet();
+    }
+
+    void onFrameEncoded(long encodeTimeMs, boolean isDirtyRegion) {
+        encodedFramesCount.incrementAndGet();
+        if (isDirtyRegion) {
+            dirtyRegionsCount.incrementAndGet();
+        }
+        totalEncodeTimeMs.addAndGet(encodeTimeMs);
+        lastEncodeTimeMs.set(encodeTimeMs);
+    }
+
+    void onFrameSent(int size) {
+        sentFramesCount.incrementAndGet();
+        sentBytesCount.addAndGet(size);
+    }
+
+    void onFrameDropped() {
+        droppedFramesCount.incrementAndGet();
+    }
+
+    void setClientsCount(int count) {
+        clientsCount.set(count);
+    }
+
+    /**
+     * @return the count of frames, which have been taken from the screen
+     */
+    public long getCapturedFramesCount() {
+        return capturedFramesCount.get();
+    }
+
+    /**
+     * @return the count of captured frames, which have not been encoded,
+     * because they are identical to the previous ones
+     */
+    public long getSkippedFramesCount() {
+        return skippedFramesCount.get();
+    }
+
+    /**
+     * @return the count of encoded JPEG images including dirty regions
+     */
+    public long getEncodedFramesCount() {
+        return encodedFramesCount.get();
+    }
+
+    /**
+     * @return the count of encoded JPEG images, which only contain changed parts of frames
+     */
+    public long getDirtyRegionsCount() {
+        return dirtyRegionsCount.get();
+    }
+
+    /**
+     * @return the count of images written to all clients
+     */
+    public long getSentFramesCount() {
+        return sentFramesCount.get();
+    }
+
+    /**
+     * @return the count of queued images, which have been dropped,
+     * because their clients could not receive them fast enough
+     */
+    public long getDroppedFramesCount() {
+        return droppedFramesCount.get();
+    }
+
+    public long getSentBytesCount() {
+        return sentBytesCount.get();
+    }
+
+    public long getTotalEncodeTimeMs() {
+        return totalEncodeTimeMs.get();
+    }
+
+    public long getLastEncodeTimeMs() {
+        return lastEncodeTimeMs.get();
+    }
+
+    public double getAverageEncodeTimeMs() {
+        long count = getEncodedFramesCount();
+        return count == 0 ? 0 : (double) getTotalEncodeTimeMs() / count;
+    }
+
+    public int getClientsCount() {
+        return clientsCount.get();
+    }
+}
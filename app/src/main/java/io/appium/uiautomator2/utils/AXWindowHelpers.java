@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+import io.appium.uiautomator2.core.AxNodeFetcher;
 import io.appium.uiautomator2.core.UiAutomatorBridge;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
 import io.appium.uiautomator2.model.settings.Settings;
@@ -61,7 +62,7 @@ public class AXWindowHelpers {
         long start = SystemClock.uptimeMillis();
         while (SystemClock.uptimeMillis() - start < AX_ROOT_RETRIEVAL_TIMEOUT_MS) {
             try {
-                AccessibilityNodeInfo root = UiAutomatorBridge.getInstance().getAccessibilityRootNode();
+                AccessibilityNodeInfo root = AxNodeFetcher.getRootInActiveWindow();
                 if (root != null) {
                     return root;
                 }
@@ -89,7 +90,7 @@ public class AXWindowHelpers {
                 .getUiAutomation()
                 .getWindows();
         for (AccessibilityWindowInfo window : windows) {
-            AccessibilityNodeInfo root = window.getRoot();
+            AccessibilityNodeInfo root = AxNodeFetcher.getRoot(window);
             if (root == null) {
                 Logger.info(String.format("Skipping null root node for window: %s", window.toString()));
                 continue;
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.utils;
+
+import android.graphics.Rect;
+import android.util.Range;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+import androidx.test.uiautomator.UiObject;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.UiObjectNotFoundException;
+
+import io.appium.uiautomator2.core.AxNodeInfoHelper;
+import io.appium.uiautomator2.model.AndroidElement;
+
+import static io.appium.uiautomator2.core.AxNodeInfoExtractor.toAxNodeInfo;
+import static io.appium.uiautomator2.core.AxNodeInfoExtractor.toNullableAxNodeInfo;
+import static io.appium.uiautomator2.utils.ElementHelpers.generateNoAttributeException;
+import static io.appium.uiautomator2.utils.StringHelpers.charSequenceToString;
+
+/**
+ * Reads attributes of the same element while retrieving its accessibility node only once.
+ * Each {@link UiObject} or {@link UiObject2} getter refreshes or even looks up
+ * the underlying node again, which is an IPC call.
+ * {@link AndroidElement#getAttribute(String)} implementations read attributes using this class
+ * as well, so single and bulk reads always return the same values.
+ */
+public class ElementAttributesReader {
+    private final AndroidElement element;
+    private final Object uiObject;
+    // UiObject getters return empty strings instead of nulls
+    private final boolean replaceNulls;
+    private AccessibilityNodeInfo node;
+    private Rect bounds;
+
+    public ElementAttributesReader(AndroidElement element) {
+        this.element = element;
+        this.uiObject = element.getUiObject();
+        this.replaceNulls = uiObject instanceof UiObject;
+        // Toasts have synthetic nodes, which cannot be refreshed
+        this.node = ElementHelpers.getToastNodeInfo(uiObject);
+    }
+
+    private AccessibilityNodeInfo getNode() throws UiObjectNotFoundException {
+        if (node != null) {
+            return node;
+        }
+        if (uiObject instanceof UiObject) {
+            node = toNullableAxNodeInfo(uiObject);
+            if (node == null) {
+                throw new UiObjectNotFoundException(((UiObject) uiObject).getSelector().toString());
+            }
+        } else {
+            node = toAxNodeInfo(uiObject);
+        }
+        return node;
+    }
+
+    private Rect getBounds() throws UiObjectNotFoundException {
+        if (bounds == null) {
+            bounds = AxNodeInfoHelper.getBounds(getNode());
+        }
+        return bounds;
+    }
+
+    private boolean isDisplayed() throws UiObjectNotFoundException {
+        // A vanished UiObject is not displayed rather than stale
+        if (node == null && uiObject instanceof UiObject && !((UiObject) uiObject).exists()) {
+            return false;
+        }
+        return AxNodeInfoHelper.isVisible(getNode());
+    }
+
+    /**
+     * Makes sure the given attribute name is supported before any element is accessed.
+     *
+     * @param attr attribute name
+     * @throws io.appium.uiautomator2.common.exceptions.NoSuchAttributeException if the name is unknown
+     */
+    public static void validate(String attr) {
+        if (Attribute.fromString(attr) == null) {
+            throw generateNoAttributeException(attr);
+        }
+    }
+
+    @Nullable
+    public String read(String attr) throws UiObjectNotFoundException {
+        final Attribute dstAttribute = Attribute.fromString(attr);
+        if (dstAttribute == null) {
+            throw generateNoAttributeException(attr);
+        }
+        final Object result;
+        switch (dstAttribute) {
+            case TEXT:
+                result = AxNodeInfoHelper.getText(getNode(), true);
+                break;
+            case CONTENT_DESC:
+                result = charSequenceToString(getNode().getContentDescription(), replaceNulls);
+                break;
+            case CLASS:
+                result = charSequenceToString(getNode().getClassName(), replaceNulls);
+                break;
+            case RESOURCE_ID:
+                result = getNode().getViewIdResourceName();
+                break;
+            case CONTENT_SIZE:
+                // The caller must hold the session action lock while reading contentSize,
+                // since it is measured by scrolling the element
+                result = ElementHelpers.getContentSize(element);
+                break;
+            case ENABLED:
+                result = getNode().isEnabled();
+                break;
+            case CHECKABLE:
+                result = getNode().isCheckable();
+                break;
+            case CHECKED:
+                result = getNode().isChecked();
+                break;
+            case CLICKABLE:
+                result = getNode().isClickable();
+                break;
+            case FOCUSABLE:
+                result = getNode().isFocusable();
+                break;
+            case FOCUSED:
+                result = getNode().isFocused();
+                break;
+            case LONG_CLICKABLE:
+                result = getNode().isLongClickable();
+                break;
+            case SCROLLABLE:
+                result = getNode().isScrollable();
+                break;
+            case SELECTED:
+                result = getNode().isSelected();
+                break;
+            case DISPLAYED:
+                result = isDisplayed();
+                break;
+            case PASSWORD:
+                result = AxNodeInfoHelper.isPassword(getNode());
+                break;
+            case BOUNDS:
+                result = getBounds().toShortString();
+                break;
+            case PACKAGE:
+                result = AxNodeInfoHelper.getPackageName(getNode());
+                break;
+            case SELECTION_END:
+            case SELECTION_START:
+                Range<Integer> selectionRange = AxNodeInfoHelper.getSelectionRange(getNode());
+                result = selectionRange == null
+                        ? null
+                        : (dstAttribute == Attribute.SELECTION_END ? selectionRange.getUpper() : selectionRange.getLower());
+                break;
+            default:
+                throw generateNoAttributeException(attr);
+        }
+        if (result == null) {
+            return null;
+        }
+        return (result instanceof String) ? (String) result : String.valueOf(result);
+    }
+}
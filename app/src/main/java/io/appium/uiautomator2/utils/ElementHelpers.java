@@ -34,12 +34,15 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.InvalidClassException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 import io.appium.uiautomator2.common.exceptions.ElementNotFoundException;
@@ -62,11 +65,11 @@ import static io.appium.uiautomator2.utils.Device.getAndroidElement;
 import static io.appium.uiautomator2.utils.Device.getUiDevice;
 import static io.appium.uiautomator2.utils.ReflectionUtils.getField;
 import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
 import static io.appium.uiautomator2.utils.StringHelpers.charSequenceToString;
 import static io.appium.uiautomator2.utils.StringHelpers.toNonNullString;
 
 public abstract class ElementHelpers {
-    private static Method findAccessibilityNodeInfo;
     // these constants are magic numbers experimentally determined to minimize flakiness in generating
     // last scroll data used in getting the 'contentSize' attribute.
     // TODO see whether anchoring these to time and screen size is more reliable across devices
@@ -75,14 +78,15 @@ public abstract class ElementHelpers {
     // https://android.googlesource.com/platform/frameworks/testing/+/master/uiautomator/library/core-src/com/android/uiautomator/core/UiScrollable.java#635
     private static final double SWIPE_DEAD_ZONE_PCT = 0.1;
 
+    @Nullable
     private static AccessibilityNodeInfo elementToNode(Object element) {
-        AccessibilityNodeInfo result = null;
         try {
-            result = (AccessibilityNodeInfo) findAccessibilityNodeInfo.invoke(element, 5000L);
+            return (AccessibilityNodeInfo) invoke(
+                    getMethod(UiObject.class, "findAccessibilityNodeInfo", long.class), element, 5000L);
         } catch (Exception e) {
-            e.printStackTrace();
+            Logger.error(String.format("Cannot retrieve the accessibility node of %s", element), e);
+            return null;
         }
-        return result;
     }
 
     /**
@@ -92,19 +96,34 @@ public abstract class ElementHelpers {
      * @return a new list with duplicates removed
      */
     public static List<Object> dedupe(List<Object> elements) {
-        try {
-            findAccessibilityNodeInfo = getMethod(UiObject.class, "findAccessibilityNodeInfo", long.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        return dedupe(elements, Collections.<Object, AccessibilityNodeInfo>emptyMap());
+    }
 
+    /**
+     * Remove all duplicate elements from the provided list.
+     * Elements are duplicates if their accessibility nodes have the same
+     * window id and source node id.
+     *
+     * @param elements   - elements to remove duplicates from
+     * @param knownNodes - accessibility nodes of elements, which have already been found.
+     *                   Nodes of other elements are looked up again, but only once per element
+     * @return a new list with duplicates removed
+     */
+    public static List<Object> dedupe(List<Object> elements, Map<Object, AccessibilityNodeInfo> knownNodes) {
+        Map<Object, AccessibilityNodeInfo> resolvedNodes = new IdentityHashMap<>(knownNodes);
         List<Object> result = new ArrayList<>();
-        List<AccessibilityNodeInfo> nodes = new ArrayList<>();
+        // AccessibilityNodeInfo equality and hash code are based on the window id and the source node id
+        Set<AccessibilityNodeInfo> nodes = new HashSet<>();
 
         for (Object element : elements) {
-            AccessibilityNodeInfo node = elementToNode(element);
-            if (!nodes.contains(node)) {
-                nodes.add(node);
+            AccessibilityNodeInfo node;
+            if (resolvedNodes.containsKey(element)) {
+                node = resolvedNodes.get(element);
+            } else {
+                node = elementToNode(element);
+                resolvedNodes.put(element, node);
+            }
+            if (nodes.add(node)) {
                 result.add(element);
             }
         }
@@ -178,30 +197,38 @@ public abstract class ElementHelpers {
 
     @Nullable
     public static String getText(Object element, boolean replaceNull) {
-        if (element instanceof UiObject2) {
-            /*
-             * If the given element is TOAST element, we can't perform any operation on {@link UiObject2} as it
-             * not formed with valid AccessibilityNodeInfo, Instead we are using custom created AccessibilityNodeInfo of
-             * TOAST Element to retrieve the Text.
-             */
-            AccessibilityNodeInfo nodeInfo = (AccessibilityNodeInfo) getField(UiObject2.class,
-                    "mCachedNode", element);
-            if (nodeInfo != null && Objects.equals(nodeInfo.getClassName(), Toast.class.getName())) {
-                return charSequenceToString(nodeInfo.getText(), replaceNull);
-            }
+        AccessibilityNodeInfo toastNodeInfo = getToastNodeInfo(element);
+        if (toastNodeInfo != null) {
+            return charSequenceToString(toastNodeInfo.getText(), replaceNull);
         }
 
         return AxNodeInfoHelper.getText(AxNodeInfoExtractor.toAxNodeInfo(element), replaceNull);
     }
 
+    /**
+     * If the given element is TOAST element, we can't perform any operation on {@link UiObject2} as it
+     * not formed with valid AccessibilityNodeInfo, Instead we are using custom created AccessibilityNodeInfo of
+     * TOAST Element to retrieve its attributes.
+     *
+     * @param element UiObject or UiObject2 instance
+     * @return the custom node of the toast or null if the element is not a toast
+     */
+    @Nullable
+    public static AccessibilityNodeInfo getToastNodeInfo(Object element) {
+        if (!(element instanceof UiObject2)) {
+            return null;
+        }
+        AccessibilityNodeInfo nodeInfo = (AccessibilityNodeInfo) getField(UiObject2.class,
+                "mCachedNode", element);
+        return nodeInfo != null && Objects.equals(nodeInfo.getClassName(), Toast.class.getName())
+                ? nodeInfo
+                : null;
+    }
+
     public static String getContentSize(AndroidElement element) throws UiObjectNotFoundException {
         Rect boundsRect = element.getBounds();
         ContentSize contentSize = new ContentSize(boundsRect);
-        try {
-            contentSize.touchPadding = getTouchPadding(element);
-        } catch (ReflectiveOperationException e) {
-            throw new UiAutomator2Exception(e);
-        }
+        contentSize.touchPadding = getTouchPadding(element);
         contentSize.scrollableOffset = getScrollableOffset(element);
         return contentSize.toString();
     }
@@ -344,21 +371,14 @@ public abstract class ElementHelpers {
         return 0;
     }
 
-    private static int getTouchPadding(AndroidElement element) throws UiObjectNotFoundException, ReflectiveOperationException {
+    private static int getTouchPadding(AndroidElement element) throws UiObjectNotFoundException {
         final UiObject2 uiObject2 = element instanceof UiObject2Element
                 ? getUiDevice().findObject(By.clazz(((UiObject2) element.getUiObject()).getClassName()))
                 : getUiDevice().findObject(By.clazz(((UiObject) element.getUiObject()).getClassName()));
-        Field gestureField = uiObject2.getClass().getDeclaredField("mGestures");
-        gestureField.setAccessible(true);
-        Object gestureObject = gestureField.get(uiObject2);
-
-        Field viewConfigField = gestureObject.getClass().getDeclaredField("mViewConfig");
-        viewConfigField.setAccessible(true);
-        Object viewConfigObject = viewConfigField.get(gestureObject);
-
-        Method getScaledPagingTouchSlopMethod = viewConfigObject.getClass().getDeclaredMethod("getScaledPagingTouchSlop");
-        getScaledPagingTouchSlopMethod.setAccessible(true);
-        int touchPadding = (int) getScaledPagingTouchSlopMethod.invoke(viewConfigObject);
+        Object gestureObject = getField("mGestures", uiObject2);
+        Object viewConfigObject = getField("mViewConfig", gestureObject);
+        int touchPadding = (int) invoke(getMethod(viewConfigObject.getClass(), "getScaledPagingTouchSlop"),
+                viewConfigObject);
 
         return touchPadding / 2;
     }
@@ -30,6 +30,7 @@ import java.util.regex.Pattern;
 import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
 import io.appium.uiautomator2.common.exceptions.UiSelectorSyntaxException;
 import io.appium.uiautomator2.core.AccessibilityNodeInfoDumper;
+import io.appium.uiautomator2.core.UiElementSnapshotCache;
 import io.appium.uiautomator2.model.AndroidElement;
 import io.appium.uiautomator2.model.AppiumUIA2Driver;
 import io.appium.uiautomator2.model.By;
@@ -113,6 +114,33 @@ public class ElementLocationHelpers {
         return new AccessibilityNodeInfoDumper(root, includedAttributes).findNodes(expression, multiple);
     }
 
+    /**
+     * Looks up nodes with the given attribute value in the index of the cached snapshot.
+     * Class names starting with a dot are resolved the same way uiautomator does it.
+     *
+     * @param attribute one of resource-id, content-desc or class
+     * @param value     the exact attribute value
+     * @return matched nodes or null if the index cannot answer the query,
+     * so the live hierarchy must be searched instead
+     */
+    @Nullable
+    public static NodeInfoList findIndexedNodes(Attribute attribute, String value) {
+        if (attribute == Attribute.CLASS && value.startsWith(".")) {
+            value = "android.widget" + value;
+        }
+        List<AccessibilityNodeInfo> nodes = UiElementSnapshotCache.getInstance().findNodes(attribute, value);
+        // The cached snapshot might be behind the actual hierarchy,
+        // so only the live search could tell for sure there are no matches
+        if (nodes == null || nodes.isEmpty()) {
+            return null;
+        }
+        NodeInfoList result = new NodeInfoList();
+        for (AccessibilityNodeInfo node : nodes) {
+            result.add(node);
+        }
+        return result;
+    }
+
     @Nullable
     public static UiSelector toSelector(String uiaExpression) throws UiSelectorSyntaxException,
             UiObjectNotFoundException {
@@ -10,19 +10,35 @@ import java.lang.reflect.Type;
 
 import io.appium.uiautomator2.http.IHttpRequest;
 import io.appium.uiautomator2.model.api.BaseModel;
+import io.appium.uiautomator2.model.api.ModelTypeAdapterFactory;
 
 public class ModelUtils {
+    // Gson instances are thread-safe and cache type adapters they have created,
+    // so they must be shared rather than created for each conversion
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+    private static final Gson SERIALIZER = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .disableHtmlEscaping()
+            .serializeNulls()
+            .create();
+    private static final Gson SERIALIZER_WITHOUT_NULLS = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .disableHtmlEscaping()
+            .create();
+
     public static <T extends BaseModel> T toModel(IHttpRequest request, Class<T> modelCls) {
         //noinspection unchecked
-        return (T) new Gson().fromJson(request.body(), modelCls).validate();
+        return (T) GSON.fromJson(request.body(), modelCls).validate();
     }
 
     public static Object toObject(JSONArray json, Type type) {
-        return new Gson().fromJson(json.toString(), type);
+        return GSON.fromJson(json.toString(), type);
     }
 
     public static Object toObject(JSONObject json, Type type) {
-        return new Gson().fromJson(json.toString(), type);
+        return GSON.fromJson(json.toString(), type);
     }
 
     public static String toJsonString(Object model) {
@@ -30,11 +46,17 @@ public class ModelUtils {
     }
 
     public static String toJsonString(Object model, boolean includeNullValues) {
-        GsonBuilder builder = new GsonBuilder()
-                .disableHtmlEscaping();
-        if (includeNullValues) {
-            builder.serializeNulls();
-        }
-        return builder.create().toJson(model);
+        return (includeNullValues ? SERIALIZER : SERIALIZER_WITHOUT_NULLS).toJson(model);
+    }
+
+    /**
+     * Serializes the given model in the same way {@link #toJsonString(Object)} does,
+     * but writes the result to the given destination instead of building a string.
+     *
+     * @param model  the model to serialize
+     * @param writer the destination. It is not flushed
+     */
+    public static void toJson(Object model, Appendable writer) {
+        SERIALIZER.toJson(model, writer);
     }
 }
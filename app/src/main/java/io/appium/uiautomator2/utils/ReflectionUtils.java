@@ -22,35 +22,105 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
 
+/**
+ * Reflection helpers. Looked up classes and members are cached, since
+ * some of them are accessed for every injected input event or every retrieved node,
+ * while resolving them requires costly lookups and security checks.
+ */
 public class ReflectionUtils {
+    private static final Map<String, Class<?>> CLASSES = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Method> METHODS = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Field> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private static final class MemberKey {
+        private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+        private final Class<?> clazz;
+        private final String name;
+        private final Class<?>[] parameterTypes;
+        private final int hashCode;
+
+        MemberKey(Class<?> clazz, String name, @Nullable Class<?>[] parameterTypes) {
+            this.clazz = clazz;
+            this.name = name;
+            this.parameterTypes = parameterTypes == null ? NO_TYPES : parameterTypes;
+            this.hashCode = 31 * (31 * clazz.hashCode() + name.hashCode())
+                    + Arrays.hashCode(this.parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MemberKey)) {
+                return false;
+            }
+            MemberKey other = (MemberKey) o;
+            return clazz == other.clazz && name.equals(other.name)
+                    && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     public static Class<?> getClass(final String name) {
+        Class<?> result = CLASSES.get(name);
+        if (result != null) {
+            return result;
+        }
         try {
-            return Class.forName(name);
+            result = Class.forName(name);
         } catch (final ClassNotFoundException e) {
             throw new UiAutomator2Exception(String.format("Unable to find class %s", name), e);
         }
+        CLASSES.put(name, result);
+        return result;
     }
 
     public static Constructor<?> getConstructor(Class<?> clazz, Class<?>... parameterTypes) {
+        MemberKey key = new MemberKey(clazz, "<init>", parameterTypes);
+        Constructor<?> result = CONSTRUCTORS.get(key);
+        if (result != null) {
+            return result;
+        }
         try {
-            Constructor<?> result = clazz.getDeclaredConstructor(parameterTypes);
+            result = clazz.getDeclaredConstructor(parameterTypes);
             result.setAccessible(true);
-            return result;
         } catch (NoSuchMethodException e) {
             throw new UiAutomator2Exception(
                     String.format("Cannot find %s class constructor", clazz.getCanonicalName()), e);
         }
+        CONSTRUCTORS.put(key, result);
+        return result;
+    }
+
+    private static Field getDeclaredField(final Class<?> clazz, final String fieldName)
+            throws NoSuchFieldException {
+        MemberKey key = new MemberKey(clazz, fieldName, null);
+        Field result = FIELDS.get(key);
+        if (result != null) {
+            return result;
+        }
+        result = clazz.getDeclaredField(fieldName);
+        result.setAccessible(true);
+        FIELDS.put(key, result);
+        return result;
     }
 
     public static Object getField(final Class<?> clazz, final String fieldName,
                                   @Nullable final Object object) {
         try {
-            Field field = clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return field.get(object);
+            return getDeclaredField(clazz, fieldName).get(object);
         } catch (NoSuchFieldException | IllegalAccessException e) {
             throw new UiAutomator2Exception(
                     String.format("Cannot get field %s from object %s (class %s)",
@@ -68,9 +138,7 @@ public class ReflectionUtils {
 
     public static void setField(final String fieldName, final Object value, final Object dstObject) {
         try {
-            Field declaredField = dstObject.getClass().getDeclaredField(fieldName);
-            declaredField.setAccessible(true);
-            declaredField.set(dstObject, value);
+            getDeclaredField(dstObject.getClass(), fieldName).set(dstObject, value);
         } catch (NoSuchFieldException | IllegalAccessException e) {
             throw new UiAutomator2Exception(String.format("Cannot set %s's field '%s' to '%s'",
                     dstObject.getClass().getSimpleName(), fieldName, value), e);
@@ -87,14 +155,20 @@ public class ReflectionUtils {
     }
 
     public static Method getMethod(final Class<?> clazz, final String methodName, final Class<?>... parameterTypes) {
+        MemberKey key = new MemberKey(clazz, methodName, parameterTypes);
+        Method result = METHODS.get(key);
+        if (result != null) {
+            return result;
+        }
         try {
-            final Method method = clazz.getDeclaredMethod(methodName, parameterTypes);
-            method.setAccessible(true);
-            return method;
+            result = clazz.getDeclaredMethod(methodName, parameterTypes);
+            result.setAccessible(true);
         } catch (NoSuchMethodException e) {
             throw new UiAutomator2Exception(String.format("Cannot get method %s from class %s with parameter types %s",
                     methodName, clazz.getCanonicalName(), Arrays.toString(parameterTypes)), e);
         }
+        METHODS.put(key, result);
+        return result;
     }
 
     public static Method getMethod(final String className, final String method, final Class<?>... parameterTypes) {
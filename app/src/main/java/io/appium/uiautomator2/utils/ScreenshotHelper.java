@@ -39,14 +39,20 @@ import io.appium.uiautomator2.common.exceptions.CompressScreenshotException;
 import io.appium.uiautomator2.common.exceptions.CropScreenshotException;
 import io.appium.uiautomator2.common.exceptions.TakeScreenshotException;
 import io.appium.uiautomator2.core.UiAutomatorBridge;
+import io.appium.uiautomator2.http.AppiumResponse;
 import io.appium.uiautomator2.model.internal.CustomUiDevice;
+import io.appium.uiautomator2.server.mjpeg.MjpegFrameCache;
 
 import static android.graphics.Bitmap.CompressFormat.JPEG;
 import static android.graphics.Bitmap.CompressFormat.PNG;
 import static android.util.DisplayMetrics.DENSITY_DEFAULT;
 
 public class ScreenshotHelper {
+    public static final String FRAME_AGE_HEADER = "X-Appium-Screenshot-Frame-Age";
     private static final int PNG_MAGIC_LENGTH = 8;
+    // The age of the cached MJPEG frame, which the last screenshot of the current thread
+    // has been made from, or null if the screen was captured anew
+    private static final ThreadLocal<Long> SERVED_FRAME_AGE = new ThreadLocal<>();
     private static final UiAutomation uia =
         CustomUiDevice.getInstance().getInstrumentation().getUiAutomation();
 
@@ -67,8 +73,10 @@ public class ScreenshotHelper {
         Bitmap screenshot = (Bitmap) screenshotObj;
         try {
             final Bitmap elementScreenshot = crop(screenshot, cropArea);
-            screenshot.recycle();
-            screenshot = elementScreenshot;
+            if (elementScreenshot != screenshot) {
+                screenshot.recycle();
+                screenshot = elementScreenshot;
+            }
             return Base64.encodeToString(compress(screenshot), Base64.DEFAULT);
         } finally {
             screenshot.recycle();
@@ -79,14 +87,110 @@ public class ScreenshotHelper {
         return takeScreenshot(null);
     }
 
+    /**
+     * Grab device screenshot, crop and scale it if needed and encode it to the given format.
+     * The result is not Base64-encoded, so it could be sent as is.
+     *
+     * @param format   Either PNG or JPEG.
+     * @param quality  JPEG compression quality in range 0..100. Ignored for PNG.
+     * @param scale    Scaling factor in range (0, 1]. Applied after cropping.
+     * @param cropArea Area to crop.
+     * @return Encoded screenshot bytes.
+     */
+    public static byte[] takeScreenshot(Bitmap.CompressFormat format, int quality, float scale,
+                                        @Nullable Rect cropArea) throws TakeScreenshotException {
+        if (format == PNG && cropArea == null && !isScaled(scale)) {
+            // screencap output could be sent without decoding and compressing it again
+            return takeDeviceScreenshot(byte[].class);
+        }
+
+        Bitmap screenshot = takeDeviceScreenshot(Bitmap.class);
+        try {
+            if (cropArea != null) {
+                final Bitmap elementScreenshot = crop(screenshot, cropArea);
+                if (elementScreenshot != screenshot) {
+                    screenshot.recycle();
+                    screenshot = elementScreenshot;
+                }
+            }
+            if (format == JPEG) {
+                return compressJpeg(screenshot, scale, quality, true);
+            }
+            final Bitmap scaledScreenshot = scale(screenshot, scale, true);
+            if (scaledScreenshot != screenshot) {
+                screenshot.recycle();
+                screenshot = scaledScreenshot;
+            }
+            return compress(screenshot);
+        } finally {
+            screenshot.recycle();
+        }
+    }
+
+    /**
+     * Adds the age of the reused MJPEG frame to the response if the last screenshot
+     * of the current thread has been made from such frame.
+     *
+     * @param response the response of a screenshot command
+     * @return the same response
+     */
+    public static AppiumResponse withServedFrameAge(AppiumResponse response) {
+        Long frameAge = SERVED_FRAME_AGE.get();
+        if (frameAge != null) {
+            response.setHeader(FRAME_AGE_HEADER, String.valueOf(frameAge));
+        }
+        return response;
+    }
+
+    /**
+     * Takes the output from the fresh frame of the MJPEG stream if there is such
+     *
+     * @return the same as {@link #takeDeviceScreenshot(Class)} or null if there is no fresh frame
+     */
+    @Nullable
+    private static <T> T takeCachedScreenshot(Class<T> outputType) throws TakeScreenshotException {
+        MjpegFrameCache.Frame frame = MjpegFrameCache.getInstance().acquireFresh();
+        if (frame == null) {
+            return null;
+        }
+        try {
+            final Bitmap bitmap = frame.getBitmap();
+            T result;
+            if (outputType == Bitmap.class) {
+                // The frame is shared, so the caller gets its own copy to modify and recycle
+                result = outputType.cast(bitmap.copy(
+                    bitmap.getConfig() == null ? Bitmap.Config.ARGB_8888 : bitmap.getConfig(), false));
+            } else if (outputType == String.class) {
+                result = outputType.cast(Base64.encodeToString(compress(bitmap), Base64.DEFAULT));
+            } else {
+                result = outputType.cast(compress(bitmap));
+            }
+            if (result != null) {
+                long frameAge = frame.getAgeMs();
+                Logger.info(String.format("Reused the MJPEG frame captured %sms ago", frameAge));
+                SERVED_FRAME_AGE.set(frameAge);
+            }
+            return result;
+        } finally {
+            frame.release();
+        }
+    }
+
     /**
      * Takes a shot of the current device's screen
      *
-     * @param outputType Either String.class or Bitmap.class
-     * @return Either base64-encoded content of the PNG screenshot or the screenshot as bitmap image
+     * @param outputType Either String.class, byte[].class or Bitmap.class
+     * @return Either base64-encoded content of the PNG screenshot, its raw content
+     * or the screenshot as bitmap image
      * @throws TakeScreenshotException if there was an error while taking the screenshot
      */
     private static <T> T takeDeviceScreenshot(Class<T> outputType) throws TakeScreenshotException {
+        SERVED_FRAME_AGE.remove();
+        T cachedScreenshot = takeCachedScreenshot(outputType);
+        if (cachedScreenshot != null) {
+            return cachedScreenshot;
+        }
+
         Display display = UiAutomatorBridge.getInstance().getDefaultDisplay();
         DisplayMetrics metrics = new DisplayMetrics();
         display.getMetrics(metrics);
@@ -105,6 +209,9 @@ public class ScreenshotHelper {
                     if (outputType == String.class) {
                         return outputType.cast(Base64.encodeToString(pngBytes, Base64.DEFAULT));
                     }
+                    if (outputType == byte[].class) {
+                        return outputType.cast(pngBytes);
+                    }
                     screenshot = BitmapFactory.decodeByteArray(
                         pngBytes,
                         0,
@@ -144,6 +251,13 @@ public class ScreenshotHelper {
                 screenshot.recycle();
             }
         }
+        if (outputType == byte[].class) {
+            try {
+                return outputType.cast(compress(screenshot));
+            } finally {
+                screenshot.recycle();
+            }
+        }
         return outputType.cast(screenshot);
     }
 
@@ -158,21 +272,12 @@ public class ScreenshotHelper {
         }
     }
 
+    /**
+     * Scales the given bitmap and compresses it to JPEG format.
+     * The given bitmap is not recycled.
+     */
     public static byte[] compressJpeg(final Bitmap bitmap, float scale, int quality, boolean filter) throws TakeScreenshotException {
-        Bitmap resultBitmap;
-        if (Math.abs(scale - 1.0f) < Float.MIN_NORMAL) {
-            resultBitmap = bitmap;
-        } else {
-            int width = Math.round(bitmap.getWidth() * scale);
-            int height = Math.round(bitmap.getHeight() * scale);
-            resultBitmap = Bitmap.createScaledBitmap(
-                bitmap,
-                width,
-                height,
-                filter
-            );
-            bitmap.recycle();
-        }
+        Bitmap resultBitmap = scale(bitmap, scale, filter);
 
         try (final ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
             if (!resultBitmap.compress(JPEG, quality, stream)) {
@@ -181,7 +286,32 @@ public class ScreenshotHelper {
             return stream.toByteArray();
         } catch (IOException e) {
             throw new CompressScreenshotException(JPEG, e);
+        } finally {
+            if (resultBitmap != bitmap) {
+                resultBitmap.recycle();
+            }
+        }
+    }
+
+    private static boolean isScaled(float scale) {
+        return Math.abs(scale - 1.0f) >= Float.MIN_NORMAL;
+    }
+
+    /**
+     * @return the scaled copy of the given bitmap or the same bitmap if no scaling is needed
+     */
+    private static Bitmap scale(final Bitmap bitmap, float scale, boolean filter) {
+        if (!isScaled(scale)) {
+            return bitmap;
         }
+        int width = Math.max(Math.round(bitmap.getWidth() * scale), 1);
+        int height = Math.max(Math.round(bitmap.getHeight() * scale), 1);
+        return Bitmap.createScaledBitmap(
+            bitmap,
+            width,
+            height,
+            filter
+        );
     }
 
     private static Bitmap crop(Bitmap bitmap, Rect cropArea) throws CropScreenshotException {
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+public class AxNodeFetcherTests {
+    @Mock
+    private AccessibilityNodeInfo parent;
+
+    @Mock
+    private AccessibilityNodeInfo child;
+
+    @Test
+    public void shouldFallBackToDefaultChildRetrieval() {
+        when(parent.getChild(1)).thenReturn(child);
+        Assert.assertSame(child, AxNodeFetcher.getChild(parent, 1));
+        verify(parent).getChild(1);
+    }
+
+    @Test
+    public void shouldCountNodeRequests() {
+        long countBefore = AxNodeFetcher.getFetchesCount();
+        AxNodeFetcher.getChild(parent, 0);
+        AxNodeFetcher.getChild(parent, 1);
+        Assert.assertEquals(countBefore + 2, AxNodeFetcher.getFetchesCount());
+        Assert.assertEquals(Long.valueOf(countBefore + 2),
+                AxNodeFetcher.getStats().get("totalFetches"));
+    }
+
+    @Test
+    public void shouldRememberLastSnapshotRequests() {
+        AxNodeFetcher.setLastSnapshotFetchesCount(42);
+        Assert.assertEquals(Long.valueOf(42), AxNodeFetcher.getStats().get("lastSnapshotFetches"));
+        Assert.assertEquals(42, AxNodeFetcher.getLastSnapshotFetchesCount());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.jdom2.Document;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static io.appium.uiautomator2.core.AccessibilityNodeInfoDumper.NON_XML_CHAR_REPLACEMENT;
+import static io.appium.uiautomator2.utils.XMLHelpers.toSafeString;
+
+/**
+ * Reproduces the XPath lookup, which serializes the hierarchy to XML,
+ * parses it back with JDOM and evaluates the query with Jaxen over the parsed document.
+ * Serves as the reference implementation for differential tests and benchmarks.
+ */
+public class LegacyXPathEvaluator {
+    private static final String UI_ELEMENT_INDEX = "uiElementIndex";
+    private static final XPathFactory XPATH = XPathFactory.instance();
+    private static final SAXBuilder SAX_BUILDER = new SAXBuilder();
+
+    private final List<UiElement<?, ?>> uiElementsMapping = new ArrayList<>();
+    private XMLStreamWriter writer;
+
+    private void serializeUiElement(UiElement<?, ?> uiElement) throws XMLStreamException {
+        writer.writeStartElement(AccessibilityNodeInfoDumper.toXmlNodeName(uiElement.getClassName()));
+        for (Attribute attr : uiElement.attributeKeys()) {
+            if (!attr.isExposableToXml()) {
+                continue;
+            }
+            Object value = uiElement.get(attr);
+            if (value == null) {
+                continue;
+            }
+            writer.writeAttribute(attr.getName(),
+                    toSafeString(String.valueOf(value), NON_XML_CHAR_REPLACEMENT));
+        }
+        writer.writeAttribute(UI_ELEMENT_INDEX, Integer.toString(uiElementsMapping.size()));
+        uiElementsMapping.add(uiElement);
+        for (UiElement<?, ?> child : uiElement.getChildren()) {
+            serializeUiElement(child);
+        }
+        writer.writeEndElement();
+    }
+
+    public List<UiElement<?, ?>> evaluate(UiElement<?, ?> root, String xpathSelector) throws Exception {
+        uiElementsMapping.clear();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        serializeUiElement(root);
+        writer.writeEndDocument();
+        writer.close();
+
+        Document document = SAX_BUILDER.build(new ByteArrayInputStream(outputStream.toByteArray()));
+        XPathExpression<org.jdom2.Attribute> expr = XPATH.compile(
+                String.format("(%s)/@%s", xpathSelector, UI_ELEMENT_INDEX), Filters.attribute());
+        List<UiElement<?, ?>> result = new ArrayList<>();
+        for (org.jdom2.Attribute uiElementId : expr.evaluate(document)) {
+            result.add(uiElementsMapping.get(uiElementId.getIntValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.appium.uiautomator2.utils.Attribute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NodeAttributeIndexTests {
+    private NodeAttributeIndex index;
+
+    @Before
+    public void setUp() {
+        index = new NodeAttributeIndex();
+    }
+
+    private static AccessibilityNodeInfo node(String resourceId, String className,
+                                              String contentDesc, String text) {
+        AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain();
+        node.setViewIdResourceName(resourceId);
+        node.setClassName(className);
+        node.setContentDescription(contentDesc);
+        node.setText(text);
+        return node;
+    }
+
+    @Test
+    public void shouldFindNodesByExactValues() {
+        AccessibilityNodeInfo button = node("com.app:id/ok", "android.widget.Button", "Confirm", "OK");
+        AccessibilityNodeInfo label = node("com.app:id/label", "android.widget.TextView", null, "OK");
+        index.add(button);
+        index.add(label);
+
+        assertEquals(Collections.singletonList(button), index.get(Attribute.RESOURCE_ID, "com.app:id/ok"));
+        assertEquals(Collections.singletonList(button), index.get(Attribute.CONTENT_DESC, "Confirm"));
+        assertEquals(Collections.singletonList(label), index.get(Attribute.CLASS, "android.widget.TextView"));
+        assertTrue(index.get(Attribute.RESOURCE_ID, "ok").isEmpty());
+    }
+
+    @Test
+    public void shouldKeepInsertionOrder() {
+        AccessibilityNodeInfo first = node("com.app:id/item", "android.widget.TextView", "1", null);
+        AccessibilityNodeInfo second = node("com.app:id/item", "android.widget.TextView", "2", null);
+        index.add(first);
+        index.add(second);
+
+        assertEquals(Arrays.asList(first, second), index.get(Attribute.RESOURCE_ID, "com.app:id/item"));
+        assertEquals(Collections.singletonList(second), index.get(Attribute.CONTENT_DESC, "2"));
+    }
+
+    @Test
+    public void shouldForgetNodesAfterClear() {
+        index.add(node("com.app:id/ok", "android.widget.Button", null, null));
+        index.clear();
+
+        assertTrue(index.get(Attribute.RESOURCE_ID, "com.app:id/ok").isEmpty());
+        assertTrue(index.get(Attribute.CLASS, "android.widget.Button").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNotIndexedAttributes() {
+        index.get(Attribute.BOUNDS, "[0,0][1,1]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotIndexTexts() {
+        index.get(Attribute.TEXT, "OK");
+    }
+}
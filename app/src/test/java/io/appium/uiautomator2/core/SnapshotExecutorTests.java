@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotExecutorTests {
+    private final SnapshotExecutor executor = SnapshotExecutor.getInstance();
+
+    @After
+    public void tearDown() {
+        executor.setParallelism(SnapshotExecutor.DEFAULT_PARALLELISM);
+    }
+
+    private static Callable<Integer> value(final int value) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return value;
+            }
+        };
+    }
+
+    @Test
+    public void shouldPreserveTasksOrder() {
+        executor.setParallelism(3);
+        List<Callable<Integer>> tasks = Arrays.asList(value(1), value(2), value(3), value(4));
+        assertEquals(Arrays.asList(1, 2, 3, 4), executor.invokeAll(tasks));
+    }
+
+    @Test
+    public void shouldCancelSubmittedTasksIfInlineTaskFails() throws Exception {
+        executor.setParallelism(2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Callable<Integer> blocking = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return 0;
+            }
+        };
+        Callable<Integer> failing = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                throw new IllegalStateException("failed");
+            }
+        };
+        try {
+            executor.invokeAll(Arrays.asList(blocking, failing));
+            fail("The failure of the inline task must be propagated");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        // The worker is free again
+        assertEquals(Arrays.asList(1, 2), executor.invokeAll(Arrays.asList(value(1), value(2))));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.appium.uiautomator2.model.settings.NormalizeTagNames;
+import io.appium.uiautomator2.model.settings.Settings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SnapshotStringPoolTests {
+    private SnapshotStringPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new SnapshotStringPool();
+    }
+
+    @After
+    public void tearDown() {
+        ((NormalizeTagNames) Settings.NORMALIZE_TAG_NAMES.getSetting()).update(false);
+    }
+
+    @Test
+    public void shouldReturnSameInstanceForEqualStrings() {
+        String first = new String("android.widget.TextView");
+        String second = new String("android.widget.TextView");
+        assertNotSame(first, second);
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void shouldKeepNulls() {
+        assertNull(pool.intern(null));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void shouldCacheNodeNames() {
+        String nodeName = pool.toXmlNodeName("android.widget.TextView");
+        assertEquals("android.widget.TextView", nodeName);
+        assertSame(nodeName, pool.toXmlNodeName(new String("android.widget.TextView")));
+    }
+
+    @Test
+    public void shouldReplaceBlankClassNames() {
+        assertEquals("android.view.View", pool.toXmlNodeName(null));
+        assertEquals("android.view.View", pool.toXmlNodeName(""));
+    }
+
+    @Test
+    public void shouldRespectTagNamesNormalization() {
+        assertEquals("android.widget.T\u00F8st", pool.toXmlNodeName("android.widget.T\u00F8st"));
+        ((NormalizeTagNames) Settings.NORMALIZE_TAG_NAMES.getSetting()).update(true);
+        assertEquals("android.widget.Tost", pool.toXmlNodeName("android.widget.T\u00F8st"));
+    }
+
+    @Test
+    public void shouldClearCachedValues() {
+        pool.intern("android");
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.model.SyntheticUiElement;
+import io.appium.uiautomator2.model.UiElement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class UiElementNavigatorTests {
+    private static final String[] QUERIES = new String[]{
+            "//*",
+            "/hierarchy",
+            "/hierarchy/*[2]",
+            "//android.widget.Button",
+            "//android.widget.TextView[@text='Item 42']",
+            "//*[@resource-id='io.appium.android.apis:id/item7']",
+            "//*[contains(@content-desc, 'desc1')][2]",
+            "//*[starts-with(@text, 'Item 1')]/..",
+            "//android.widget.LinearLayout[android.widget.Button]",
+            "//*[@clickable='true' and @scrollable='false'][last()]",
+            "//android.widget.ImageView/following-sibling::*[1]",
+            "//android.widget.Button/preceding-sibling::android.widget.TextView",
+            "//android.widget.TextView[@text='Item 300']/ancestor::*",
+            "//*[count(*) > 2]",
+            "(//android.widget.Button)[5]",
+            "//*[@index='1'] | //*[@index='2']",
+            "//*[@*='desc15']",
+            "//*[name()='android.widget.FrameLayout'][position() < 4]",
+            "//*[not(@content-desc)][@clickable='true']",
+            "//*[@bounds='[0,100][1080,110]']",
+            "//*[string-length(@text) > 7]",
+            "//nonexistent",
+    };
+
+    private static UiElement<?, ?> hierarchy;
+
+    @BeforeClass
+    public static void setup() {
+        hierarchy = SyntheticUiElement.generateHierarchy(500, 6);
+    }
+
+    private static List<UiElement<?, ?>> evaluate(UiElement<?, ?> root, String xpath) throws Exception {
+        List<UiElement<?, ?>> result = new ArrayList<>();
+        for (Object item : new UiElementXPath(xpath).selectNodes(new UiElementNavigator.DocumentNode(root, null))) {
+            if (item instanceof UiElementNavigator.ElementNode) {
+                result.add(((UiElementNavigator.ElementNode) item).getUiElement());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void shouldMatchXmlDocumentLookupResults() throws Exception {
+        LegacyXPathEvaluator legacyEvaluator = new LegacyXPathEvaluator();
+        for (String query : QUERIES) {
+            List<UiElement<?, ?>> expected = legacyEvaluator.evaluate(hierarchy, query);
+            List<UiElement<?, ?>> actual = evaluate(hierarchy, query);
+            assertEquals(String.format("Results count mismatch for '%s'", query), expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                assertEquals(String.format("Result #%s mismatch for '%s'", i, query), expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindElementsByAttributeValue() throws Exception {
+        List<UiElement<?, ?>> result = evaluate(hierarchy, "//*[@text='Item 42']");
+        assertEquals(1, result.size());
+        assertEquals("Item 42", result.get(0).getText());
+    }
+
+    @Test
+    public void shouldExposeRootAttributes() throws Exception {
+        SyntheticUiElement root = new SyntheticUiElement("hierarchy", 0);
+        Map<String, String> rootAttributes = new LinkedHashMap<>();
+        rootAttributes.put("rotation", "0");
+        List<Object> result = new ArrayList<>();
+        for (Object item : new UiElementXPath("/hierarchy[@rotation='0']")
+                .selectNodes(new UiElementNavigator.DocumentNode(root, rootAttributes))) {
+            result.add(item);
+        }
+        assertEquals(1, result.size());
+        assertFalse(evaluate(root, "/hierarchy").isEmpty());
+    }
+}
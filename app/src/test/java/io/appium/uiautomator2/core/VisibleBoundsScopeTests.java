@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.Test;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.setField;
+import static org.junit.Assert.assertEquals;
+
+public class VisibleBoundsScopeTests {
+    private static final Rect DISPLAY_RECT = new Rect(0, 0, 1000, 2000);
+
+    private static AccessibilityNodeInfo node(Rect bounds, boolean isScrollable) {
+        AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain();
+        node.setBoundsInScreen(bounds);
+        node.setScrollable(isScrollable);
+        setField("mSealed", true, node);
+        return node;
+    }
+
+    @Test
+    public void shouldClipBoundsToDisplay() {
+        VisibleBoundsScope scope = new VisibleBoundsScope(DISPLAY_RECT);
+        assertEquals(new Rect(0, 100, 1000, 2000),
+                scope.getBounds(node(new Rect(-10, 100, 1200, 2500), false)));
+    }
+
+    @Test
+    public void shouldClipBoundsToNearestScrollableAncestor() {
+        AccessibilityNodeInfo list = node(new Rect(0, 200, 1000, 800), true);
+        AccessibilityNodeInfo item = node(new Rect(0, 700, 1000, 900), false);
+        AccessibilityNodeInfo label = node(new Rect(10, 750, 500, 850), false);
+        VisibleBoundsScope itemScope = new VisibleBoundsScope(DISPLAY_RECT).forChildrenOf(list);
+
+        assertEquals(new Rect(0, 200, 1000, 800), new VisibleBoundsScope(DISPLAY_RECT).getBounds(list));
+        assertEquals(new Rect(0, 700, 1000, 800), itemScope.getBounds(item));
+        assertEquals(new Rect(10, 750, 500, 800), itemScope.forChildrenOf(item).getBounds(label));
+    }
+
+    @Test
+    public void shouldClipScrollableAncestorsToEachOther() {
+        AccessibilityNodeInfo outer = node(new Rect(0, 0, 1000, 1000), true);
+        AccessibilityNodeInfo inner = node(new Rect(0, 500, 1000, 1500), true);
+        AccessibilityNodeInfo item = node(new Rect(0, 900, 1000, 1200), false);
+        VisibleBoundsScope scope = new VisibleBoundsScope(DISPLAY_RECT)
+                .forChildrenOf(outer)
+                .forChildrenOf(inner);
+
+        assertEquals(new Rect(0, 900, 1000, 1000), scope.getBounds(item));
+    }
+
+    @Test
+    public void shouldKeepBoundsIfScrollableAncestorDoesNotIntersect() {
+        // Rect.intersect leaves the rectangle unchanged if there is no intersection
+        AccessibilityNodeInfo list = node(new Rect(0, 0, 1000, 500), true);
+        AccessibilityNodeInfo item = node(new Rect(0, 600, 1000, 700), false);
+        VisibleBoundsScope scope = new VisibleBoundsScope(DISPLAY_RECT).forChildrenOf(list);
+
+        assertEquals(new Rect(0, 600, 1000, 700), scope.getBounds(item));
+    }
+
+    @Test
+    public void shouldIgnoreScrollableAncestorsBeyondMaxDepth() {
+        AccessibilityNodeInfo list = node(new Rect(0, 0, 1000, 500), true);
+        AccessibilityNodeInfo container = node(new Rect(0, 0, 1000, 2000), false);
+        AccessibilityNodeInfo item = node(new Rect(0, 400, 1000, 600), false);
+        VisibleBoundsScope scope = new VisibleBoundsScope(DISPLAY_RECT).forChildrenOf(list);
+        for (int level = 1; level < AxNodeInfoHelper.MAX_DEPTH - 1; ++level) {
+            scope = scope.forChildrenOf(container);
+        }
+        assertEquals(new Rect(0, 400, 1000, 500), scope.getBounds(item));
+
+        scope = scope.forChildrenOf(container);
+        assertEquals(new Rect(0, 400, 1000, 600), scope.getBounds(item));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.List;
+
+import io.appium.uiautomator2.model.SyntheticUiElement;
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Logger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares XPath lookup over the serialized XML document with
+ * the lookup performed by {@link UiElementNavigator} and the one planned by
+ * {@link XPathQueryPlanner} on large synthetic hierarchies.
+ */
+public class XPathEvaluationBenchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final int[] HIERARCHY_SIZES = new int[]{500, 2000, 5000};
+    private static final String[] QUERIES = new String[]{
+            "//android.widget.Button[@text='Item 42']",
+            "//*[@resource-id='io.appium.android.apis:id/item7']",
+            "//*[contains(@content-desc,'desc1')][2]",
+            "//android.widget.LinearLayout/android.widget.TextView",
+    };
+
+    private static double measureXmlDocumentLookup(UiElement<?, ?> root, String query) throws Exception {
+        LegacyXPathEvaluator evaluator = new LegacyXPathEvaluator();
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            evaluator.evaluate(root, query);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            evaluator.evaluate(root, query);
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ITERATIONS;
+    }
+
+    private static int evaluateNative(UiElement<?, ?> root, String query) throws Exception {
+        // The document wrapper is rebuilt on each lookup, the same way it happens on a real find
+        List<?> result = new UiElementXPath(query).selectNodes(new UiElementNavigator.DocumentNode(root, null));
+        return result.size();
+    }
+
+    private static double measureNativeLookup(UiElement<?, ?> root, String query) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            evaluateNative(root, query);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            evaluateNative(root, query);
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ITERATIONS;
+    }
+
+    private static String measurePlannedLookup(UiElement<?, ?> root, String query) {
+        XPathQueryPlanner.Plan plan = XPathQueryPlanner.compile(query);
+        if (plan == null) {
+            return "unsupported";
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            plan.evaluate(root);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            // Queries are parsed on each lookup, the same way it happens on a real find
+            XPathQueryPlanner.compile(query).evaluate(root);
+        }
+        return String.format("%.2fms", (System.nanoTime() - start) / 1e6 / MEASURED_ITERATIONS);
+    }
+
+    @Test
+    public void shouldMatchXmlDocumentLookupResultsCount() throws Exception {
+        UiElement<?, ?> root = SyntheticUiElement.generateHierarchy(200, 6);
+        for (String query : QUERIES) {
+            assertEquals(query, new LegacyXPathEvaluator().evaluate(root, query).size(),
+                    evaluateNative(root, query));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void compareXPathLookupPerformance() throws Exception {
+        for (int size : HIERARCHY_SIZES) {
+            UiElement<?, ?> root = SyntheticUiElement.generateHierarchy(size, 6);
+            for (String query : QUERIES) {
+                Logger.info(String.format(
+                        "%5d nodes, '%s': XML document %.2fms, native %.2fms, planned %s",
+                        size, query, measureXmlDocumentLookup(root, query), measureNativeLookup(root, query),
+                        measurePlannedLookup(root, query)));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.jaxen.JaxenException;
+import org.jaxen.XPath;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class XPathExpressionCacheTests {
+    private XPathExpressionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new XPathExpressionCache();
+    }
+
+    @Test
+    public void shouldReuseCompiledExpressions() throws JaxenException {
+        XPath first = cache.get("//android.widget.Button");
+        XPath second = cache.get("//android.widget.Button");
+        assertSame(first, second);
+        assertEquals(1, cache.getHitsCount());
+        assertEquals(1, cache.getMissesCount());
+        assertEquals(0.5, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedExpressions() throws JaxenException {
+        cache.setMaxSize(2);
+        XPath first = cache.get("//a");
+        cache.get("//b");
+        // Touch the first expression, so the second one becomes the eldest
+        cache.get("//a");
+        cache.get("//c");
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("//a"));
+        assertEquals(3, cache.getMissesCount());
+        cache.get("//b");
+        assertEquals(4, cache.getMissesCount());
+    }
+
+    @Test
+    public void shouldTrimOnResize() throws JaxenException {
+        cache.get("//a");
+        cache.get("//b");
+        cache.get("//c");
+        cache.setMaxSize(1);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldNotCacheIfDisabled() throws JaxenException {
+        cache.setMaxSize(0);
+        XPath first = cache.get("//a");
+        assertNotSame(first, cache.get("//a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = JaxenException.class)
+    public void shouldFailOnInvalidExpressions() throws JaxenException {
+        cache.get("//a[");
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.core;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appium.uiautomator2.model.SyntheticUiElement;
+import io.appium.uiautomator2.model.UiElement;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class XPathQueryPlannerTests {
+    private static final String[] SUPPORTED_QUERIES = new String[]{
+            "//*",
+            "//hierarchy",
+            "//android.widget.Button",
+            "//android.widget.Button[@text='Item 42']",
+            "//android.widget.TextView[@text=\"Item 42\"]",
+            "//*[@resource-id='io.appium.android.apis:id/item7']",
+            "//*[contains(@content-desc,'desc1')][2]",
+            "//*[contains(@content-desc, 'desc1')]",
+            "//*[ contains ( @content-desc , 'desc1' ) ]",
+            "//*[contains(@content-desc,'')]",
+            "//*[starts-with(@text, 'Item 1')]",
+            "//*[starts-with(@text, '')][3]",
+            "//*[@text='']",
+            "//*[@content-desc='']",
+            "//*[@clickable='true'][@scrollable='false']",
+            "//*[@clickable = 'true'][1]",
+            "//*[1]",
+            "//*[2][@clickable='true']",
+            "//*[@clickable='true'][2]",
+            "//android.widget.ImageView[3]",
+            "//*[0]",
+            "//*[100]",
+            "//*[@index='1']",
+            "//*[@bounds='[0,100][1080,110]']",
+            "//*[@package='io.appium.android.apis'][@enabled='true'][4]",
+            "//nonexistent",
+            "//*[@text='nonexistent']",
+            "  //android.widget.Button  ",
+    };
+    private static final String[] UNSUPPORTED_QUERIES = new String[]{
+            "/hierarchy",
+            "//*//android.widget.Button",
+            "(//android.widget.Button)[5]",
+            "//android.widget.LinearLayout/android.widget.TextView",
+            "//*[@clickable='true' and @scrollable='false']",
+            "//*[@clickable='true' or @scrollable='false']",
+            "//*[@index=1]",
+            "//*[@text!='Item 42']",
+            "//*[last()]",
+            "//*[position() < 4]",
+            "//*[1.5]",
+            "//*[@name='Item 42']",
+            "//*[@original-text='Item 42']",
+            "//*[@rotation='0']",
+            "//*[@*='desc15']",
+            "//*[contains(text(), 'Item')]",
+            "//*[contains(@text, 'Item', 'x')]",
+            "//*[not(@content-desc)]",
+            "//*[@text='Item 42'] | //android.widget.Button",
+            "//android.widget.Button/..",
+            "//ns:Button",
+            "//*[@text='unterminated]",
+            "//*[@text='Item 42'",
+            "//",
+            "",
+    };
+
+    private static UiElement<?, ?> hierarchy;
+
+    @BeforeClass
+    public static void setup() {
+        hierarchy = SyntheticUiElement.generateHierarchy(1000, 6);
+    }
+
+    private static List<UiElement<?, ?>> evaluateGeneric(UiElement<?, ?> root, String xpath) throws Exception {
+        List<UiElement<?, ?>> result = new ArrayList<>();
+        for (Object item : new UiElementXPath(xpath).selectNodes(new UiElementNavigator.DocumentNode(root, null))) {
+            if (item instanceof UiElementNavigator.ElementNode) {
+                result.add(((UiElementNavigator.ElementNode) item).getUiElement());
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameResults(UiElement<?, ?> root, String query) throws Exception {
+        XPathQueryPlanner.Plan plan = XPathQueryPlanner.compile(query);
+        assertNotNull(String.format("'%s' must be supported", query), plan);
+        List<UiElement<?, ?>> expected = evaluateGeneric(root, query);
+        List<UiElement<?, ?>> actual = plan.evaluate(root);
+        assertEquals(String.format("Results count mismatch for '%s'", query), expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertSame(String.format("Result #%s mismatch for '%s'", i, query), expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void shouldMatchGenericEngineResults() throws Exception {
+        for (String query : SUPPORTED_QUERIES) {
+            assertSameResults(hierarchy, query);
+        }
+    }
+
+    @Test
+    public void shouldMatchGenericEngineResultsForAllAttributeValues() throws Exception {
+        // Every distinct value of the hierarchy is queried in all supported ways
+        String[] valueQueries = new String[]{
+                "//*[@%s='%s']", "//*[contains(@%s, '%s')][2]", "//android.widget.TextView[starts-with(@%s,'%s')]",
+        };
+        Attribute[] attributes = new Attribute[]{Attribute.RESOURCE_ID, Attribute.CONTENT_DESC, Attribute.TEXT};
+        for (int i = 0; i < 40; ++i) {
+            String[] values = new String[]{"io.appium.android.apis:id/item" + i, "desc" + i, "Item " + i * 7};
+            for (int j = 0; j < attributes.length; ++j) {
+                for (String valueQuery : valueQueries) {
+                    assertSameResults(hierarchy, String.format(valueQuery, attributes[j].getName(), values[j]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldMatchGenericEngineResultsForNonXmlCharacters() throws Exception {
+        SyntheticUiElement root = new SyntheticUiElement("hierarchy", 0);
+        root.addChild(new SyntheticUiElement("android.widget.TextView", 0)
+                .set(Attribute.TEXT, "a\u0001b"));
+        root.addChild(new SyntheticUiElement("android.widget.TextView", 1)
+                .set(Attribute.TEXT, "a?b"));
+        assertSameResults(root, "//*[@text='a?b']");
+        assertSameResults(root, "//*[contains(@text, '?')][2]");
+        assertEquals(2, XPathQueryPlanner.compile("//*[@text='a?b']").evaluate(root).size());
+    }
+
+    @Test
+    public void shouldStopWhenNoMoreMatchesAreNeeded() {
+        final List<UiElement<?, ?>> matches = new ArrayList<>();
+        XPathQueryPlanner.compile("//android.widget.Button").evaluate(hierarchy,
+                new XPathQueryPlanner.MatchHandler() {
+                    @Override
+                    public boolean onMatch(UiElement<?, ?> uiElement) {
+                        matches.add(uiElement);
+                        return matches.size() < 3;
+                    }
+                });
+        assertEquals(3, matches.size());
+        assertEquals(XPathQueryPlanner.compile("//android.widget.Button").evaluate(hierarchy).subList(0, 3),
+                matches);
+    }
+
+    @Test
+    public void shouldFallBackForUnsupportedQueries() {
+        for (String query : UNSUPPORTED_QUERIES) {
+            assertNull(String.format("'%s' must not be supported", query), XPathQueryPlanner.compile(query));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.handler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.AppiumUIA2Driver;
+import io.appium.uiautomator2.model.api.batch.BatchResultModel;
+import io.appium.uiautomator2.server.AppiumServlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchTests {
+    private ExecutorService executor;
+
+    private static class JsonRequest implements IHttpRequest {
+        private final String uri;
+        private final String body;
+        private final Map<String, Object> data = new HashMap<>();
+
+        JsonRequest(String uri, String body) {
+            this.uri = uri;
+            this.body = body;
+        }
+
+        @Override
+        public String method() {
+            return "POST";
+        }
+
+        @Override
+        public String uri() {
+            return uri;
+        }
+
+        @Override
+        public String body() {
+            return body;
+        }
+
+        @Override
+        public String header(String name) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> data() {
+            return data;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        AppiumUIA2Driver.getInstance().initializeSession(Collections.<String, Object>emptyMap());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotWaitForActionLockIfAllCommandsAreReadOnly() throws Exception {
+        final AppiumServlet servlet = new AppiumServlet();
+        final String sessionId = AppiumUIA2Driver.getInstance().getSessionOrThrow().getSessionId();
+        final Lock actionLock = AppiumUIA2Driver.getInstance().getSessionOrThrow().getActionLock();
+        final CountDownLatch isLocked = new CountDownLatch(1);
+        final CountDownLatch isBatchDone = new CountDownLatch(1);
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                actionLock.lock();
+                try {
+                    isLocked.countDown();
+                    isBatchDone.await(10, TimeUnit.SECONDS);
+                } finally {
+                    actionLock.unlock();
+                }
+                return null;
+            }
+        });
+        assertTrue(isLocked.await(10, TimeUnit.SECONDS));
+
+        Future<AppiumResponse> response = executor.submit(new Callable<AppiumResponse>() {
+            @Override
+            public AppiumResponse call() {
+                return servlet.execute(new JsonRequest(
+                        String.format("/wd/hub/session/%s/appium/batch", sessionId),
+                        "{\"commands\": [{\"method\": \"GET\", \"uri\": \"/wd/hub/status\"}, "
+                                + "{\"method\": \"GET\", \"uri\": \"/wd/hub/status\"}]}"));
+            }
+        });
+        try {
+            AppiumResponse result = response.get(5, TimeUnit.SECONDS);
+            assertEquals(200, result.getHttpStatus().code());
+            //noinspection unchecked
+            List<BatchResultModel> results = (List<BatchResultModel>) result.getRenderedValue();
+            assertEquals(2, results.size());
+            for (BatchResultModel commandResult : results) {
+                assertEquals(Integer.valueOf(200), commandResult.status);
+            }
+        } finally {
+            isBatchDone.countDown();
+        }
+    }
+}
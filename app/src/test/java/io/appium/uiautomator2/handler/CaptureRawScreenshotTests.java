@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.handler;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.common.exceptions.InvalidArgumentException;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CaptureRawScreenshotTests {
+
+    private static CaptureRawScreenshot.Options parse(String uri) {
+        Map<String, List<String>> params = new QueryStringDecoder(uri).parameters();
+        return CaptureRawScreenshot.Options.parse(params);
+    }
+
+    @Test
+    public void shouldUseDefaults() {
+        CaptureRawScreenshot.Options options = parse("/wd/hub/session/1/appium/screenshot/raw");
+        assertEquals(Bitmap.CompressFormat.PNG, options.format);
+        assertEquals(CaptureRawScreenshot.DEFAULT_JPEG_QUALITY, options.quality);
+        assertEquals(1.0f, options.scale, 0);
+        assertNull(options.cropArea);
+    }
+
+    @Test
+    public void shouldParseAllOptions() {
+        CaptureRawScreenshot.Options options = parse(
+                "/wd/hub/session/1/appium/screenshot/raw?format=JPG&quality=50&scale=0.5&crop=10,20,30,40");
+        assertEquals(Bitmap.CompressFormat.JPEG, options.format);
+        assertEquals(50, options.quality);
+        assertEquals(0.5f, options.scale, 0);
+        assertEquals(new Rect(10, 20, 40, 60), options.cropArea);
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectUnknownFormat() {
+        parse("/raw?format=gif");
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectInvalidQuality() {
+        parse("/raw?quality=101");
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectInvalidScale() {
+        parse("/raw?scale=0");
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectNonNumericScale() {
+        parse("/raw?scale=half");
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectIncompleteCropArea() {
+        parse("/raw?crop=10,20,30");
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void shouldRejectEmptyCropArea() {
+        parse("/raw?crop=10,20,0,40");
+    }
+}
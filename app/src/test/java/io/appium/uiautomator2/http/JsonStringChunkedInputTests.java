@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+
+import io.appium.uiautomator2.model.api.server.ResponseModel;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStringChunkedInputTests {
+    private static final String PREFIX = "{\"value\":";
+
+    private static class CharByCharValue implements StreamingStringValue {
+        private final String value;
+        private Writer writer;
+        private int position;
+
+        CharByCharValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void open(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public boolean writeNext() throws IOException {
+            if (position >= value.length()) {
+                return false;
+            }
+            writer.write(value.charAt(position++));
+            return true;
+        }
+    }
+
+    private static String render(String value, String sessionId) {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        channel.writeOutbound(new JsonStringChunkedInput(PREFIX, new CharByCharValue(value),
+                String.format(",\"sessionId\":%s}", toJsonString(sessionId))));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        Object chunk;
+        while ((chunk = channel.readOutbound()) != null) {
+            ByteBuf buf = (ByteBuf) chunk;
+            byte[] chunkBytes = new byte[buf.readableBytes()];
+            buf.readBytes(chunkBytes);
+            buf.release();
+            result.write(chunkBytes, 0, chunkBytes.length);
+        }
+        return new String(result.toByteArray(), CharsetUtil.UTF_8);
+    }
+
+    private static void assertSameAsGson(String value, String sessionId) {
+        assertEquals(toJsonString(new ResponseModel(value, sessionId)), render(value, sessionId));
+    }
+
+    @Test
+    public void shouldRenderPlainValues() {
+        assertSameAsGson("<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>\n<hierarchy/>", "123");
+    }
+
+    @Test
+    public void shouldRenderNullSessionId() {
+        assertSameAsGson("value", null);
+    }
+
+    @Test
+    public void shouldEscapeSpecialCharacters() {
+        assertSameAsGson("quote\" backslash\\ tab\t newline\n cr\r ff\f bs\b bell\u0007 nul\u0000 "
+                + "ls\u2028 ps\u2029 <&>='", "1");
+    }
+
+    @Test
+    public void shouldEncodeNonAsciiCharacters() {
+        assertSameAsGson("\u041f\u0440\u0438\u0432\u0435\u0442 \u4f60\u597d \ud83d\ude00 \u00e9", "1");
+    }
+
+    @Test
+    public void shouldSplitLargeValuesIntoChunks() {
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 3 * JsonStringChunkedInput.CHUNK_SIZE) {
+            value.append("<node text=\"\ud83d\ude00\"/>\n");
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        channel.writeOutbound(new JsonStringChunkedInput(PREFIX, new CharByCharValue(value.toString()), "}"));
+        int chunksCount = 0;
+        Object chunk;
+        while ((chunk = channel.readOutbound()) != null) {
+            ((ByteBuf) chunk).release();
+            ++chunksCount;
+        }
+        assertTrue(chunksCount > 3);
+        assertSameAsGson(value.toString(), "1");
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorTests {
+    private static final int TASKS_COUNT = 200;
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldExecuteTasksInOrderOneByOne() throws InterruptedException {
+        final SerialExecutor executor = new SerialExecutor(pool);
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicBoolean isBusy = new AtomicBoolean();
+        final AtomicBoolean hasOverlapped = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(TASKS_COUNT);
+        for (int i = 0; i < TASKS_COUNT; ++i) {
+            final int taskIdx = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isBusy.compareAndSet(false, true)) {
+                        hasOverlapped.set(true);
+                    }
+                    executed.add(taskIdx);
+                    isBusy.set(false);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(hasOverlapped.get());
+        for (int i = 0; i < TASKS_COUNT; ++i) {
+            assertEquals(Integer.valueOf(i), executed.get(i));
+        }
+    }
+
+    @Test
+    public void shouldRunDifferentSerialExecutorsConcurrently() throws InterruptedException {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; ++i) {
+            new SerialExecutor(pool).execute(new Runnable() {
+                @Override
+                public void run() {
+                    bothStarted.countDown();
+                    try {
+                        if (bothStarted.await(10, TimeUnit.SECONDS)) {
+                            done.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldContinueAfterFailedTask() throws InterruptedException {
+        final SerialExecutor executor = new SerialExecutor(pool);
+        final AtomicInteger executedCount = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Expected failure");
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executedCount.incrementAndGet();
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, executedCount.get());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.CharsetUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ServerHandlerTests {
+    private static final String[] CHUNKS = {"{\"value\":", "\"abc\"", "}"};
+
+    private ExecutorService requestsExecutor;
+
+    @Before
+    public void setUp() {
+        requestsExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        requestsExecutor.shutdownNow();
+    }
+
+    private static class RecordingChunkedInput implements ChunkedInput<ByteBuf> {
+        final AtomicReference<Thread> producerThread = new AtomicReference<>();
+        private int position;
+        boolean isClosed;
+
+        @Override
+        public boolean isEndOfInput() {
+            return position >= CHUNKS.length;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+
+        @Override
+        public ByteBuf readChunk(ChannelHandlerContext ctx) {
+            producerThread.set(Thread.currentThread());
+            return isEndOfInput()
+                    ? null
+                    : Unpooled.copiedBuffer(CHUNKS[position++], CharsetUtil.UTF_8);
+        }
+    }
+
+    @Test
+    public void shouldProduceChunksOnRequestsExecutorThread() throws Exception {
+        final RecordingChunkedInput chunkedInput = new RecordingChunkedInput();
+        IHttpServlet servlet = new IHttpServlet() {
+            @Override
+            public void handleHttpRequest(IHttpRequest request, IHttpResponse response) {
+                response.setStatus(200);
+                response.setContent(chunkedInput);
+                response.end();
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new ServerHandler(Collections.singletonList(servlet), requestsExecutor));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/source"));
+        requestsExecutor.shutdown();
+        assertTrue(requestsExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertNotNull(chunkedInput.producerThread.get());
+        assertNotSame(Thread.currentThread(), chunkedInput.producerThread.get());
+        assertTrue(chunkedInput.isClosed);
+
+        HttpResponse response = (HttpResponse) channel.readOutbound();
+        assertTrue(response.headers().contains("Transfer-Encoding"));
+        StringBuilder body = new StringBuilder();
+        Object message;
+        while (!((message = channel.readOutbound()) instanceof LastHttpContent)) {
+            HttpContent content = (HttpContent) message;
+            body.append(content.content().toString(CharsetUtil.UTF_8));
+            content.release();
+        }
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, message);
+        assertEquals("{\"value\":\"abc\"}", body.toString());
+    }
+}
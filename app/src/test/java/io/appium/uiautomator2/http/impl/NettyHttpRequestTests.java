@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.http.impl;
+
+import org.junit.Test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class NettyHttpRequestTests {
+
+    @Test
+    public void shouldDecodeBodyOnlyOnce() {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                "/wd/hub/session/1/element",
+                Unpooled.copiedBuffer("{\"text\":\"äöü\"}", CharsetUtil.UTF_8));
+        try {
+            NettyHttpRequest httpRequest = new NettyHttpRequest(request);
+            String body = httpRequest.body();
+            assertEquals("{\"text\":\"äöü\"}", body);
+            assertSame(body, httpRequest.body());
+        } finally {
+            request.release();
+        }
+    }
+
+    @Test
+    public void shouldReturnEmptyBody() {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET,
+                "/wd/hub/status");
+        try {
+            assertEquals("", new NettyHttpRequest(request).body());
+        } finally {
+            request.release();
+        }
+    }
+}
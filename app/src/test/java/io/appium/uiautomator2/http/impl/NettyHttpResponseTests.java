@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.http.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.http.AppiumResponse;
+import io.appium.uiautomator2.http.BinaryValue;
+import io.appium.uiautomator2.model.api.server.ResponseModel;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class NettyHttpResponseTests {
+    private FullHttpResponse response;
+    private NettyHttpResponse httpResponse;
+
+    @Before
+    public void setUp() {
+        response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                PooledByteBufAllocator.DEFAULT.ioBuffer());
+        httpResponse = new NettyHttpResponse(response);
+    }
+
+    @After
+    public void tearDown() {
+        response.release();
+    }
+
+    private String getContent() {
+        return response.content().toString(CharsetUtil.UTF_8);
+    }
+
+    @Test
+    public void shouldRenderJsonIntoBuffer() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "äöü \"quoted\" <html> 😀");
+        value.put("missing", null);
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            numbers.add(i);
+        }
+        value.put("numbers", numbers);
+
+        new AppiumResponse("sessionId", value).renderTo(httpResponse);
+
+        assertEquals(toJsonString(new ResponseModel(value, "sessionId")), getContent());
+        assertEquals(HttpResponseStatus.OK, response.getStatus());
+    }
+
+    @Test
+    public void shouldReplacePreviousContent() {
+        httpResponse.setContent("previous content");
+        new AppiumResponse("sessionId", "ü").renderTo(httpResponse);
+        assertEquals("{\"value\":\"ü\",\"sessionId\":\"sessionId\"}", getContent());
+
+        httpResponse.setContent("ä");
+        assertEquals("ä", getContent());
+        httpResponse.setContent(new byte[]{'{', '}'});
+        assertEquals("{}", getContent());
+    }
+
+    @Test
+    public void shouldRenderBinaryValueAsIs() {
+        byte[] data = {(byte) 0x89, 'P', 'N', 'G', 0, 1, 2};
+        new AppiumResponse("sessionId", new BinaryValue("image/png", data)).renderTo(httpResponse);
+
+        byte[] content = new byte[response.content().readableBytes()];
+        response.content().getBytes(0, content);
+        assertArrayEquals(data, content);
+        assertEquals("image/png", response.headers().get("Content-Type"));
+    }
+
+    @Test
+    public void shouldRenderCustomHeaders() {
+        new AppiumResponse("sessionId", "value")
+                .setHeader("X-Custom", "1")
+                .renderTo(httpResponse);
+        assertEquals("1", response.headers().get("X-Custom"));
+    }
+}
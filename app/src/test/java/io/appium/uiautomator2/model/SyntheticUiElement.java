@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.utils.Attribute;
+
+/**
+ * An in-memory UiElement, which is not backed by any accessibility node.
+ * Used to build large hierarchies for tests and benchmarks.
+ */
+public class SyntheticUiElement extends UiElement<Object, SyntheticUiElement> {
+    private static final String[] CLASS_NAMES = new String[]{
+            "android.widget.FrameLayout", "android.widget.LinearLayout",
+            "android.widget.TextView", "android.widget.Button",
+            "android.widget.ImageView", "androidx.recyclerview.widget.RecyclerView"
+    };
+
+    private final Map<Attribute, Object> attributes = new LinkedHashMap<>();
+    private final List<SyntheticUiElement> children = new ArrayList<>();
+
+    public SyntheticUiElement(String className, int index) {
+        super(null);
+        attributes.put(Attribute.INDEX, index);
+        attributes.put(Attribute.CLASS, className);
+    }
+
+    public SyntheticUiElement set(Attribute attribute, Object value) {
+        attributes.put(attribute, value);
+        return this;
+    }
+
+    public SyntheticUiElement addChild(SyntheticUiElement child) {
+        children.add(child);
+        return this;
+    }
+
+    @Override
+    public List<SyntheticUiElement> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    protected Map<Attribute, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Builds a deterministic pseudo-random hierarchy
+     *
+     * @param nodesCount the total count of nodes in the resulting tree
+     * @param maxChildren the maximum count of children per node
+     * @return the root of the hierarchy
+     */
+    public static SyntheticUiElement generateHierarchy(int nodesCount, int maxChildren) {
+        SyntheticUiElement root = new SyntheticUiElement("hierarchy", 0);
+        List<SyntheticUiElement> queue = new ArrayList<>();
+        queue.add(root);
+        int created = 1;
+        int seed = 17;
+        for (int pos = 0; pos < queue.size() && created < nodesCount; ++pos) {
+            SyntheticUiElement parent = queue.get(pos);
+            seed = (seed * 31 + 7) % 1009;
+            int childrenCount = 1 + seed % maxChildren;
+            for (int idx = 0; idx < childrenCount && created < nodesCount; ++idx, ++created) {
+                String className = CLASS_NAMES[(created + idx) % CLASS_NAMES.length];
+                SyntheticUiElement child = new SyntheticUiElement(className, idx)
+                        .set(Attribute.PACKAGE, "io.appium.android.apis")
+                        .set(Attribute.TEXT, created % 3 == 0 ? "Item " + created : "")
+                        .set(Attribute.CONTENT_DESC, created % 5 == 0 ? "desc" + created % 50 : null)
+                        .set(Attribute.RESOURCE_ID, "io.appium.android.apis:id/item" + created % 40)
+                        .set(Attribute.CLICKABLE, created % 2 == 0)
+                        .set(Attribute.ENABLED, true)
+                        .set(Attribute.SCROLLABLE, className.endsWith("RecyclerView"))
+                        .set(Attribute.BOUNDS, String.format("[0,%s][1080,%s]", created, created + 10))
+                        .set(Attribute.DISPLAYED, true);
+                parent.addChild(child);
+                queue.add(child);
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import io.appium.uiautomator2.model.settings.Settings;
+import io.appium.uiautomator2.model.settings.SimpleBoundsCalculation;
+import io.appium.uiautomator2.utils.Attribute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+public class UiElementSnapshotTests {
+    @Mock
+    private AccessibilityNodeInfo root;
+
+    @Mock
+    private AccessibilityNodeInfo list;
+
+    @Mock
+    private AccessibilityNodeInfo title;
+
+    private static void mockNode(AccessibilityNodeInfo node, String className,
+                                 AccessibilityNodeInfo... children) {
+        when(node.getClassName()).thenReturn(className);
+        when(node.isVisibleToUser()).thenReturn(true);
+        when(node.getChildCount()).thenReturn(children.length);
+        for (int i = 0; i < children.length; ++i) {
+            when(node.getChild(i)).thenReturn(children[i]);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        AppiumUIA2Driver.getInstance().initializeSession(Collections.<String, Object>emptyMap());
+        // Visible bounds calculation requires the display size
+        ((SimpleBoundsCalculation) Settings.SIMPLE_BOUNDS_CALCULATION.getSetting()).update(true);
+        mockNode(root, "android.widget.FrameLayout", list);
+        mockNode(list, "android.widget.ListView", title);
+        mockNode(title, "android.widget.TextView");
+        when(title.getText()).thenReturn("Row 1");
+        when(title.getViewIdResourceName()).thenReturn("com.app:id/title");
+        when(title.isClickable()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        ((SimpleBoundsCalculation) Settings.SIMPLE_BOUNDS_CALCULATION.getSetting()).update(false);
+    }
+
+    @Test
+    public void shouldIncludeAllAttributesIntoDescendantsOfFullSnapshots() {
+        UiElementSnapshot snapshot = UiElementSnapshot.take(root, null);
+        UiElementSnapshot titleElement = snapshot.getChildren().get(0).getChildren().get(0);
+
+        assertEquals("android.widget.TextView", titleElement.get(Attribute.CLASS));
+        assertEquals("Row 1", titleElement.get(Attribute.TEXT));
+        assertEquals("com.app:id/title", titleElement.get(Attribute.RESOURCE_ID));
+        assertEquals(Boolean.TRUE, titleElement.get(Attribute.CLICKABLE));
+        assertEquals(Integer.valueOf(0), titleElement.get(Attribute.INDEX));
+    }
+
+    @Test
+    public void shouldOnlyIncludeRequestedAttributesIntoDescendants() {
+        UiElementSnapshot snapshot = UiElementSnapshot.take(root, EnumSet.of(Attribute.TEXT));
+        UiElementSnapshot titleElement = snapshot.getChildren().get(0).getChildren().get(0);
+
+        assertEquals("android.widget.TextView", titleElement.get(Attribute.CLASS));
+        assertEquals("Row 1", titleElement.get(Attribute.TEXT));
+        assertNull(titleElement.get(Attribute.RESOURCE_ID));
+        assertFalse(titleElement.attributeKeys().contains(Attribute.CLICKABLE));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.http.IHttpRequest;
+import io.appium.uiautomator2.model.api.server.ResponseModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CActionsModel;
+import io.appium.uiautomator2.utils.Logger;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
+import static io.appium.uiautomator2.utils.ModelUtils.toModel;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares request parsing and response serialization with shared Gson instances
+ * and custom type adapters to creating a new reflective Gson instance per conversion,
+ * using a mix of typical requests.
+ */
+public class ModelSerializationBenchmarks {
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private static final String FIND_ELEMENT_JSON =
+            "{\"strategy\":\"id\",\"selector\":\"io.appium.android.apis:id/button\",\"context\":\"\"}";
+    private static final String SETTINGS_JSON = "{\"settings\":{\"waitForIdleTimeout\":100}}";
+
+    private static IHttpRequest toRequest(final String body) {
+        return new IHttpRequest() {
+            private final Map<String, Object> data = new HashMap<>();
+
+            @Override
+            public String method() {
+                return "POST";
+            }
+
+            @Override
+            public String uri() {
+                return "/";
+            }
+
+            @Override
+            public String body() {
+                return body;
+            }
+
+            @Override
+            public String header(String name) {
+                return null;
+            }
+
+            @Override
+            public Map<String, Object> data() {
+                return data;
+            }
+        };
+    }
+
+    private static ResponseModel createElementsResponse() {
+        List<ElementModel> elements = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            ElementModel element = new ElementModel();
+            element.jwpElementId = "00000000-0000-0011-ffff-ffff0000000" + i;
+            element.w3cElementId = element.jwpElementId;
+            elements.add(element);
+        }
+        return new ResponseModel(elements, "8d2a2a6b-9e49-4a41-9d6a-7a9ec5f1cb84");
+    }
+
+    private interface Codec {
+        <T extends BaseModel> T parse(IHttpRequest request, Class<T> modelCls);
+
+        String serialize(Object model);
+    }
+
+    private static final Codec LEGACY_CODEC = new Codec() {
+        @Override
+        public <T extends BaseModel> T parse(IHttpRequest request, Class<T> modelCls) {
+            //noinspection unchecked
+            return (T) new Gson().fromJson(request.body(), modelCls).validate();
+        }
+
+        @Override
+        public String serialize(Object model) {
+            return new GsonBuilder().disableHtmlEscaping().serializeNulls().create().toJson(model);
+        }
+    };
+
+    private static final Codec SHARED_CODEC = new Codec() {
+        @Override
+        public <T extends BaseModel> T parse(IHttpRequest request, Class<T> modelCls) {
+            return toModel(request, modelCls);
+        }
+
+        @Override
+        public String serialize(Object model) {
+            return toJsonString(model);
+        }
+    };
+
+    private final List<IHttpRequest> findRequests = new ArrayList<>();
+    private final List<IHttpRequest> actionsRequests = new ArrayList<>();
+    private final List<IHttpRequest> settingsRequests = new ArrayList<>();
+    private ResponseModel elementsResponse;
+
+    @Before
+    public void setup() {
+        // Finds prevail in a typical session, followed by actions and occasional settings updates
+        for (int i = 0; i < 6; ++i) {
+            findRequests.add(toRequest(FIND_ELEMENT_JSON));
+        }
+        for (int i = 0; i < 3; ++i) {
+            actionsRequests.add(toRequest(ModelTypeAdapterFactoryTests.ACTIONS_JSON));
+        }
+        settingsRequests.add(toRequest(SETTINGS_JSON));
+        elementsResponse = createElementsResponse();
+    }
+
+    private int runRequestMix(Codec codec) {
+        int length = 0;
+        for (IHttpRequest request : findRequests) {
+            FindElementModel model = codec.parse(request, FindElementModel.class);
+            ElementModel element = new ElementModel();
+            element.jwpElementId = model.selector;
+            element.w3cElementId = model.selector;
+            length += codec.serialize(new ResponseModel(element, "session")).length();
+        }
+        for (IHttpRequest request : actionsRequests) {
+            codec.parse(request, W3CActionsModel.class);
+            length += codec.serialize(new ResponseModel(null, "session")).length();
+        }
+        for (IHttpRequest request : settingsRequests) {
+            codec.parse(request, SettingsModel.class);
+            length += codec.serialize(new ResponseModel(null, "session")).length();
+        }
+        length += codec.serialize(elementsResponse).length();
+        return length;
+    }
+
+    private double measure(Codec codec) {
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            runRequestMix(codec);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            runRequestMix(codec);
+        }
+        return (double) (System.nanoTime() - start) / 1e3 / MEASURED_ITERATIONS;
+    }
+
+    @Test
+    public void shouldProduceSameOutputWithSharedInstances() {
+        assertEquals(runRequestMix(LEGACY_CODEC), runRequestMix(SHARED_CODEC));
+        assertEquals(LEGACY_CODEC.serialize(elementsResponse), SHARED_CODEC.serialize(elementsResponse));
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void compareRequestMixPerformance() {
+        double legacyUs = measure(LEGACY_CODEC);
+        double sharedUs = measure(SHARED_CODEC);
+        Logger.info(String.format("Request mix of %d requests: new Gson per call %.1fus, shared Gson %.1fus",
+                findRequests.size() + actionsRequests.size() + settingsRequests.size() + 1,
+                legacyUs, sharedUs));
+    }
+}
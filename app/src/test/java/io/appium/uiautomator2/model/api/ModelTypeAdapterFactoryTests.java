@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.appium.uiautomator2.model.api.server.ResponseModel;
+import io.appium.uiautomator2.model.api.touch.w3c.W3CActionsModel;
+
+import static io.appium.uiautomator2.utils.ModelUtils.toJsonString;
+import static io.appium.uiautomator2.utils.w3c.ElementConstants.JWP_ELEMENT_ID_KEY_NAME;
+import static io.appium.uiautomator2.utils.w3c.ElementConstants.W3C_ELEMENT_ID_KEY_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies custom type adapters produce the same results as the default reflective ones.
+ */
+public class ModelTypeAdapterFactoryTests {
+    static final String ACTIONS_JSON = "{\"actions\":[{\"type\":\"pointer\",\"id\":\"finger1\"," +
+            "\"parameters\":{\"pointerType\":\"touch\"},\"actions\":[" +
+            "{\"type\":\"pointerMove\",\"duration\":0,\"x\":100,\"y\":200.5,\"origin\":\"viewport\"}," +
+            "{\"type\":\"pointerDown\",\"button\":0,\"pressure\":0.5,\"unknown\":[1,2]}," +
+            "{\"type\":\"pause\",\"duration\":\"500\"}," +
+            "{\"type\":\"pointerMove\",\"duration\":1000,\"x\":10,\"y\":20,\"size\":1," +
+            "\"origin\":{\"" + W3C_ELEMENT_ID_KEY_NAME + "\":\"abc\"}}," +
+            "{\"type\":\"pointerUp\",\"button\":0}]}," +
+            "{\"type\":\"key\",\"id\":\"keyboard\",\"actions\":[" +
+            "{\"type\":\"keyDown\",\"value\":\"\\u00e4<&>\"},{\"type\":\"keyUp\",\"value\":null}]}]}";
+
+    private static final Gson REFLECTIVE_GSON = new Gson();
+    private static final Gson REFLECTIVE_SERIALIZER = new GsonBuilder()
+            .disableHtmlEscaping()
+            .serializeNulls()
+            .create();
+    private static final Gson REFLECTIVE_SERIALIZER_WITHOUT_NULLS = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+    private static final Gson CUSTOM_GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    private static void assertSameSerialization(Object model) {
+        assertEquals(REFLECTIVE_SERIALIZER.toJson(model), toJsonString(model));
+        assertEquals(REFLECTIVE_SERIALIZER_WITHOUT_NULLS.toJson(model), toJsonString(model, false));
+    }
+
+    private static <T> void assertSameDeserialization(String json, Class<T> modelCls) {
+        T expected = REFLECTIVE_GSON.fromJson(json, modelCls);
+        T actual = CUSTOM_GSON.fromJson(json, modelCls);
+        assertEquals(REFLECTIVE_SERIALIZER.toJson(expected), REFLECTIVE_SERIALIZER.toJson(actual));
+        assertEquals(toJsonString(expected), toJsonString(actual));
+    }
+
+    @Test
+    public void shouldHandleFindElementModel() {
+        assertSameDeserialization("{\"strategy\":\"xpath\",\"selector\":\"//*[@text='<a&b>']\"," +
+                "\"context\":\"\",\"extra\":{\"a\":1}}", FindElementModel.class);
+        assertSameDeserialization("{\"strategy\":\"id\",\"selector\":42,\"context\":null}",
+                FindElementModel.class);
+        FindElementModel model = CUSTOM_GSON.fromJson("{\"strategy\":\"id\",\"selector\":\"foo\"}",
+                FindElementModel.class);
+        assertEquals("foo", model.selector);
+        assertNull(model.context);
+        assertSameSerialization(model);
+    }
+
+    @Test
+    public void shouldHandleElementModel() {
+        assertSameDeserialization("{\"" + JWP_ELEMENT_ID_KEY_NAME + "\":\"1\",\"" +
+                W3C_ELEMENT_ID_KEY_NAME + "\":\"2\"}", ElementModel.class);
+        assertSameDeserialization("{\"element\":\"1\"}", ElementModel.class);
+        assertEquals("1", CUSTOM_GSON.fromJson("{\"element\":\"1\"}", ElementModel.class).getUnifiedId());
+        ElementModel model = new ElementModel();
+        model.w3cElementId = "abc";
+        assertSameSerialization(model);
+    }
+
+    @Test
+    public void shouldHandleW3CActionsModel() {
+        assertSameDeserialization(ACTIONS_JSON, W3CActionsModel.class);
+        assertSameSerialization(CUSTOM_GSON.fromJson(ACTIONS_JSON, W3CActionsModel.class));
+    }
+
+    @Test
+    public void shouldHandleResponseModel() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("list", Arrays.asList(1, 2.5, "<three>", null));
+        value.put("element", new ElementModel());
+        value.put("empty", new HashMap<>());
+        assertSameSerialization(new ResponseModel(value, "session"));
+        assertSameSerialization(new ResponseModel(null, null));
+        assertSameSerialization(new ResponseModel("\u2028text\"", "session"));
+        assertSameSerialization(new ResponseModel(Collections.singletonList(new ElementModel()), "s"));
+        assertSameDeserialization("{\"value\":{\"a\":[1,{\"b\":null}]},\"sessionId\":\"s\"}",
+                ResponseModel.class);
+    }
+}
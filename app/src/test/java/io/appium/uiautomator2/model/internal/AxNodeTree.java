@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.internal;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accessibility hierarchy, which lives in memory. Nodes are linked by identity, since
+ * all the nodes created outside of an accessibility service are equal to each other.
+ */
+class AxNodeTree {
+    private final Map<AccessibilityNodeInfo, List<AccessibilityNodeInfo>> children = new IdentityHashMap<>();
+    private final Map<AccessibilityNodeInfo, AccessibilityNodeInfo> parents = new IdentityHashMap<>();
+    private final AccessibilityNodeInfo root;
+    private int fetchesCount;
+
+    AxNodeTree(AccessibilityNodeInfo root) {
+        this.root = root;
+    }
+
+    static AccessibilityNodeInfo node(String className, @Nullable String text, @Nullable String resourceId) {
+        AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain();
+        node.setClassName(className);
+        node.setText(text);
+        node.setViewIdResourceName(resourceId);
+        node.setVisibleToUser(true);
+        return node;
+    }
+
+    static AccessibilityNodeInfo node(String className) {
+        return node(className, null, null);
+    }
+
+    /**
+     * Generates a scrollable list, where each row has a title and an icon
+     *
+     * @param rowsCount the count of rows in the list
+     * @return the generated hierarchy
+     */
+    static AxNodeTree generateList(int rowsCount) {
+        AxNodeTree tree = new AxNodeTree(node("android.widget.FrameLayout"));
+        AccessibilityNodeInfo list = tree.add(tree.getRoot(),
+                node("android.widget.ListView", null, "com.app:id/list"));
+        for (int i = 0; i < rowsCount; ++i) {
+            AccessibilityNodeInfo row = tree.add(list, node("android.widget.LinearLayout", null, "com.app:id/row"));
+            tree.add(row, node("android.widget.TextView", "Row " + i, "com.app:id/title"));
+            tree.add(row, node("android.widget.ImageView", null, "com.app:id/icon"));
+        }
+        return tree;
+    }
+
+    AccessibilityNodeInfo getRoot() {
+        return root;
+    }
+
+    AccessibilityNodeInfo add(AccessibilityNodeInfo parent, AccessibilityNodeInfo child) {
+        List<AccessibilityNodeInfo> siblings = children.get(parent);
+        if (siblings == null) {
+            siblings = new ArrayList<>();
+            children.put(parent, siblings);
+        }
+        siblings.add(child);
+        parents.put(child, parent);
+        return child;
+    }
+
+    int getChildCount(AccessibilityNodeInfo node) {
+        List<AccessibilityNodeInfo> nodeChildren = children.get(node);
+        return nodeChildren == null ? 0 : nodeChildren.size();
+    }
+
+    AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+        ++fetchesCount;
+        List<AccessibilityNodeInfo> nodeChildren = children.get(node);
+        return nodeChildren == null ? null : nodeChildren.get(index);
+    }
+
+    @Nullable
+    AccessibilityNodeInfo getParent(AccessibilityNodeInfo node) {
+        return parents.get(node);
+    }
+
+    /**
+     * @return the count of child retrievals, which would be binder calls on a real device
+     */
+    int getFetchesCount() {
+        return fetchesCount;
+    }
+
+    void resetFetchesCount() {
+        fetchesCount = 0;
+    }
+
+    UiSelectorEvaluator newEvaluator() {
+        return new UiSelectorEvaluator() {
+            @Override
+            protected int getChildCount(AccessibilityNodeInfo node) {
+                return AxNodeTree.this.getChildCount(node);
+            }
+
+            @Override
+            protected AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+                return AxNodeTree.this.getChild(node, index);
+            }
+        };
+    }
+}
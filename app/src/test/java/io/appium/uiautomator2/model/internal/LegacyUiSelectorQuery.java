@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.internal;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.Nullable;
+import androidx.test.uiautomator.UiSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
+
+/**
+ * Resolves selector instances one by one the same way FindElements used to do it.
+ * Each lookup mirrors QueryController.findNodeRegularRecursive and walks the hierarchy
+ * from its root.
+ */
+class LegacyUiSelectorQuery {
+    private final AxNodeTree tree;
+
+    LegacyUiSelectorQuery(AxNodeTree tree) {
+        this.tree = tree;
+    }
+
+    List<AccessibilityNodeInfo> findAll(UiSelector selector) {
+        List<AccessibilityNodeInfo> result = new ArrayList<>();
+        for (int instance = 0; ; ++instance) {
+            // QueryController works with a copy, since instance counters are stored in selectors
+            AccessibilityNodeInfo node = findNodeRegularRecursive(
+                    new UiSelector(selector.instance(instance)), tree.getRoot(), 0);
+            if (node == null) {
+                return result;
+            }
+            result.add(node);
+        }
+    }
+
+    private static boolean call(String methodName, UiSelector selector) {
+        return (Boolean) invoke(getMethod(UiSelector.class, methodName), selector);
+    }
+
+    @Nullable
+    private AccessibilityNodeInfo findNodeRegularRecursive(UiSelector subSelector,
+                                                           AccessibilityNodeInfo fromNode, int index) {
+        boolean isMatch = (Boolean) invoke(getMethod(UiSelector.class, "isMatchFor",
+                AccessibilityNodeInfo.class, int.class), subSelector, fromNode, index);
+        if (isMatch) {
+            if (call("isLeaf", subSelector)) {
+                return fromNode;
+            }
+            if (call("hasChildSelector", subSelector)) {
+                subSelector = (UiSelector) invoke(getMethod(UiSelector.class, "getChildSelector"), subSelector);
+                if (subSelector == null) {
+                    return null;
+                }
+            } else if (call("hasParentSelector", subSelector)) {
+                subSelector = (UiSelector) invoke(getMethod(UiSelector.class, "getParentSelector"), subSelector);
+                if (subSelector == null) {
+                    return null;
+                }
+                fromNode = tree.getParent(fromNode);
+                if (fromNode == null) {
+                    return null;
+                }
+            }
+        }
+
+        int childCount = tree.getChildCount(fromNode);
+        for (int i = 0; i < childCount; i++) {
+            AccessibilityNodeInfo childNode = tree.getChild(fromNode, i);
+            if (childNode == null || !childNode.isVisibleToUser()) {
+                continue;
+            }
+            AccessibilityNodeInfo retNode = findNodeRegularRecursive(subSelector, childNode, i);
+            if (retNode != null) {
+                return retNode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.internal;
+
+import androidx.test.uiautomator.UiSelector;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import io.appium.uiautomator2.utils.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares resolving selector instances one by one with the single walk
+ * performed by {@link UiSelectorEvaluator} on long lists.
+ */
+public class UiSelectorEvaluatorBenchmarks {
+    private static final int[] ROWS_COUNTS = new int[]{100, 250, 500};
+    private static final UiSelector[] SELECTORS = new UiSelector[]{
+            new UiSelector().resourceId("com.app:id/title"),
+            new UiSelector().className("android.widget.LinearLayout")
+                    .childSelector(new UiSelector().className("android.widget.ImageView")),
+            new UiSelector().resourceId("com.app:id/title")
+                    .fromParent(new UiSelector().resourceId("com.app:id/icon")),
+    };
+
+    @Test
+    public void shouldFindSameCountWithFewerFetches() {
+        AxNodeTree tree = AxNodeTree.generateList(20);
+        for (UiSelector selector : SELECTORS) {
+            tree.resetFetchesCount();
+            int legacyCount = new LegacyUiSelectorQuery(tree).findAll(selector).size();
+            int legacyFetches = tree.getFetchesCount();
+            tree.resetFetchesCount();
+            int count = tree.newEvaluator().findAll(selector, tree.getRoot()).size();
+            assertEquals(legacyCount, count);
+            assertEquals(20, count);
+            assertTrue(tree.getFetchesCount() < legacyFetches);
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void compareSelectorLookupPerformance() {
+        for (int rowsCount : ROWS_COUNTS) {
+            AxNodeTree tree = AxNodeTree.generateList(rowsCount);
+            for (UiSelector selector : SELECTORS) {
+                tree.resetFetchesCount();
+                long start = System.nanoTime();
+                new LegacyUiSelectorQuery(tree).findAll(selector);
+                double legacyMs = (System.nanoTime() - start) / 1e6;
+                int legacyFetches = tree.getFetchesCount();
+
+                tree.resetFetchesCount();
+                start = System.nanoTime();
+                tree.newEvaluator().findAll(selector, tree.getRoot());
+                double singlePassMs = (System.nanoTime() - start) / 1e6;
+                int fetches = tree.getFetchesCount();
+
+                Logger.info(String.format(
+                        "%4d rows, '%s': one by one %.2fms (%d node fetches), single walk %.2fms (%d node fetches)",
+                        rowsCount, selector, legacyMs, legacyFetches, singlePassMs, fetches));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.internal;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.test.uiautomator.UiSelector;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.appium.uiautomator2.model.internal.AxNodeTree.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UiSelectorEvaluatorTests {
+    private static List<AccessibilityNodeInfo> assertSameAsLegacy(AxNodeTree tree, UiSelector selector) {
+        List<AccessibilityNodeInfo> expected = new LegacyUiSelectorQuery(tree).findAll(selector);
+        List<AccessibilityNodeInfo> actual = tree.newEvaluator().findAll(selector, tree.getRoot());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+        return actual;
+    }
+
+    @Test
+    public void shouldFindAllInstancesInDocumentOrder() {
+        AxNodeTree tree = AxNodeTree.generateList(5);
+        List<AccessibilityNodeInfo> nodes = assertSameAsLegacy(tree,
+                new UiSelector().className("android.widget.TextView"));
+        assertEquals(5, nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            assertEquals("Row " + i, nodes.get(i).getText().toString());
+        }
+    }
+
+    @Test
+    public void shouldIgnoreSelectorInstance() {
+        AxNodeTree tree = AxNodeTree.generateList(5);
+        assertEquals(5, assertSameAsLegacy(tree,
+                new UiSelector().resourceId("com.app:id/icon").instance(3)).size());
+    }
+
+    @Test
+    public void shouldResolveChildSelectors() {
+        AxNodeTree tree = AxNodeTree.generateList(5);
+        List<AccessibilityNodeInfo> nodes = assertSameAsLegacy(tree, new UiSelector()
+                .className("android.widget.LinearLayout")
+                .childSelector(new UiSelector().text("Row 3")));
+        // Instances of preceding rows are resolved to the first row, which has the child
+        assertEquals(4, nodes.size());
+        for (AccessibilityNodeInfo node : nodes) {
+            assertEquals("Row 3", node.getText().toString());
+        }
+    }
+
+    @Test
+    public void shouldResolveParentSelectors() {
+        AxNodeTree tree = AxNodeTree.generateList(5);
+        assertSameAsLegacy(tree, new UiSelector()
+                .text("Row 2")
+                .fromParent(new UiSelector().className("android.widget.ImageView")));
+        assertSameAsLegacy(tree, new UiSelector()
+                .resourceId("com.app:id/title")
+                .fromParent(new UiSelector().resourceId("com.app:id/icon")));
+    }
+
+    @Test
+    public void shouldNotSearchForChainStartInsideOfMatchedSubtrees() {
+        AccessibilityNodeInfo outer = node("android.widget.LinearLayout");
+        AxNodeTree tree = new AxNodeTree(outer);
+        AccessibilityNodeInfo inner = tree.add(outer, node("android.widget.LinearLayout"));
+        AccessibilityNodeInfo first = tree.add(inner, node("android.widget.TextView", "first", null));
+        AccessibilityNodeInfo sibling = tree.add(outer, node("android.widget.LinearLayout"));
+        AccessibilityNodeInfo second = tree.add(sibling, node("android.widget.TextView", "second", null));
+
+        List<AccessibilityNodeInfo> nodes = assertSameAsLegacy(tree, new UiSelector()
+                .className("android.widget.LinearLayout")
+                .childSelector(new UiSelector().className("android.widget.TextView")));
+        assertEquals(Arrays.asList(first, first, second), nodes);
+    }
+
+    @Test
+    public void shouldSkipInvisibleSubtrees() {
+        AxNodeTree tree = AxNodeTree.generateList(3);
+        AccessibilityNodeInfo hidden = tree.add(tree.getRoot(), node("android.widget.LinearLayout"));
+        hidden.setVisibleToUser(false);
+        tree.add(hidden, node("android.widget.TextView", "Hidden", "com.app:id/title"));
+
+        assertEquals(3, assertSameAsLegacy(tree, new UiSelector().resourceId("com.app:id/title")).size());
+    }
+
+    @Test
+    public void shouldReturnEmptyListIfNothingMatches() {
+        AxNodeTree tree = AxNodeTree.generateList(3);
+        assertTrue(assertSameAsLegacy(tree, new UiSelector().text("Row 42")).isEmpty());
+    }
+
+    @Test
+    public void shouldNotSupportInstancesOfNestedSelectors() {
+        assertTrue(UiSelectorEvaluator.isSupported(new UiSelector()
+                .className("android.widget.LinearLayout").instance(1)
+                .childSelector(new UiSelector().text("Row 1"))));
+        assertFalse(UiSelectorEvaluator.isSupported(new UiSelector()
+                .className("android.widget.LinearLayout")
+                .childSelector(new UiSelector().text("Row 1").instance(1))));
+    }
+
+    @Test
+    public void shouldFetchEachNodeOnce() {
+        AxNodeTree tree = AxNodeTree.generateList(10);
+        tree.newEvaluator().findAll(new UiSelector().className("android.widget.TextView"), tree.getRoot());
+        // The list, 10 rows and 20 row children
+        assertEquals(31, tree.getFetchesCount());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EnableCompactSnapshotsTest {
+    private EnableCompactSnapshots enableCompactSnapshots;
+
+    @Before
+    public void setUp() {
+        enableCompactSnapshots = new EnableCompactSnapshots();
+    }
+
+    @Test
+    public void shouldBeBoolean() {
+        Assert.assertEquals(Boolean.class, enableCompactSnapshots.getValueType());
+    }
+
+    @Test
+    public void shouldReturnValidSettingName() {
+        Assert.assertEquals("enableCompactSnapshots", enableCompactSnapshots.getName());
+    }
+
+    @Test
+    public void shouldBeFalseByDefault() {
+        assertFalse(enableCompactSnapshots.getValue());
+    }
+
+    @Test
+    public void shouldBeAbleToSetValue() {
+        enableCompactSnapshots.update(true);
+        assertTrue(enableCompactSnapshots.getValue());
+        enableCompactSnapshots.update(false);
+        assertFalse(enableCompactSnapshots.getValue());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.model.settings;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.appium.uiautomator2.server.ServerConfig;
+
+public class MaxRequestContentLengthTests {
+    private MaxRequestContentLength maxRequestContentLength;
+
+    @Before
+    public void setUp() {
+        maxRequestContentLength = new MaxRequestContentLength();
+    }
+
+    @After
+    public void tearDown() {
+        ServerConfig.setMaxRequestContentLength(ServerConfig.DEFAULT_MAX_REQUEST_CONTENT_LENGTH);
+    }
+
+    @Test
+    public void shouldBeInteger() {
+        Assert.assertEquals(Integer.class, maxRequestContentLength.getValueType());
+    }
+
+    @Test
+    public void shouldReturnValidSettingName() {
+        Assert.assertEquals("maxRequestContentLength", maxRequestContentLength.getName());
+    }
+
+    @Test
+    public void shouldHaveDefaultValue() {
+        Assert.assertEquals(Integer.valueOf(ServerConfig.DEFAULT_MAX_REQUEST_CONTENT_LENGTH),
+                maxRequestContentLength.getValue());
+    }
+
+    @Test
+    public void shouldBeAbleToSetValue() {
+        maxRequestContentLength.update(10 * 1024 * 1024);
+        Assert.assertEquals(Integer.valueOf(10 * 1024 * 1024), maxRequestContentLength.getValue());
+    }
+
+    @Test
+    public void shouldIgnoreTooSmallValues() {
+        maxRequestContentLength.update(100);
+        Assert.assertEquals(Integer.valueOf(ServerConfig.DEFAULT_MAX_REQUEST_CONTENT_LENGTH),
+                maxRequestContentLength.getValue());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.appium.uiautomator2.server.mjpeg.MjpegFrameCache;
+
+public class MjpegFrameMaxAgeTests {
+    private MjpegFrameMaxAge mjpegFrameMaxAge;
+
+    @Before
+    public void setUp() {
+        mjpegFrameMaxAge = new MjpegFrameMaxAge();
+    }
+
+    @After
+    public void tearDown() {
+        MjpegFrameCache.getInstance().setMaxFrameAgeMs(MjpegFrameCache.DEFAULT_MAX_FRAME_AGE_MS);
+    }
+
+    @Test
+    public void shouldBeInteger() {
+        Assert.assertEquals(Integer.class, mjpegFrameMaxAge.getValueType());
+    }
+
+    @Test
+    public void shouldReturnValidSettingName() {
+        Assert.assertEquals("mjpegFrameMaxAge", mjpegFrameMaxAge.getName());
+    }
+
+    @Test
+    public void shouldHaveDefaultValue() {
+        Assert.assertEquals(Integer.valueOf(MjpegFrameCache.DEFAULT_MAX_FRAME_AGE_MS), mjpegFrameMaxAge.getValue());
+    }
+
+    @Test
+    public void shouldBeAbleToSetValue() {
+        mjpegFrameMaxAge.update(200);
+        Assert.assertEquals(Integer.valueOf(200), mjpegFrameMaxAge.getValue());
+    }
+
+    @Test
+    public void shouldIgnoreNegativeValues() {
+        mjpegFrameMaxAge.update(-1);
+        Assert.assertEquals(Integer.valueOf(MjpegFrameCache.DEFAULT_MAX_FRAME_AGE_MS), mjpegFrameMaxAge.getValue());
+    }
+}
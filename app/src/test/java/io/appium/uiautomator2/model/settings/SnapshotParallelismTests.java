@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.appium.uiautomator2.core.SnapshotExecutor;
+
+public class SnapshotParallelismTests {
+    private SnapshotParallelism snapshotParallelism;
+
+    @Before
+    public void setUp() {
+        snapshotParallelism = new SnapshotParallelism();
+    }
+
+    @After
+    public void tearDown() {
+        SnapshotExecutor.getInstance().setParallelism(SnapshotExecutor.DEFAULT_PARALLELISM);
+    }
+
+    @Test
+    public void shouldBeInteger() {
+        Assert.assertEquals(Integer.class, snapshotParallelism.getValueType());
+    }
+
+    @Test
+    public void shouldReturnValidSettingName() {
+        Assert.assertEquals("snapshotParallelism", snapshotParallelism.getName());
+    }
+
+    @Test
+    public void shouldHaveDefaultValue() {
+        Assert.assertEquals(Integer.valueOf(SnapshotExecutor.DEFAULT_PARALLELISM), snapshotParallelism.getValue());
+    }
+
+    @Test
+    public void shouldBeAbleToSetValue() {
+        snapshotParallelism.update(4);
+        Assert.assertEquals(Integer.valueOf(4), snapshotParallelism.getValue());
+    }
+
+    @Test
+    public void shouldIgnoreOutOfRangeValues() {
+        snapshotParallelism.update(0);
+        Assert.assertEquals(Integer.valueOf(SnapshotExecutor.DEFAULT_PARALLELISM), snapshotParallelism.getValue());
+        snapshotParallelism.update(17);
+        Assert.assertEquals(Integer.valueOf(SnapshotExecutor.DEFAULT_PARALLELISM), snapshotParallelism.getValue());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.model.settings;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.appium.uiautomator2.core.XPathExpressionCache;
+
+public class XPathCacheSizeTests {
+    private XPathCacheSize xpathCacheSize;
+
+    @Before
+    public void setUp() {
+        xpathCacheSize = new XPathCacheSize();
+    }
+
+    @After
+    public void tearDown() {
+        XPathExpressionCache.getInstance().setMaxSize(XPathExpressionCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void shouldBeInteger() {
+        Assert.assertEquals(Integer.class, xpathCacheSize.getValueType());
+    }
+
+    @Test
+    public void shouldReturnValidSettingName() {
+        Assert.assertEquals("xpathCacheSize", xpathCacheSize.getName());
+    }
+
+    @Test
+    public void shouldHaveDefaultValue() {
+        Assert.assertEquals(Integer.valueOf(XPathExpressionCache.DEFAULT_MAX_SIZE), xpathCacheSize.getValue());
+    }
+
+    @Test
+    public void shouldBeAbleToSetValue() {
+        xpathCacheSize.update(10);
+        Assert.assertEquals(Integer.valueOf(10), xpathCacheSize.getValue());
+    }
+
+    @Test
+    public void shouldIgnoreNegativeValues() {
+        xpathCacheSize.update(-1);
+        Assert.assertEquals(Integer.valueOf(XPathExpressionCache.DEFAULT_MAX_SIZE), xpathCacheSize.getValue());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.server;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.appium.uiautomator2.handler.request.BaseRequestHandler;
+import io.appium.uiautomator2.utils.Logger;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares the cost of routing requests to all registered handlers using
+ * {@link RouteTrie} with the linear lookup, which was used before.
+ */
+public class RouteDispatchBenchmarks {
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 20000;
+    private static final String[] METHODS = new String[]{"GET", "POST", "DELETE"};
+
+    private static String toRequestPath(String pattern) {
+        StringBuilder result = new StringBuilder();
+        String[] sections = pattern.split("/");
+        for (int i = 0; i < sections.length; ++i) {
+            if (i > 0) {
+                result.append('/');
+            }
+            result.append(sections[i].startsWith(":")
+                    ? "0f4c2a8e-" + sections[i].substring(1)
+                    : sections[i]);
+        }
+        return result.toString();
+    }
+
+    // The linear lookup, which has been replaced by RouteTrie
+    private static BaseRequestHandler findLinear(Map<String, BaseRequestHandler> handlers, String path) {
+        String[] urlToMatchSections = path.split("/");
+        for (Map.Entry<String, BaseRequestHandler> entry : handlers.entrySet()) {
+            String[] mapperUrlSections = entry.getKey().split("/");
+            if (mapperUrlSections.length != urlToMatchSections.length) {
+                continue;
+            }
+            boolean isMatch = true;
+            for (int i = 0; i < mapperUrlSections.length; i++) {
+                if (!(mapperUrlSections[i].startsWith(":")
+                        || mapperUrlSections[i].equals(urlToMatchSections[i]))) {
+                    isMatch = false;
+                    break;
+                }
+            }
+            if (isMatch) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void extractParametersLinear(String pattern, String path) {
+        for (String param : new String[]{":sessionId", ":command", ":name", ":id", ":id2", ":id3", ":id4"}) {
+            String[] configuredSections = pattern.split("/");
+            String[] currentSections = path.split("/");
+            for (int i = 0; i < currentSections.length; i++) {
+                if (configuredSections[i].contains(param)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void extractParametersTrie(RouteTrie.Match<BaseRequestHandler> match) {
+        for (String param : new String[]{"sessionId", "command", "name", "id", "id2", "id3", "id4"}) {
+            match.getParameter(param);
+        }
+    }
+
+    @Test
+    public void shouldRouteAllRequestsToSameHandlers() {
+        AppiumServlet servlet = new AppiumServlet();
+        for (String method : METHODS) {
+            RouteTrie<BaseRequestHandler> trie = servlet.getRoutes(method);
+            assertNotNull(trie);
+            Map<String, BaseRequestHandler> linear = new HashMap<>();
+            List<String> paths = new ArrayList<>();
+            collectRoutes(trie, linear, paths);
+            for (String path : paths) {
+                assertSame(path, findLinear(linear, path), trie.find(path).getTarget());
+            }
+        }
+    }
+
+    private static void collectRoutes(RouteTrie<BaseRequestHandler> trie,
+                                      Map<String, BaseRequestHandler> linear, List<String> paths) {
+        for (String pattern : trie.getPatterns()) {
+            String path = toRequestPath(pattern);
+            RouteTrie.Match<BaseRequestHandler> match = trie.find(path);
+            assertNotNull(path, match);
+            linear.put(pattern, match.getTarget());
+            paths.add(path);
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void compareDispatchPerformance() {
+        AppiumServlet servlet = new AppiumServlet();
+        for (String method : METHODS) {
+            RouteTrie<BaseRequestHandler> trie = servlet.getRoutes(method);
+            Map<String, BaseRequestHandler> linear = new HashMap<>();
+            List<String> paths = new ArrayList<>();
+            List<String> patterns = trie.getPatterns();
+            collectRoutes(trie, linear, paths);
+
+            for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+                for (int j = 0; j < paths.size(); ++j) {
+                    extractParametersLinear(patterns.get(j), paths.get(j));
+                    findLinear(linear, paths.get(j));
+                    extractParametersTrie(trie.find(paths.get(j)));
+                }
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+                for (int j = 0; j < paths.size(); ++j) {
+                    findLinear(linear, paths.get(j));
+                    extractParametersLinear(patterns.get(j), paths.get(j));
+                }
+            }
+            double linearNs = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS / paths.size();
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+                for (String path : paths) {
+                    extractParametersTrie(trie.find(path));
+                }
+            }
+            double trieNs = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS / paths.size();
+            Logger.info(String.format("%-6s %3d routes: linear %.0fns, trie %.0fns per request",
+                    method, paths.size(), linearNs, trieNs));
+        }
+    }
+}
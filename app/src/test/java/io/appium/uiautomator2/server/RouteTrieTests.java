@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RouteTrieTests {
+
+    private static RouteTrie<String> createTrie() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("/wd/hub/status", "status");
+        trie.add("/wd/hub/session/:sessionId", "session");
+        trie.add("/wd/hub/session/:sessionId/element/:id/text", "text");
+        trie.add("/wd/hub/session/:sessionId/element/:id/attribute/:name", "attribute");
+        trie.add("/wd/hub/session/:sessionId/window/:windowHandle/size", "windowSize");
+        trie.add("/wd/hub/session/:sessionId/element/:id/size", "size");
+        trie.add("/wd/hub/session/:sessionId/appium/element/:id/scroll_to/:id2", "scrollTo");
+        trie.add("/wd/hub/session/:sessionId/screenshot/:id", "elementScreenshot");
+        trie.add("/wd/hub/session/:sessionId/screenshot", "screenshot");
+        trie.add("/wd/hub/session/:sessionId/appium/device/info", "info");
+        return trie;
+    }
+
+    @Test
+    public void shouldMatchLiteralRoutes() {
+        RouteTrie.Match<String> match = createTrie().find("/wd/hub/status");
+        assertEquals("status", match.getTarget());
+        assertNull(match.getParameter("sessionId"));
+    }
+
+    @Test
+    public void shouldCaptureParameters() {
+        RouteTrie.Match<String> match = createTrie().find(
+                "/wd/hub/session/123/element/456/attribute/content-desc");
+        assertEquals("attribute", match.getTarget());
+        assertEquals("123", match.getParameter("sessionId"));
+        assertEquals("456", match.getParameter("id"));
+        assertEquals("content-desc", match.getParameter("name"));
+        assertNull(match.getParameter("id2"));
+
+        match = createTrie().find("/wd/hub/session/123/appium/element/456/scroll_to/789");
+        assertEquals("scrollTo", match.getTarget());
+        assertEquals("456", match.getParameter("id"));
+        assertEquals("789", match.getParameter("id2"));
+    }
+
+    @Test
+    public void shouldCaptureParametersWithDifferentNamesAtTheSamePosition() {
+        RouteTrie<String> trie = createTrie();
+        RouteTrie.Match<String> match = trie.find("/wd/hub/session/123/window/current/size");
+        assertEquals("windowSize", match.getTarget());
+        assertEquals("current", match.getParameter("windowHandle"));
+        assertNull(match.getParameter("id"));
+
+        match = trie.find("/wd/hub/session/123/element/456/size");
+        assertEquals("size", match.getTarget());
+        assertEquals("456", match.getParameter("id"));
+    }
+
+    @Test
+    public void shouldPreferLiteralsOverParameters() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("/session/:sessionId/element/:id", "element");
+        trie.add("/session/:sessionId/element/active", "active");
+        assertEquals("active", trie.find("/session/1/element/active").getTarget());
+        assertEquals("element", trie.find("/session/1/element/passive").getTarget());
+    }
+
+    @Test
+    public void shouldBacktrackToParametersIfLiteralBranchDoesNotMatch() {
+        RouteTrie<String> trie = new RouteTrie<>();
+        trie.add("/session/:sessionId/element/active", "active");
+        trie.add("/session/:sessionId/element/:id/text", "text");
+        RouteTrie.Match<String> match = trie.find("/session/1/element/active/text");
+        assertEquals("text", match.getTarget());
+        assertEquals("active", match.getParameter("id"));
+    }
+
+    @Test
+    public void shouldIgnoreQueryString() {
+        RouteTrie.Match<String> match = createTrie().find("/wd/hub/session/123/screenshot?foo=bar");
+        assertEquals("screenshot", match.getTarget());
+        assertEquals("123", match.getParameter("sessionId"));
+    }
+
+    @Test
+    public void shouldNotMatchPartialPaths() {
+        RouteTrie<String> trie = createTrie();
+        assertNull(trie.find("/wd/hub/session/123/element/456"));
+        assertNull(trie.find("/wd/hub/session/123/element/456/text/789"));
+        assertNull(trie.find("/wd/hub/unknown"));
+        assertNull(trie.find(null));
+    }
+
+    @Test
+    public void shouldReplaceRoutesWithTheSamePattern() {
+        RouteTrie<String> trie = createTrie();
+        trie.add("/wd/hub/status", "newStatus");
+        assertEquals("newStatus", trie.find("/wd/hub/status").getTarget());
+        assertEquals(10, trie.getPatterns().size());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.server.mjpeg;
+
+import android.graphics.Rect;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.appium.uiautomator2.server.mjpeg.FrameDiffer.TILE_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FrameDifferTests {
+    private static final int WIDTH = TILE_SIZE * 4 + 10;
+    private static final int HEIGHT = TILE_SIZE * 6 + 20;
+
+    private FrameDiffer differ;
+    private int[] pixels;
+
+    @Before
+    public void setUp() {
+        differ = new FrameDiffer();
+        pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, 0xFF000000);
+    }
+
+    private void setPixel(int x, int y, int color) {
+        pixels[y * WIDTH + x] = color;
+    }
+
+    @Test
+    public void shouldReportWholeFirstFrame() {
+        assertEquals(new Rect(0, 0, WIDTH, HEIGHT), differ.update(pixels, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldReportNothingForIdenticalFrames() {
+        differ.update(pixels, WIDTH, HEIGHT);
+        assertNull(differ.update(pixels.clone(), WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldDetectSinglePixelChange() {
+        differ.update(pixels, WIDTH, HEIGHT);
+        setPixel(TILE_SIZE + 5, 2 * TILE_SIZE + 7, 0xFF000001);
+        assertEquals(new Rect(TILE_SIZE, 2 * TILE_SIZE, 2 * TILE_SIZE, 3 * TILE_SIZE),
+                differ.update(pixels, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldDetectSwappedPixels() {
+        setPixel(0, 0, 0xFFFFFFFF);
+        differ.update(pixels, WIDTH, HEIGHT);
+        setPixel(0, 0, 0xFF000000);
+        setPixel(1, 0, 0xFFFFFFFF);
+        assertEquals(new Rect(0, 0, TILE_SIZE, TILE_SIZE), differ.update(pixels, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldReturnBoundingRectOfChangedTilesClippedToFrame() {
+        differ.update(pixels, WIDTH, HEIGHT);
+        setPixel(TILE_SIZE / 2, TILE_SIZE + 1, 0xFF00FF00);
+        setPixel(WIDTH - 1, HEIGHT - 1, 0xFF00FF00);
+        assertEquals(new Rect(0, TILE_SIZE, WIDTH, HEIGHT), differ.update(pixels, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldReportWholeFrameIfSizeChanges() {
+        differ.update(pixels, WIDTH, HEIGHT);
+        assertEquals(new Rect(0, 0, HEIGHT, WIDTH), differ.update(pixels, HEIGHT, WIDTH));
+    }
+
+    @Test
+    public void shouldReportWholeFrameAfterReset() {
+        differ.update(pixels, WIDTH, HEIGHT);
+        differ.reset();
+        assertEquals(new Rect(0, 0, WIDTH, HEIGHT), differ.update(pixels, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void shouldMapThumbnailRectToFrameRect() {
+        assertEquals(new Rect(40, 80, 120, 160),
+                FrameDiffer.toFrameRect(new Rect(10, 20, 30, 40), 100, 200, 400, 800));
+    }
+
+    @Test
+    public void shouldCoverAllFramePixelsOfThumbnailRect() {
+        // The frame size is not divisible by the thumbnail size
+        assertEquals(new Rect(0, 4, 1081, 2401),
+                FrameDiffer.toFrameRect(new Rect(0, 1, 270, 600), 270, 600, 1081, 2401));
+        assertEquals(new Rect(4, 4, 9, 9),
+                FrameDiffer.toFrameRect(new Rect(1, 1, 2, 2), 2, 2, 9, 9));
+    }
+}
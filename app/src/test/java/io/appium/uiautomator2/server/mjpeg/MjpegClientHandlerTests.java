@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.server.mjpeg;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MjpegClientHandlerTests {
+    private final List<MjpegScreenshotClient> clients = new ArrayList<>();
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new HttpRequestDecoder(), new MjpegClientHandler(clients));
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private void connect(String uri) {
+        channel.writeInbound(Unpooled.copiedBuffer(
+                String.format("GET %s HTTP/1.1\r\nHost: localhost\r\n\r\n", uri), CharsetUtil.US_ASCII));
+    }
+
+    private String readOutbound() {
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        try {
+            return buf.toString(CharsetUtil.US_ASCII);
+        } finally {
+            ReferenceCountUtil.release(buf);
+        }
+    }
+
+    private static byte[] frame(String content) {
+        return content.getBytes(CharsetUtil.US_ASCII);
+    }
+
+    private void setWritable(boolean isWritable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, isWritable);
+        channel.runPendingTasks();
+    }
+
+    @Test
+    public void shouldStartStreamingAfterRequest() {
+        assertTrue(clients.isEmpty());
+        connect("/");
+        assertEquals(1, clients.size());
+        assertFalse(clients.get(0).supportsDirtyRegions());
+        assertEquals(new String(MjpegScreenshotClient.START, CharsetUtil.US_ASCII), readOutbound());
+
+        clients.get(0).write(frame("frame1"));
+        channel.runPendingTasks();
+        assertEquals("frame1", readOutbound());
+        assertTrue(clients.get(0).hasReceivedFullFrame());
+    }
+
+    @Test
+    public void shouldRecognizeDirtyRegionsClients() {
+        connect("/?dirtyRegions=true");
+        assertTrue(clients.get(0).supportsDirtyRegions());
+    }
+
+    @Test
+    public void shouldDropOldestFramesOfSlowClients() {
+        connect("/?dirtyRegions=1");
+        readOutbound();
+        MjpegScreenshotClient client = clients.get(0);
+        setWritable(false);
+        for (int i = 1; i <= MjpegScreenshotClient.MAX_QUEUED_FRAMES + 2; ++i) {
+            client.write(frame("frame" + i), i == 1);
+        }
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+        // A dirty region client needs a full frame after losing some of them
+        assertFalse(client.hasReceivedFullFrame());
+
+        setWritable(true);
+        assertEquals("frame3", readOutbound());
+        assertEquals("frame4", readOutbound());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void shouldForgetDisconnectedClients() {
+        connect("/");
+        MjpegScreenshotClient client = clients.get(0);
+        channel.close();
+        assertTrue(clients.isEmpty());
+        assertTrue(client.isClosed());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appium.uiautomator2.utils;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.setField;
+import static org.junit.Assert.assertEquals;
+
+public class ElementHelpersTests {
+    private static AccessibilityNodeInfo node(int windowId, long sourceNodeId) {
+        AccessibilityNodeInfo node = AccessibilityNodeInfo.obtain();
+        setField("mWindowId", windowId, node);
+        setField("mSourceNodeId", sourceNodeId, node);
+        return node;
+    }
+
+    @Test
+    public void shouldRemoveElementsWithSameNodes() {
+        Object first = new Object();
+        Object second = new Object();
+        Object firstDuplicate = new Object();
+        Object otherWindow = new Object();
+        Map<Object, AccessibilityNodeInfo> nodes = new HashMap<>();
+        nodes.put(first, node(1, 10));
+        nodes.put(second, node(1, 11));
+        nodes.put(firstDuplicate, node(1, 10));
+        nodes.put(otherWindow, node(2, 10));
+
+        List<Object> result = ElementHelpers.dedupe(
+                Arrays.asList(first, second, firstDuplicate, otherWindow, second), nodes);
+        assertEquals(Arrays.asList(first, second, otherWindow), result);
+    }
+
+    @Test
+    public void shouldKeepFirstElementWithoutNode() {
+        Object first = new Object();
+        Object second = new Object();
+        Map<Object, AccessibilityNodeInfo> nodes = new HashMap<>();
+        nodes.put(first, null);
+        nodes.put(second, null);
+
+        assertEquals(Arrays.asList(first), ElementHelpers.dedupe(Arrays.asList(first, second), nodes));
+    }
+
+    @Test
+    public void shouldDedupeManyElements() {
+        List<Object> elements = new ArrayList<>();
+        Map<Object, AccessibilityNodeInfo> nodes = new HashMap<>();
+        for (int i = 0; i < 2000; ++i) {
+            Object element = new Object();
+            elements.add(element);
+            nodes.put(element, node(1, i % 500));
+        }
+
+        List<Object> result = ElementHelpers.dedupe(elements, nodes);
+        assertEquals(elements.subList(0, 500), result);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.utils;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import io.appium.uiautomator2.utils.ReflectionUtilsTests.FakeInteractionController;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.getConstructor;
+import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
+import static io.appium.uiautomator2.utils.ReflectionUtilsTests.CONTROLLER_CLASS;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the overhead of a reflective call per injected event, the way
+ * InteractionController performs it, with and without cached member lookups.
+ */
+public class ReflectionBenchmarks {
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 200000;
+
+    // The lookup, which has been performed for each event before members were cached
+    private static Object injectUncached(Object controller, int x, int y) throws Exception {
+        Method method = Class.forName(CONTROLLER_CLASS).getDeclaredMethod("touchDown", int.class, int.class);
+        method.setAccessible(true);
+        return method.invoke(controller, x, y);
+    }
+
+    private static Object injectCached(Object controller, int x, int y) {
+        return invoke(getMethod(CONTROLLER_CLASS, "touchDown", int.class, int.class), controller, x, y);
+    }
+
+    @Test
+    public void shouldReturnSameResultsWithAndWithoutCache() throws Exception {
+        Object controller = getConstructor(FakeInteractionController.class).newInstance();
+        for (int i = -2; i < 3; ++i) {
+            assertEquals(injectUncached(controller, i, i), injectCached(controller, i, i));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void compareEventInjectionOverhead() throws Exception {
+        Object controller = getConstructor(FakeInteractionController.class).newInstance();
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i) {
+            injectUncached(controller, i, i);
+            injectCached(controller, i, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            injectUncached(controller, i, i);
+        }
+        double uncachedNs = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            injectCached(controller, i, i);
+        }
+        double cachedNs = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        Logger.info(String.format("Per-event reflective call: uncached %.0fns, cached %.0fns",
+                uncachedNs, cachedNs));
+    }
+}
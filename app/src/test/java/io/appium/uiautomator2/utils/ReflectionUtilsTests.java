@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.appium.uiautomator2.utils;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import io.appium.uiautomator2.common.exceptions.UiAutomator2Exception;
+
+import static io.appium.uiautomator2.utils.ReflectionUtils.getConstructor;
+import static io.appium.uiautomator2.utils.ReflectionUtils.getField;
+import static io.appium.uiautomator2.utils.ReflectionUtils.getMethod;
+import static io.appium.uiautomator2.utils.ReflectionUtils.invoke;
+import static io.appium.uiautomator2.utils.ReflectionUtils.setField;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ReflectionUtilsTests {
+    static final String CONTROLLER_CLASS =
+            "io.appium.uiautomator2.utils.ReflectionUtilsTests$FakeInteractionController";
+
+    @SuppressWarnings("unused")
+    static class FakeInteractionController {
+        private int eventsCount;
+
+        private FakeInteractionController() {
+        }
+
+        private boolean touchDown(int x, int y) {
+            ++eventsCount;
+            return x >= 0 && y >= 0;
+        }
+
+        private boolean touchDown(long x, long y) {
+            return false;
+        }
+    }
+
+    static class SubController extends FakeInteractionController {
+        private int eventsCount = 100;
+    }
+
+    @Test
+    public void shouldResolveMembersOnlyOnce() {
+        assertSame(ReflectionUtils.getClass(CONTROLLER_CLASS), ReflectionUtils.getClass(CONTROLLER_CLASS));
+        Method method = getMethod(CONTROLLER_CLASS, "touchDown", int.class, int.class);
+        assertSame(method, getMethod(CONTROLLER_CLASS, "touchDown", int.class, int.class));
+        assertSame(getConstructor(FakeInteractionController.class),
+                getConstructor(FakeInteractionController.class));
+    }
+
+    @Test
+    public void shouldDistinguishOverloads() {
+        Method intMethod = getMethod(FakeInteractionController.class, "touchDown", int.class, int.class);
+        Method longMethod = getMethod(FakeInteractionController.class, "touchDown", long.class, long.class);
+        assertNotSame(intMethod, longMethod);
+        assertEquals(int.class, intMethod.getParameterTypes()[0]);
+        assertEquals(long.class, longMethod.getParameterTypes()[0]);
+    }
+
+    @Test
+    public void shouldInvokeCachedMembers() throws Exception {
+        Object controller = getConstructor(FakeInteractionController.class).newInstance();
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(true, invoke(getMethod(CONTROLLER_CLASS, "touchDown", int.class, int.class),
+                    controller, 1, 2));
+        }
+        assertEquals(3, getField(FakeInteractionController.class, "eventsCount", controller));
+        setField("eventsCount", 10, controller);
+        assertEquals(10, getField("eventsCount", controller));
+    }
+
+    @Test
+    public void shouldDistinguishFieldsOfDifferentClasses() {
+        SubController controller = new SubController();
+        assertEquals(100, getField("eventsCount", controller));
+        assertEquals(0, getField(FakeInteractionController.class, "eventsCount", controller));
+    }
+
+    @Test(expected = UiAutomator2Exception.class)
+    public void shouldThrowIfMethodDoesNotExist() {
+        getMethod(FakeInteractionController.class, "touchUp", int.class, int.class);
+    }
+
+    @Test(expected = UiAutomator2Exception.class)
+    public void shouldThrowIfClassDoesNotExist() {
+        ReflectionUtils.getClass(CONTROLLER_CLASS + "Missing");
+    }
+}